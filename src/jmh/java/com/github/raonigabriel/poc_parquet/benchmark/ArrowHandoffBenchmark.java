@@ -0,0 +1,174 @@
+package com.github.raonigabriel.poc_parquet.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.hadoop.conf.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.raonigabriel.poc_parquet.arrow.MovieArrow;
+import com.github.raonigabriel.poc_parquet.arrow.MovieArrowBatcher;
+import com.github.raonigabriel.poc_parquet.arrow.MovieArrowWriter;
+import com.github.raonigabriel.poc_parquet.columnar.MovieBatchReader;
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+import com.github.raonigabriel.poc_parquet.parquet.MovieParquet;
+import com.github.raonigabriel.poc_parquet.parquet.ParquetWriteOptions;
+import com.github.raonigabriel.poc_parquet.service.MovieService;
+
+/**
+ * Handing all the movies of a file to a consumer that reads every column:
+ * a {@code List<MovieEntity>} read from Parquet, as done today, against Arrow
+ * batches converted from Parquet, and against Arrow files read through a
+ * memory mapping, copied into the allocator or as a stream. Arrow batches are
+ * read straight from the vectors; {@code arrowFileToList} measures building
+ * the same list from a mapped Arrow file instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx4g", "--add-opens=java.base/java.nio=ALL-UNNAMED" })
+public class ArrowHandoffBenchmark {
+
+    @Param({ "1000000", "10000000" })
+    public int rows;
+
+    private Path parquetFile;
+
+    private Path arrowFile;
+
+    private Path arrowStreamFile;
+
+    private BufferAllocator allocator;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        allocator = new RootAllocator();
+        parquetFile = MovieDatasets.tempFile(".parquet");
+        MovieParquet.write(MovieDatasets.outputFile(parquetFile), MovieDatasets.movies(rows),
+            ParquetWriteOptions.DEFAULTS);
+        arrowFile = MovieDatasets.tempFile(".arrow");
+        try (var writer = MovieArrowWriter.file(arrowFile, allocator)) {
+            writer.write(MovieDatasets.movies(rows));
+        }
+        arrowStreamFile = MovieDatasets.tempFile(".arrows");
+        try (var writer = MovieArrowWriter.stream(Files.newOutputStream(arrowStreamFile), allocator)) {
+            writer.write(MovieDatasets.movies(rows));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        allocator.close();
+        MovieDatasets.delete(parquetFile);
+        MovieDatasets.delete(arrowFile);
+        MovieDatasets.delete(arrowStreamFile);
+    }
+
+    @Benchmark
+    public double parquetToList() throws IOException {
+        final var conf = new Configuration();
+        final List<MovieEntity> movies;
+        try (var stream = MovieParquet.read(MovieDatasets.inputFile(parquetFile, conf), conf)) {
+            movies = stream.toList();
+        }
+        double sum = 0;
+        for (var movie : movies) {
+            sum += movie.getId() + movie.getName().length() + movie.getRating()
+                + movie.getReleaseDate().toEpochDay();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double parquetToArrow() throws IOException {
+        final var sum = new double[1];
+        try (var root = MovieArrow.createRoot(allocator);
+                var reader = MovieBatchReader.open(MovieDatasets.nioInputFile(parquetFile),
+                    MovieArrow.DEFAULT_BATCH_SIZE)) {
+            final var batcher = new MovieArrowBatcher(root, MovieArrow.DEFAULT_BATCH_SIZE,
+                batch -> sum[0] += consume(batch));
+            for (var batch = reader.next(); batch != null; batch = reader.next()) {
+                batcher.add(batch);
+            }
+            batcher.finish();
+        }
+        return sum[0];
+    }
+
+    @Benchmark
+    public double arrowFileMapped() throws IOException {
+        return consume(MovieArrow.mapFile(arrowFile, allocator));
+    }
+
+    @Benchmark
+    public double arrowFileCopied() throws IOException {
+        return consume(MovieArrow.openFile(arrowFile, allocator));
+    }
+
+    @Benchmark
+    public double arrowStream() throws IOException {
+        return consume(MovieArrow.openStream(Files.newInputStream(arrowStreamFile), allocator));
+    }
+
+    @Benchmark
+    public double arrowFileToList() throws IOException {
+        final var movies = new ArrayList<MovieEntity>(rows);
+        MovieArrow.read(MovieArrow.mapFile(arrowFile, allocator), movies::add);
+        double sum = 0;
+        for (var movie : movies) {
+            sum += movie.getId() + movie.getName().length() + movie.getRating()
+                + movie.getReleaseDate().toEpochDay();
+        }
+        return sum;
+    }
+
+    private static double consume(ArrowReader reader) throws IOException {
+        double sum = 0;
+        try (reader) {
+            final var root = reader.getVectorSchemaRoot();
+            while (reader.loadNextBatch()) {
+                sum += consume(root);
+            }
+        }
+        return sum;
+    }
+
+    private static double consume(VectorSchemaRoot batch) {
+        final var ids = (BigIntVector) batch.getVector(MovieService.ID_FIELD);
+        final var names = (VarCharVector) batch.getVector(MovieService.NAME_FIELD);
+        final var ratings = (Float4Vector) batch.getVector(MovieService.RATING_FIELD);
+        final var releaseDays = (DateDayVector) batch.getVector(MovieService.RELEASE_DATE_FIELD);
+        double sum = 0;
+        for (int row = 0; row < batch.getRowCount(); row++) {
+            sum += ids.get(row) + names.getEndOffset(row) - names.getStartOffset(row) + ratings.get(row)
+                + releaseDays.get(row);
+        }
+        return sum;
+    }
+}
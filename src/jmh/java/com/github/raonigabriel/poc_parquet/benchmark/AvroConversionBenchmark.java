@@ -0,0 +1,65 @@
+package com.github.raonigabriel.poc_parquet.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.generic.GenericRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+import com.github.raonigabriel.poc_parquet.parquet.AvroMovieParquet;
+
+/**
+ * Per row cost of the {@link GenericRecord} conversions done by the Avro
+ * Parquet path, excluding any encoding or I/O.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvroConversionBenchmark {
+
+    private static final int BATCH = 1024;
+
+    private final MovieEntity[] movies = new MovieEntity[BATCH];
+
+    private final GenericRecord[] records = new GenericRecord[BATCH];
+
+    @Setup
+    public void setUp() {
+        final var random = new SplittableRandom(42L);
+        for (int i = 0; i < BATCH; i++) {
+            movies[i] = MovieDatasets.movie(i + 1L, random);
+            records[i] = AvroMovieParquet.toRecord(movies[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void toRecord(Blackhole bh) {
+        for (var movie : movies) {
+            bh.consume(AvroMovieParquet.toRecord(movie));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void toMovie(Blackhole bh) {
+        for (var movieRecord : records) {
+            bh.consume(AvroMovieParquet.toMovie(movieRecord));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.raonigabriel.poc_parquet.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.hadoop.conf.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.raonigabriel.poc_parquet.columnar.MovieBatchReader;
+import com.github.raonigabriel.poc_parquet.columnar.Selection;
+import com.github.raonigabriel.poc_parquet.columnar.YearlyRating;
+import com.github.raonigabriel.poc_parquet.columnar.YearlyRatingAggregator;
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+import com.github.raonigabriel.poc_parquet.parquet.MovieParquet;
+import com.github.raonigabriel.poc_parquet.parquet.MovieReadSupport;
+import com.github.raonigabriel.poc_parquet.parquet.ParquetWriteOptions;
+import com.github.raonigabriel.poc_parquet.service.MovieService;
+
+/**
+ * Average rating per release year: entity stream against columnar batches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx4g" })
+public class ColumnarAggregationBenchmark {
+
+    @Param({ "1000000", "10000000" })
+    public int rows;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = MovieDatasets.tempFile(".parquet");
+        MovieParquet.write(MovieDatasets.outputFile(file), MovieDatasets.movies(rows), ParquetWriteOptions.DEFAULTS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        MovieDatasets.delete(file);
+    }
+
+    @Benchmark
+    public Object entities() throws IOException {
+        final var conf = new Configuration();
+        MovieReadSupport.setRequestedColumns(conf, MovieService.RATING_FIELD, MovieService.RELEASE_DATE_FIELD);
+        try (var movies = MovieParquet.read(MovieDatasets.inputFile(file, conf), conf)) {
+            return movies.collect(Collectors.groupingBy(movie -> movie.getReleaseDate().getYear(),
+                Collectors.averagingDouble(MovieEntity::getRating)));
+        }
+    }
+
+    @Benchmark
+    public List<YearlyRating> batches() throws IOException {
+        final var aggregator = new YearlyRatingAggregator();
+        final var inputFile = MovieDatasets.inputFile(file, new Configuration());
+        try (var reader = MovieBatchReader.open(inputFile, MovieBatchReader.DEFAULT_BATCH_SIZE,
+                MovieService.RATING_FIELD, MovieService.RELEASE_DATE_FIELD)) {
+            final var selection = new Selection(MovieBatchReader.DEFAULT_BATCH_SIZE);
+            for (var batch = reader.next(); batch != null; batch = reader.next()) {
+                aggregator.add(batch, selection.selectAll(batch));
+            }
+        }
+        return aggregator.result();
+    }
+}
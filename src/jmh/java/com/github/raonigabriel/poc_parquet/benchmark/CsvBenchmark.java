@@ -0,0 +1,86 @@
+package com.github.raonigabriel.poc_parquet.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.raonigabriel.poc_parquet.csv.MovieCsv;
+import com.github.raonigabriel.poc_parquet.csv.ParallelCsvIngestor;
+
+/**
+ * Cost of {@code MovieService.readMoviesFromCsv} and {@code writeMoviesToCsv},
+ * plus the parallel ingestion path for comparison. The single threaded read
+ * keeps every row in memory, so the 10M rows run needs the larger heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx8g" })
+public class CsvBenchmark {
+
+    @Param({ "10000", "100000", "1000000", "10000000" })
+    public int rows;
+
+    private Path input;
+
+    private Path output;
+
+    private ParallelCsvIngestor ingestor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        input = MovieDatasets.tempFile(".csv");
+        output = MovieDatasets.tempFile(".csv");
+        try (var writer = Files.newBufferedWriter(input, StandardCharsets.UTF_8)) {
+            MovieCsv.write(writer, MovieDatasets.movies(rows));
+        }
+        ingestor = new ParallelCsvIngestor(10_000, Runtime.getRuntime().availableProcessors(), 8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ingestor.close();
+        MovieDatasets.delete(input);
+        MovieDatasets.delete(output);
+    }
+
+    @Benchmark
+    public int readMoviesFromCsv() throws IOException {
+        try (var reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            return MovieCsv.read(reader).size();
+        }
+    }
+
+    @Benchmark
+    public long ingestMoviesFromCsv(Blackhole bh) throws IOException {
+        try (var reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            return ingestor.ingest(reader, false, bh::consume);
+        }
+    }
+
+    @Benchmark
+    public int writeMoviesToCsv() throws IOException {
+        try (var writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            return MovieCsv.write(writer, MovieDatasets.movies(rows));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.raonigabriel.poc_parquet.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.ParquetReadOptions;
+import org.apache.parquet.conf.PlainParquetConfiguration;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.LocalOutputFile;
+import org.apache.parquet.io.OutputFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.raonigabriel.poc_parquet.parquet.MovieParquet;
+import com.github.raonigabriel.poc_parquet.parquet.ParquetWriteOptions;
+
+/**
+ * Local Parquet files through Hadoop's local file system against the
+ * memory mapped NIO files {@code MovieService} uses: first call latency in a
+ * fresh JVM, then footer reads, full reads and writes once warmed up.
+ * <p>
+ * The dataset is written with Parquet's own {@link LocalOutputFile}, so
+ * neither path is loaded before the first measured call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx4g" })
+public class LocalParquetIoBenchmark {
+
+    public enum LocalIo {
+        HADOOP, NIO
+    }
+
+    @Param({ "100000", "1000000" })
+    public int rows;
+
+    @Param({ "HADOOP", "NIO" })
+    public LocalIo io;
+
+    private Path file;
+
+    private Path outputFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = MovieDatasets.tempFile(".parquet");
+        outputFile = MovieDatasets.tempFile(".parquet");
+        MovieParquet.write(new LocalOutputFile(file), MovieDatasets.movies(rows), ParquetWriteOptions.DEFAULTS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        MovieDatasets.delete(file);
+        MovieDatasets.delete(outputFile);
+    }
+
+    /**
+     * Opening a file and reading its footer as the first call of the JVM,
+     * class loading and Hadoop initialization included.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(value = 10, jvmArgsAppend = { "-Xms2g", "-Xmx4g" })
+    public long coldFooter() throws IOException {
+        return footer();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long warmFooter() throws IOException {
+        return footer();
+    }
+
+    @Benchmark
+    public void readMovies(Blackhole bh) throws IOException {
+        final var conf = conf();
+        try (var movies = MovieParquet.read(inputFile(file, conf), conf)) {
+            movies.forEach(bh::consume);
+        }
+    }
+
+    @Benchmark
+    public int writeMovies() throws IOException {
+        return MovieParquet.write(outputFile(outputFile), MovieDatasets.movies(rows), ParquetWriteOptions.DEFAULTS);
+    }
+
+    private long footer() throws IOException {
+        try (var reader = ParquetFileReader.open(inputFile(file, conf()), readOptions())) {
+            return reader.getRecordCount();
+        }
+    }
+
+    /**
+     * As {@code MovieService} did before, and as it does now.
+     */
+    private Configuration conf() {
+        return io == LocalIo.HADOOP ? new Configuration() : new Configuration(false);
+    }
+
+    /**
+     * The default options parse Hadoop's default resources again on every open.
+     */
+    private ParquetReadOptions readOptions() {
+        return io == LocalIo.HADOOP
+            ? ParquetReadOptions.builder().build()
+            : ParquetReadOptions.builder(new PlainParquetConfiguration()).build();
+    }
+
+    private InputFile inputFile(Path path, Configuration conf) throws IOException {
+        return io == LocalIo.HADOOP ? MovieDatasets.inputFile(path, conf) : MovieDatasets.nioInputFile(path);
+    }
+
+    private OutputFile outputFile(Path path) throws IOException {
+        return io == LocalIo.HADOOP ? MovieDatasets.outputFile(path) : MovieDatasets.nioOutputFile(path);
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.raonigabriel.poc_parquet.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.hadoop.util.HadoopOutputFile;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.OutputFile;
+
+import com.github.raonigabriel.poc_parquet.local.NioInputFile;
+import com.github.raonigabriel.poc_parquet.local.NioOutputFile;
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+/**
+ * Deterministic synthetic movies. Rows are generated lazily, so even the
+ * 10M rows datasets never sit in memory as a whole.
+ */
+final class MovieDatasets {
+
+    private static final long SEED = 42L;
+    private static final int DISTINCT_NAMES = 50_000;
+    private static final String[] WORDS = { "The", "Last", "Night", "Return", "Dark", "City", "Lost", "Star",
+        "King", "Road", "Blue", "Storm", "Silent", "River", "Iron", "Dream" };
+    private static final long FIRST_RELEASE = LocalDate.of(1950, 1, 1).toEpochDay();
+    private static final long LAST_RELEASE = LocalDate.of(2025, 12, 31).toEpochDay();
+
+    private MovieDatasets() {
+    }
+
+    static Stream<MovieEntity> movies(int rows) {
+        final var random = new SplittableRandom(SEED);
+        return IntStream.range(0, rows).mapToObj(i -> movie(i + 1L, random));
+    }
+
+    static MovieEntity movie(long id, SplittableRandom random) {
+        final var movie = new MovieEntity();
+        movie.setId(id);
+        movie.setName(name(random.nextInt(DISTINCT_NAMES)));
+        movie.setRating(random.nextInt(10, 101) / 10f);
+        movie.setReleaseDate(LocalDate.ofEpochDay(random.nextLong(FIRST_RELEASE, LAST_RELEASE + 1)));
+        return movie;
+    }
+
+    static Path tempFile(String suffix) throws IOException {
+        final var file = Files.createTempFile("movies-bench-", suffix);
+        Files.delete(file);
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    static OutputFile outputFile(Path file) throws IOException {
+        return HadoopOutputFile.fromPath(new org.apache.hadoop.fs.Path(file.toUri()), new Configuration());
+    }
+
+    static InputFile inputFile(Path file, Configuration conf) throws IOException {
+        return HadoopInputFile.fromPath(new org.apache.hadoop.fs.Path(file.toUri()), conf);
+    }
+
+    static OutputFile nioOutputFile(Path file) {
+        return new NioOutputFile(file);
+    }
+
+    static InputFile nioInputFile(Path file) {
+        return new NioInputFile(file);
+    }
+
+    static void delete(Path file) throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(file.resolveSibling("." + file.getFileName() + ".crc"));
+    }
+
+    private static String name(int seed) {
+        return WORDS[seed & 0xF] + " " + WORDS[(seed >>> 4) & 0xF] + " " + (seed >>> 8);
+    }
+}
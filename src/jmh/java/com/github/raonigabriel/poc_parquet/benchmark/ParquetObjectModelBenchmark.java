@@ -0,0 +1,100 @@
+package com.github.raonigabriel.poc_parquet.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.raonigabriel.poc_parquet.parquet.AvroMovieParquet;
+import com.github.raonigabriel.poc_parquet.parquet.MovieParquet;
+import com.github.raonigabriel.poc_parquet.parquet.ParquetWriteOptions;
+
+/**
+ * Avro {@code GenericRecord} path against {@code MovieWriteSupport} and
+ * {@code MovieReadSupport}. Run with {@code -prof gc} to compare the
+ * allocation rate ({@code gc.alloc.rate.norm}) next to the throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx4g" })
+public class ParquetObjectModelBenchmark {
+
+    @Param({ "100000", "1000000" })
+    public int rows;
+
+    private Path avroFile;
+
+    private Path nativeFile;
+
+    private Path output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        avroFile = MovieDatasets.tempFile(".parquet");
+        nativeFile = MovieDatasets.tempFile(".parquet");
+        output = MovieDatasets.tempFile(".parquet");
+        AvroMovieParquet.write(MovieDatasets.outputFile(avroFile), MovieDatasets.movies(rows), ParquetWriteOptions.DEFAULTS);
+        MovieParquet.write(MovieDatasets.outputFile(nativeFile), MovieDatasets.movies(rows), ParquetWriteOptions.DEFAULTS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        MovieDatasets.delete(avroFile);
+        MovieDatasets.delete(nativeFile);
+        MovieDatasets.delete(output);
+    }
+
+    @Benchmark
+    public int writeAvro() throws IOException {
+        return AvroMovieParquet.write(MovieDatasets.outputFile(output), MovieDatasets.movies(rows),
+            ParquetWriteOptions.DEFAULTS);
+    }
+
+    @Benchmark
+    public int writeNative() throws IOException {
+        return MovieParquet.write(MovieDatasets.outputFile(output), MovieDatasets.movies(rows),
+            ParquetWriteOptions.DEFAULTS);
+    }
+
+    @Benchmark
+    public void readAvro(Blackhole bh) throws IOException {
+        final var conf = new Configuration();
+        try (var movies = AvroMovieParquet.read(MovieDatasets.inputFile(avroFile, conf), conf)) {
+            movies.forEach(bh::consume);
+        }
+    }
+
+    @Benchmark
+    public void readNative(Blackhole bh) throws IOException {
+        final var conf = new Configuration();
+        try (var movies = MovieParquet.read(MovieDatasets.inputFile(nativeFile, conf), conf)) {
+            movies.forEach(bh::consume);
+        }
+    }
+
+    @Benchmark
+    public void readNativeReused(Blackhole bh) throws IOException {
+        final var conf = new Configuration();
+        try (var movies = MovieParquet.read(MovieDatasets.inputFile(nativeFile, conf), conf, true)) {
+            movies.forEach(bh::consume);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.raonigabriel.poc_parquet.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.raonigabriel.poc_parquet.parquet.MovieParquet;
+import com.github.raonigabriel.poc_parquet.parquet.MovieReadSupport;
+import com.github.raonigabriel.poc_parquet.parquet.ParquetWriteOptions;
+import com.github.raonigabriel.poc_parquet.service.MovieService;
+
+/**
+ * Cost of {@code MovieService.readMoviesFromParquet}, reading every column or
+ * only the rating.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx4g" })
+public class ParquetReadBenchmark {
+
+    @Param({ "10000", "100000", "1000000", "10000000" })
+    public int rows;
+
+    @Param({ "UNCOMPRESSED", "SNAPPY", "GZIP" })
+    public CompressionCodecName codec;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = MovieDatasets.tempFile(".parquet");
+        MovieParquet.write(MovieDatasets.outputFile(file), MovieDatasets.movies(rows),
+            ParquetWriteOptions.DEFAULTS.withCodec(codec));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        MovieDatasets.delete(file);
+    }
+
+    @Benchmark
+    public void readMoviesFromParquet(Blackhole bh) throws IOException {
+        final var conf = new Configuration();
+        try (var movies = MovieParquet.read(MovieDatasets.inputFile(file, conf), conf)) {
+            movies.forEach(bh::consume);
+        }
+    }
+
+    @Benchmark
+    public void readRatingsFromParquet(Blackhole bh) throws IOException {
+        final var conf = new Configuration();
+        MovieReadSupport.setRequestedColumns(conf, MovieService.RATING_FIELD);
+        try (var movies = MovieParquet.read(MovieDatasets.inputFile(file, conf), conf)) {
+            movies.forEach(bh::consume);
+        }
+    }
+}
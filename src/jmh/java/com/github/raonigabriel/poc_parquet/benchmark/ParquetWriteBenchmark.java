@@ -0,0 +1,66 @@
+package com.github.raonigabriel.poc_parquet.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.raonigabriel.poc_parquet.parquet.MovieParquet;
+import com.github.raonigabriel.poc_parquet.parquet.ParquetWriteOptions;
+
+/**
+ * Cost of {@code MovieService.writeMoviesToParquet} per codec and dictionary
+ * setting. Subtract {@link DatasetBenchmark} to leave out the row generation.
+ * ZSTD is not listed because zstd-jni is excluded from the build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx4g" })
+public class ParquetWriteBenchmark {
+
+    @Param({ "10000", "100000", "1000000", "10000000" })
+    public int rows;
+
+    @Param({ "UNCOMPRESSED", "SNAPPY", "GZIP", "LZ4_RAW" })
+    public CompressionCodecName codec;
+
+    @Param({ "true", "false" })
+    public boolean dictionary;
+
+    private ParquetWriteOptions options;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        options = ParquetWriteOptions.DEFAULTS.withCodec(codec).withDictionaryEncoding(dictionary);
+        file = MovieDatasets.tempFile(".parquet");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        MovieDatasets.delete(file);
+    }
+
+    @Benchmark
+    public int writeMoviesToParquet() throws IOException {
+        return MovieParquet.write(MovieDatasets.outputFile(file), MovieDatasets.movies(rows), options);
+    }
+}
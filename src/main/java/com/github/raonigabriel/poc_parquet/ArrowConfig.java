@@ -0,0 +1,26 @@
+package com.github.raonigabriel.poc_parquet;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Configuration
+public class ArrowConfig {
+
+	/**
+	 * Off-heap memory for Arrow batches. Readers and writers take child
+	 * allocators of it, so a leak is reported when they are closed, and the
+	 * allocator itself is closed on shutdown.
+	 */
+	@Bean
+	BufferAllocator arrowAllocator(@Value("${arrow.allocator.limit:1GB}") DataSize limit) {
+		log.info("Creating Arrow allocator limited to {}", limit);
+		return new RootAllocator(limit.toBytes());
+	}
+}
@@ -10,6 +10,11 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 
+import com.github.raonigabriel.poc_parquet.s3.CachingS3Client;
+import com.github.raonigabriel.poc_parquet.s3.S3MetricPublisher;
+import com.github.raonigabriel.poc_parquet.s3.S3ObjectCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.auth.credentials.AwsCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
@@ -27,7 +32,7 @@ public class AwsConfig {
 
 	@Bean
 	@ConditionalOnMissingBean
-	S3Client s3Client() {
+	S3Client s3Client(MeterRegistry meterRegistry, S3ObjectCache objectCache) {
 		log.info("Creating S3 client");
 
 		final var credentials = new AwsCredentials() {
@@ -43,13 +48,15 @@ public class AwsConfig {
 			};
 
 		try {
-			return S3Client.builder()
+			final var s3Client = S3Client.builder()
 				.credentialsProvider(StaticCredentialsProvider.create(credentials))
 				.endpointOverride(new URI(s3Endpoint)) 
 				.region(Region.US_EAST_1)
 				.forcePathStyle(true)
 			    .httpClientBuilder(ApacheHttpClient.builder())
+				.overrideConfiguration(c -> c.addMetricPublisher(new S3MetricPublisher(meterRegistry)))
 			    .build();
+			return objectCache.isEnabled() ? new CachingS3Client(s3Client, objectCache) : s3Client;
 		} catch (URISyntaxException ex) {
 			throw new BeanInitializationException("Failed to create S3 client", ex);
 		}
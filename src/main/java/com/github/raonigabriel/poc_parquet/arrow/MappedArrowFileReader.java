@@ -0,0 +1,279 @@
+package com.github.raonigabriel.poc_parquet.arrow;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.apache.arrow.flatbuf.Footer;
+import org.apache.arrow.flatbuf.Message;
+import org.apache.arrow.flatbuf.MessageHeader;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.OwnershipTransferResult;
+import org.apache.arrow.memory.ReferenceManager;
+import org.apache.arrow.memory.util.MemoryUtil;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.ipc.message.ArrowBlock;
+import org.apache.arrow.vector.ipc.message.ArrowFooter;
+import org.apache.arrow.vector.ipc.message.MessageSerializer;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+/**
+ * Reads an Arrow IPC file without copying: the file is memory mapped and the
+ * vectors of each batch point straight into the mapping, so loading a batch
+ * costs no allocation nor read, only page faults the first time the pages are
+ * touched. {@code ArrowFileReader} instead reads every batch into buffers of
+ * the allocator.
+ * <p>
+ * The mapping is read-only, so the file only needs to be readable and the
+ * loaded vectors must not be written to: writing to read-only memory crashes
+ * the JVM rather than throwing. Callers that need to change the values copy
+ * the batch first, by transferring it to an allocator, e.g. with
+ * {@code VectorSchemaRoot#slice}, which copies the buffers into buffers the
+ * allocator owns, as {@code ArrowFileReader} would have at load time.
+ * The mapped buffers are not accounted to the allocator and stay mapped as
+ * long as they are reachable, unmapped by the garbage collector as any
+ * {@link java.nio.MappedByteBuffer}. Files with dictionaries or compressed
+ * buffers are not supported.
+ */
+final class MappedArrowFileReader extends ArrowReader {
+
+    private static final byte[] MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+
+    // magic, padded to 8 bytes, then the first message
+    private static final int HEADER_LENGTH = 8;
+
+    // footer length, then magic
+    private static final int TRAILER_LENGTH = Integer.BYTES + MAGIC.length;
+
+    private static final int CONTINUATION = 0xFFFFFFFF;
+
+    private final Path file;
+
+    private final FileChannel channel;
+
+    private final ArrowFooter footer;
+
+    // the whole file when small enough for a single mapping, each block is
+    // mapped on its own otherwise
+    private final ByteBuffer mapping;
+
+    private int nextBlock;
+
+    private long bytesRead;
+
+    MappedArrowFileReader(Path file, BufferAllocator allocator) throws IOException {
+        super(allocator);
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            final long size = channel.size();
+            if (size < HEADER_LENGTH + TRAILER_LENGTH) {
+                throw new IOException("Not an Arrow file, too short: " + file);
+            }
+            this.mapping = size <= Integer.MAX_VALUE ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size) : null;
+            this.footer = readFooter(size);
+            if (!footer.getDictionaries().isEmpty()) {
+                throw new IOException("Dictionary encoded Arrow files are not supported: " + file);
+            }
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    private ArrowFooter readFooter(long size) throws IOException {
+        final var head = region(0, MAGIC.length);
+        final var trailer = region(size - TRAILER_LENGTH, TRAILER_LENGTH);
+        if (!Arrays.equals(bytes(head, 0, MAGIC.length), MAGIC)
+            || !Arrays.equals(bytes(trailer, Integer.BYTES, MAGIC.length), MAGIC)) {
+            throw new IOException("Not an Arrow file, no magic: " + file);
+        }
+        final int footerLength = trailer.getInt(0);
+        final long footerOffset = size - TRAILER_LENGTH - footerLength;
+        if (footerLength <= 0 || footerOffset < HEADER_LENGTH) {
+            throw new IOException("Invalid Arrow footer length " + footerLength + " in " + file);
+        }
+        bytesRead += footerLength + TRAILER_LENGTH;
+        return new ArrowFooter(Footer.getRootAsFooter(region(footerOffset, footerLength)));
+    }
+
+    @Override
+    protected Schema readSchema() {
+        return footer.getSchema();
+    }
+
+    @Override
+    public boolean loadNextBatch() throws IOException {
+        prepareLoadNextBatch();
+        if (nextBlock == footer.getRecordBatches().size()) {
+            return false;
+        }
+        final ArrowBlock block = footer.getRecordBatches().get(nextBlock++);
+        final var buffer = region(block.getOffset(), block.getMetadataLength() + block.getBodyLength());
+
+        // metadata is the flatbuffer message, after its length, itself after
+        // a continuation marker since format 0.15
+        int prefix = Integer.BYTES;
+        int messageLength = buffer.getInt(0);
+        if (messageLength == CONTINUATION) {
+            prefix += Integer.BYTES;
+            messageLength = buffer.getInt(Integer.BYTES);
+        }
+        if (messageLength <= 0 || prefix + messageLength > block.getMetadataLength()) {
+            throw new IOException("Invalid Arrow message length " + messageLength + " at offset "
+                + block.getOffset() + " of " + file);
+        }
+        final var message = Message.getRootAsMessage(buffer.slice(prefix, messageLength)
+            .order(ByteOrder.LITTLE_ENDIAN));
+        if (message.headerType() != MessageHeader.RecordBatch) {
+            throw new IOException("Expected a record batch at offset " + block.getOffset() + " of " + file
+                + ", got message type " + message.headerType());
+        }
+
+        final var body = new MappedReference(buffer, allocator).wrap(block.getMetadataLength(),
+            block.getBodyLength());
+        loadRecordBatch(MessageSerializer.deserializeRecordBatch(message, body));
+        bytesRead += block.getMetadataLength() + block.getBodyLength();
+        return true;
+    }
+
+    @Override
+    public long bytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    protected void closeReadSource() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer region(long offset, long length) throws IOException {
+        final ByteBuffer region = mapping == null
+            ? channel.map(FileChannel.MapMode.READ_ONLY, offset, length)
+            // a slice keeps the whole mapping alive
+            : mapping.slice(Math.toIntExact(offset), Math.toIntExact(length));
+        return region.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer, int index, int length) {
+        final var bytes = new byte[length];
+        buffer.get(index, bytes);
+        return bytes;
+    }
+
+    /**
+     * Hands out {@link ArrowBuf}s over a mapped buffer, keeping it reachable.
+     * There is nothing to free, so reference counting is a no-op. Retaining a
+     * buffer for the reader's own vectors keeps it in the mapping; handing it
+     * to another allocator, or transferring it, copies it into a buffer of
+     * that allocator.
+     */
+    private static final class MappedReference implements ReferenceManager {
+
+        private final ByteBuffer mapped;
+
+        private final BufferAllocator allocator;
+
+        private final long address;
+
+        MappedReference(ByteBuffer mapped, BufferAllocator allocator) {
+            this.mapped = mapped;
+            this.allocator = allocator;
+            this.address = MemoryUtil.getByteBufferAddress(mapped);
+        }
+
+        ArrowBuf wrap(long offset, long length) {
+            if (offset < 0 || offset + length > mapped.capacity()) {
+                throw new IndexOutOfBoundsException("Range " + offset + "+" + length + " out of mapping of "
+                    + mapped.capacity() + " bytes");
+            }
+            return new ArrowBuf(this, null, length, address + offset);
+        }
+
+        @Override
+        public int getRefCount() {
+            return 1;
+        }
+
+        @Override
+        public boolean release() {
+            return false;
+        }
+
+        @Override
+        public boolean release(int decrement) {
+            return false;
+        }
+
+        @Override
+        public void retain() {
+        }
+
+        @Override
+        public void retain(int increment) {
+        }
+
+        @Override
+        public ArrowBuf retain(ArrowBuf srcBuffer, BufferAllocator targetAllocator) {
+            if (targetAllocator != allocator) {
+                return copy(srcBuffer, targetAllocator);
+            }
+            // loading a batch retains its buffers this way
+            final var retained = deriveBuffer(srcBuffer, 0, srcBuffer.capacity());
+            retained.readerIndex(srcBuffer.readerIndex());
+            retained.writerIndex(srcBuffer.writerIndex());
+            return retained;
+        }
+
+        @Override
+        public ArrowBuf deriveBuffer(ArrowBuf sourceBuffer, long index, long length) {
+            return wrap(sourceBuffer.memoryAddress() - address + index, length);
+        }
+
+        @Override
+        public OwnershipTransferResult transferOwnership(ArrowBuf sourceBuffer, BufferAllocator targetAllocator) {
+            final var transferred = copy(sourceBuffer, targetAllocator);
+            return new OwnershipTransferResult() {
+
+                @Override
+                public boolean getAllocationFit() {
+                    return true;
+                }
+
+                @Override
+                public ArrowBuf getTransferredBuffer() {
+                    return transferred;
+                }
+            };
+        }
+
+        private static ArrowBuf copy(ArrowBuf source, BufferAllocator targetAllocator) {
+            final var copy = targetAllocator.buffer(source.capacity());
+            copy.setBytes(0, source, 0, source.capacity());
+            copy.readerIndex(source.readerIndex());
+            copy.writerIndex(source.writerIndex());
+            return copy;
+        }
+
+        @Override
+        public BufferAllocator getAllocator() {
+            return allocator;
+        }
+
+        @Override
+        public long getSize() {
+            return mapped.capacity();
+        }
+
+        @Override
+        public long getAccountedSize() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.raonigabriel.poc_parquet.arrow;
+
+import static com.github.raonigabriel.poc_parquet.service.MovieService.ID_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.NAME_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.RATING_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.RELEASE_DATE_FIELD;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+/**
+ * Movies as Apache Arrow record batches, in off-heap vectors: id as BIGINT,
+ * name as UTF-8, rating as FLOAT4 and release date as days since 1970-01-01,
+ * the same types as the Parquet and Iceberg schemas. All of them are
+ * nullable, as movies from the database or CSV files may lack any of them.
+ * <p>
+ * Readers reuse one {@link VectorSchemaRoot} for every batch, so a batch is
+ * only valid until the next one is loaded. Consumers keeping one move its
+ * buffers out first, e.g. with {@code VectorSchemaRoot#slice}.
+ */
+public final class MovieArrow {
+
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    public static final Schema SCHEMA = new Schema(List.of(
+        new Field(ID_FIELD, FieldType.nullable(new ArrowType.Int(64, true)), null),
+        new Field(NAME_FIELD, FieldType.nullable(ArrowType.Utf8.INSTANCE), null),
+        new Field(RATING_FIELD, FieldType.nullable(new ArrowType.FloatingPoint(FloatingPointPrecision.SINGLE)), null),
+        new Field(RELEASE_DATE_FIELD, FieldType.nullable(new ArrowType.Date(DateUnit.DAY)), null)));
+
+    private MovieArrow() {
+    }
+
+    /**
+     * An empty root with the movie schema, to be closed by the caller.
+     */
+    public static VectorSchemaRoot createRoot(BufferAllocator allocator) {
+        return VectorSchemaRoot.create(SCHEMA, allocator);
+    }
+
+    /**
+     * Reads the Arrow IPC stream format, copying every batch into the allocator.
+     */
+    public static ArrowReader openStream(InputStream in, BufferAllocator allocator) {
+        return new ArrowStreamReader(in, allocator);
+    }
+
+    /**
+     * Reads an Arrow IPC file, copying every batch into the allocator.
+     */
+    public static ArrowReader openFile(Path file, BufferAllocator allocator) {
+        try {
+            return new ArrowFileReader(FileChannel.open(file, StandardOpenOption.READ), allocator);
+        } catch (IOException ex) {
+            throw new RuntimeException("Error opening Arrow file " + file, ex);
+        }
+    }
+
+    /**
+     * Reads an Arrow IPC file through memory mappings: the vectors point into
+     * the page cache and nothing is copied. The vectors are read-only, copy a
+     * batch with {@code VectorSchemaRoot#slice} before changing its values.
+     * See {@link MappedArrowFileReader}.
+     */
+    public static ArrowReader mapFile(Path file, BufferAllocator allocator) {
+        try {
+            return new MappedArrowFileReader(file, allocator);
+        } catch (IOException ex) {
+            throw new RuntimeException("Error opening Arrow file " + file, ex);
+        }
+    }
+
+    /**
+     * Hands every row of every batch to the consumer as a movie, closing the
+     * reader when done. Returns the number of rows.
+     */
+    public static long read(ArrowReader reader, Consumer<MovieEntity> consumer) {
+        long count = 0;
+        try (reader) {
+            final var root = reader.getVectorSchemaRoot();
+            if (!SCHEMA.equals(root.getSchema())) {
+                throw new IllegalArgumentException("Not a movie Arrow schema: " + root.getSchema());
+            }
+            while (reader.loadNextBatch()) {
+                forEach(root, consumer);
+                count += root.getRowCount();
+            }
+            return count;
+        } catch (IOException ex) {
+            throw new RuntimeException("Error reading Arrow batches after " + count + " rows", ex);
+        }
+    }
+
+    public static void forEach(VectorSchemaRoot root, Consumer<MovieEntity> consumer) {
+        for (int row = 0; row < root.getRowCount(); row++) {
+            consumer.accept(toMovie(root, row));
+        }
+    }
+
+    /**
+     * Materializes one row of a batch. Null values are left null.
+     */
+    public static MovieEntity toMovie(VectorSchemaRoot root, int row) {
+        final var ids = (BigIntVector) root.getVector(ID_FIELD);
+        final var names = (VarCharVector) root.getVector(NAME_FIELD);
+        final var ratings = (Float4Vector) root.getVector(RATING_FIELD);
+        final var releaseDays = (DateDayVector) root.getVector(RELEASE_DATE_FIELD);
+        final var movie = new MovieEntity();
+        if (!ids.isNull(row)) {
+            movie.setId(ids.get(row));
+        }
+        if (!names.isNull(row)) {
+            movie.setName(names.getObject(row).toString());
+        }
+        if (!ratings.isNull(row)) {
+            movie.setRating(ratings.get(row));
+        }
+        if (!releaseDays.isNull(row)) {
+            movie.setReleaseDate(LocalDate.ofEpochDay(releaseDays.get(row)));
+        }
+        return movie;
+    }
+}
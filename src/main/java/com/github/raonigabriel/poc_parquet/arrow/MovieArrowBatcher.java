@@ -0,0 +1,208 @@
+package com.github.raonigabriel.poc_parquet.arrow;
+
+import static com.github.raonigabriel.poc_parquet.service.MovieService.ID_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.NAME_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.RATING_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.RELEASE_DATE_FIELD;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+
+import com.github.raonigabriel.poc_parquet.columnar.MovieBatch;
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+/**
+ * Fills a {@link VectorSchemaRoot} with movies, handing it to a consumer every
+ * {@code batchSize} rows and then refilling it in place. Movies can come one by
+ * one, from the database or Iceberg, or as {@link MovieBatch}es read from
+ * Parquet, whose columns are copied without creating objects per row.
+ * <p>
+ * The root must have the {@link MovieArrow#SCHEMA} and belongs to the caller.
+ * Batches are only valid during the call to the consumer.
+ */
+public final class MovieArrowBatcher implements Consumer<MovieEntity> {
+
+    private final VectorSchemaRoot root;
+
+    private final int batchSize;
+
+    private final Consumer<VectorSchemaRoot> batches;
+
+    private final BigIntVector ids;
+
+    private final VarCharVector names;
+
+    private final Float4Vector ratings;
+
+    private final DateDayVector releaseDays;
+
+    private int size;
+
+    private long count;
+
+    public MovieArrowBatcher(VectorSchemaRoot root, int batchSize, Consumer<VectorSchemaRoot> batches) {
+        if (!MovieArrow.SCHEMA.equals(root.getSchema())) {
+            throw new IllegalArgumentException("Not a movie Arrow schema: " + root.getSchema());
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive, got " + batchSize);
+        }
+        this.root = root;
+        this.batchSize = batchSize;
+        this.batches = batches;
+        this.ids = (BigIntVector) root.getVector(ID_FIELD);
+        this.names = (VarCharVector) root.getVector(NAME_FIELD);
+        this.ratings = (Float4Vector) root.getVector(RATING_FIELD);
+        this.releaseDays = (DateDayVector) root.getVector(RELEASE_DATE_FIELD);
+        root.setRowCount(0);
+        for (var vector : root.getFieldVectors()) {
+            vector.setInitialCapacity(batchSize);
+            vector.allocateNew();
+        }
+    }
+
+    @Override
+    public void accept(MovieEntity movie) {
+        if (movie.getId() == null) {
+            ids.setNull(size);
+        } else {
+            ids.set(size, movie.getId());
+        }
+        if (movie.getName() == null) {
+            names.setNull(size);
+        } else {
+            names.setSafe(size, movie.getName().getBytes(StandardCharsets.UTF_8));
+        }
+        if (movie.getRating() == null) {
+            ratings.setNull(size);
+        } else {
+            ratings.set(size, movie.getRating());
+        }
+        if (movie.getReleaseDate() == null) {
+            releaseDays.setNull(size);
+        } else {
+            releaseDays.set(size, (int) movie.getReleaseDate().toEpochDay());
+        }
+        if (++size == batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Copies the rows of a batch column by column. Columns the batch was not
+     * read with are left null.
+     */
+    public void add(MovieBatch batch) {
+        int offset = 0;
+        while (offset < batch.size()) {
+            final int rows = Math.min(batch.size() - offset, batchSize - size);
+            copyIds(batch, offset, rows);
+            copyNames(batch, offset, rows);
+            copyRatings(batch, offset, rows);
+            copyReleaseDays(batch, offset, rows);
+            offset += rows;
+            size += rows;
+            if (size == batchSize) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Hands over the last, partial batch if any. Returns the number of rows
+     * handed over since this batcher was created.
+     */
+    public long finish() {
+        if (size > 0) {
+            flush();
+        }
+        return count;
+    }
+
+    public long count() {
+        return count + size;
+    }
+
+    private void flush() {
+        root.setRowCount(size);
+        batches.accept(root);
+        count += size;
+        size = 0;
+        for (var vector : root.getFieldVectors()) {
+            reset(vector);
+        }
+    }
+
+    private static void reset(FieldVector vector) {
+        // the consumer may have transferred the buffers away
+        if (vector.getValueCapacity() == 0) {
+            vector.allocateNew();
+        } else {
+            vector.reset();
+        }
+    }
+
+    private void copyIds(MovieBatch batch, int offset, int rows) {
+        if (!batch.hasColumn(ID_FIELD)) {
+            setNulls(ids, rows);
+            return;
+        }
+        final long[] values = batch.ids();
+        final boolean[] nulls = batch.idNulls();
+        for (int i = 0; i < rows; i++) {
+            if (nulls[offset + i]) {
+                ids.setNull(size + i);
+            } else {
+                ids.set(size + i, values[offset + i]);
+            }
+        }
+    }
+
+    private void copyNames(MovieBatch batch, int offset, int rows) {
+        if (!batch.hasColumn(NAME_FIELD)) {
+            setNulls(names, rows);
+            return;
+        }
+        final int[] codes = batch.nameCodes();
+        final var dictionary = batch.names();
+        for (int i = 0; i < rows; i++) {
+            final var name = dictionary.decodeToBinary(codes[offset + i]).toByteBuffer();
+            names.setSafe(size + i, name, name.position(), name.remaining());
+        }
+    }
+
+    private void copyRatings(MovieBatch batch, int offset, int rows) {
+        if (!batch.hasColumn(RATING_FIELD)) {
+            setNulls(ratings, rows);
+            return;
+        }
+        final float[] values = batch.ratings();
+        for (int i = 0; i < rows; i++) {
+            ratings.set(size + i, values[offset + i]);
+        }
+    }
+
+    private void copyReleaseDays(MovieBatch batch, int offset, int rows) {
+        if (!batch.hasColumn(RELEASE_DATE_FIELD)) {
+            setNulls(releaseDays, rows);
+            return;
+        }
+        final int[] values = batch.releaseDays();
+        for (int i = 0; i < rows; i++) {
+            releaseDays.set(size + i, values[offset + i]);
+        }
+    }
+
+    private void setNulls(FieldVector vector, int rows) {
+        for (int i = 0; i < rows; i++) {
+            vector.setNull(size + i);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.raonigabriel.poc_parquet.arrow;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.ArrowWriter;
+
+import com.github.raonigabriel.poc_parquet.columnar.MovieBatch;
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+/**
+ * Writes movies in the Arrow IPC stream or file format, one record batch every
+ * {@link MovieArrow#DEFAULT_BATCH_SIZE} rows, uncompressed so readers can use
+ * the buffers as they are. Only one batch is held in memory, off-heap.
+ * Closing writes the last batch and the end of stream marker or file footer,
+ * unless a write failed: the output is then closed without them, so it cannot
+ * be taken for a complete one.
+ */
+public final class MovieArrowWriter implements Closeable {
+
+    private final VectorSchemaRoot root;
+
+    private final ArrowWriter writer;
+
+    private final MovieArrowBatcher batcher;
+
+    // the stream or channel under the writer, closing the writer would end it first
+    private final Closeable out;
+
+    private boolean failed;
+
+    private MovieArrowWriter(VectorSchemaRoot root, ArrowWriter writer, Closeable out) {
+        this.root = root;
+        this.writer = writer;
+        this.out = out;
+        this.batcher = new MovieArrowBatcher(root, MovieArrow.DEFAULT_BATCH_SIZE, batch -> {
+            try {
+                writer.writeBatch();
+            } catch (IOException ex) {
+                throw new RuntimeException("Error writing Arrow batch", ex);
+            }
+        });
+    }
+
+    /**
+     * Writes the stream format to {@code out}, closing it when done.
+     */
+    public static MovieArrowWriter stream(OutputStream out, BufferAllocator allocator) {
+        final var root = MovieArrow.createRoot(allocator);
+        return start(root, new ArrowStreamWriter(root, new DictionaryProvider.MapDictionaryProvider(), out), out);
+    }
+
+    /**
+     * Writes the file format, which readers can map, replacing the file if any.
+     */
+    public static MovieArrowWriter file(Path file, BufferAllocator allocator) {
+        final var root = MovieArrow.createRoot(allocator);
+        try {
+            final var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+            return start(root, new ArrowFileWriter(root, new DictionaryProvider.MapDictionaryProvider(), channel),
+                channel);
+        } catch (IOException ex) {
+            root.close();
+            throw new RuntimeException("Error creating Arrow file " + file, ex);
+        }
+    }
+
+    private static MovieArrowWriter start(VectorSchemaRoot root, ArrowWriter writer, Closeable out) {
+        try {
+            writer.start();
+            return new MovieArrowWriter(root, writer, out);
+        } catch (IOException | RuntimeException ex) {
+            writer.close();
+            root.close();
+            throw new RuntimeException("Error starting Arrow writer", ex);
+        }
+    }
+
+    /**
+     * Writes all the movies of the stream, closing it. Returns their count.
+     */
+    public long write(Stream<MovieEntity> movies) {
+        final long before = batcher.count();
+        try (movies) {
+            movies.forEachOrdered(batcher);
+        } catch (RuntimeException | Error ex) {
+            failed = true;
+            throw ex;
+        }
+        return batcher.count() - before;
+    }
+
+    public void write(MovieBatch batch) {
+        try {
+            batcher.add(batch);
+        } catch (RuntimeException | Error ex) {
+            failed = true;
+            throw ex;
+        }
+    }
+
+    /**
+     * Rows written so far, including those of the batch not written yet.
+     */
+    public long count() {
+        return batcher.count();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (failed) {
+            try (out) {
+                root.close();
+            }
+            return;
+        }
+        try (root; writer) {
+            batcher.finish();
+            writer.end();
+        }
+    }
+}
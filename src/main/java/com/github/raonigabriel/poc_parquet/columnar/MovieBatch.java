@@ -0,0 +1,106 @@
+package com.github.raonigabriel.poc_parquet.columnar;
+
+import static com.github.raonigabriel.poc_parquet.service.MovieService.ID_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.NAME_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.RATING_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.RELEASE_DATE_FIELD;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+/**
+ * Column oriented batch of movies: primitive arrays instead of one object per
+ * row, names encoded through the {@link NameDictionary} of the row group the
+ * rows come from. Columns that were not read are left zeroed. A batch is
+ * refilled in place by its reader, so codes are only valid until then.
+ */
+public final class MovieBatch {
+
+    final long[] ids;
+
+    final boolean[] idNulls;
+
+    final int[] nameCodes;
+
+    final float[] ratings;
+
+    final int[] releaseDays;
+
+    private final NameDictionary names;
+
+    private final Set<String> columns;
+
+    int size;
+
+    MovieBatch(int capacity, NameDictionary names, Set<String> columns) {
+        this.ids = new long[capacity];
+        this.idNulls = new boolean[capacity];
+        this.nameCodes = new int[capacity];
+        this.ratings = new float[capacity];
+        this.releaseDays = new int[capacity];
+        this.names = names;
+        this.columns = columns;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return ids.length;
+    }
+
+    public long[] ids() {
+        return ids;
+    }
+
+    public boolean[] idNulls() {
+        return idNulls;
+    }
+
+    public int[] nameCodes() {
+        return nameCodes;
+    }
+
+    public float[] ratings() {
+        return ratings;
+    }
+
+    /**
+     * Release dates as days since 1970-01-01.
+     */
+    public int[] releaseDays() {
+        return releaseDays;
+    }
+
+    public NameDictionary names() {
+        return names;
+    }
+
+    public boolean hasColumn(String column) {
+        return columns.contains(column);
+    }
+
+    /**
+     * Materializes one row, e.g. for the final rows of a query. Columns that
+     * were not read are left null.
+     */
+    public MovieEntity toMovie(int row) {
+        final var movie = new MovieEntity();
+        if (columns.contains(ID_FIELD) && !idNulls[row]) {
+            movie.setId(ids[row]);
+        }
+        if (columns.contains(NAME_FIELD)) {
+            movie.setName(names.decode(nameCodes[row]));
+        }
+        if (columns.contains(RATING_FIELD)) {
+            movie.setRating(ratings[row]);
+        }
+        if (columns.contains(RELEASE_DATE_FIELD)) {
+            movie.setReleaseDate(LocalDate.ofEpochDay(releaseDays[row]));
+        }
+        return movie;
+    }
+}
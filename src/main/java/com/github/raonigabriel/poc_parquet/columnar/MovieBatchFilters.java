@@ -0,0 +1,65 @@
+package com.github.raonigabriel.poc_parquet.columnar;
+
+import java.time.LocalDate;
+
+/**
+ * Filters narrowing a {@link Selection} in place with tight primitive loops.
+ * Start from {@link Selection#selectAll(MovieBatch)} and chain as needed.
+ */
+public final class MovieBatchFilters {
+
+    private MovieBatchFilters() {
+    }
+
+    /**
+     * Keeps the rows rated within {@code [min, max]}.
+     */
+    public static Selection ratingBetween(MovieBatch batch, Selection selection, float min, float max) {
+        final float[] ratings = batch.ratings;
+        final int[] rows = selection.rows;
+        int kept = 0;
+        for (int i = 0; i < selection.size; i++) {
+            final int row = rows[i];
+            final float rating = ratings[row];
+            rows[kept] = row;
+            kept += rating >= min && rating <= max ? 1 : 0;
+        }
+        selection.size = kept;
+        return selection;
+    }
+
+    /**
+     * Keeps the rows released within {@code [from, to]}.
+     */
+    public static Selection releasedBetween(MovieBatch batch, Selection selection, LocalDate from, LocalDate to) {
+        final int fromDay = Math.clamp(from.toEpochDay(), Integer.MIN_VALUE, Integer.MAX_VALUE);
+        final int toDay = Math.clamp(to.toEpochDay(), Integer.MIN_VALUE, Integer.MAX_VALUE);
+        final int[] days = batch.releaseDays;
+        final int[] rows = selection.rows;
+        int kept = 0;
+        for (int i = 0; i < selection.size; i++) {
+            final int row = rows[i];
+            final int day = days[row];
+            rows[kept] = row;
+            kept += day >= fromDay && day <= toDay ? 1 : 0;
+        }
+        selection.size = kept;
+        return selection;
+    }
+
+    /**
+     * Proleptic Gregorian year of a day since 1970-01-01, without going through
+     * {@link LocalDate}.
+     */
+    public static int yearOfEpochDay(int epochDay) {
+        // days since 0000-03-01, counted in 400 year eras
+        final int z = epochDay + 719_468;
+        final int era = (z >= 0 ? z : z - 146_096) / 146_097;
+        final int dayOfEra = z - era * 146_097;
+        final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        // shifted months 10 and 11 are January and February of the next year
+        return yearOfEra + era * 400 + (shiftedMonth >= 10 ? 1 : 0);
+    }
+}
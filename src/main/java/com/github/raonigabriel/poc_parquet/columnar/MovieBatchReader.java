@@ -0,0 +1,297 @@
+package com.github.raonigabriel.poc_parquet.columnar;
+
+import static com.github.raonigabriel.poc_parquet.service.MovieService.ID_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.NAME_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.RATING_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.RELEASE_DATE_FIELD;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.parquet.ParquetReadOptions;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ColumnReader;
+import org.apache.parquet.column.Dictionary;
+import org.apache.parquet.column.impl.ColumnReadStoreImpl;
+import org.apache.parquet.conf.PlainParquetConfiguration;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.Converter;
+import org.apache.parquet.io.api.GroupConverter;
+import org.apache.parquet.io.api.PrimitiveConverter;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type;
+
+/**
+ * Fills {@link MovieBatch}es straight from the Parquet column readers, one
+ * column at a time, without creating objects per row. Names are codes of
+ * the {@link NameDictionary} of the current row group, so a batch never
+ * spans two row groups and may come short at the end of one. The same batch
+ * instance is refilled by every call to {@link #next()}.
+ */
+public final class MovieBatchReader implements Closeable {
+
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    private static final Set<String> ALL_COLUMNS = Set.of(ID_FIELD, NAME_FIELD, RATING_FIELD, RELEASE_DATE_FIELD);
+
+    private final ParquetFileReader fileReader;
+
+    private final MessageType requestedSchema;
+
+    private final String createdBy;
+
+    private final MovieBatch batch;
+
+    private final ColumnFiller[] fillers;
+
+    private final ColumnReader[] columnReaders;
+
+    private long rowsLeftInGroup;
+
+    private MovieBatchReader(ParquetFileReader fileReader, MessageType requestedSchema, int batchSize,
+            Set<String> columns) {
+        this.fileReader = fileReader;
+        this.requestedSchema = requestedSchema;
+        this.createdBy = fileReader.getFooter().getFileMetaData().getCreatedBy();
+        this.batch = new MovieBatch(batchSize, new NameDictionary(), columns);
+        this.fillers = new ColumnFiller[requestedSchema.getFieldCount()];
+        this.columnReaders = new ColumnReader[fillers.length];
+        for (int i = 0; i < fillers.length; i++) {
+            fillers[i] = newFiller(requestedSchema.getType(i));
+        }
+    }
+
+    /**
+     * Opens the file for reading the given columns, all of them when none is given.
+     */
+    public static MovieBatchReader open(InputFile inputFile, int batchSize, String... columns) {
+        final Set<String> requested = columns.length == 0 ? ALL_COLUMNS : Set.of(columns);
+        for (var column : requested) {
+            if (!ALL_COLUMNS.contains(column)) {
+                throw new IllegalArgumentException("Unknown movie column: " + column);
+            }
+        }
+        final ParquetFileReader fileReader;
+        try {
+            fileReader = ParquetFileReader.open(inputFile,
+                ParquetReadOptions.builder(new PlainParquetConfiguration()).withUseHadoopVectoredIo(true).build());
+        } catch (IOException ex) {
+            throw new RuntimeException("Error opening Parquet file", ex);
+        }
+
+        final var fileSchema = fileReader.getFooter().getFileMetaData().getSchema();
+        final List<Type> fields = new ArrayList<>();
+        for (var field : fileSchema.getFields()) {
+            if (requested.contains(field.getName())) {
+                fields.add(field);
+            }
+        }
+        if (fields.size() != requested.size()) {
+            closeQuietly(fileReader);
+            throw new IllegalArgumentException("Parquet file lacks some of the columns " + requested);
+        }
+        final var requestedSchema = new MessageType(fileSchema.getName(), fields);
+        fileReader.setRequestedSchema(requestedSchema);
+        return new MovieBatchReader(fileReader, requestedSchema, batchSize, requested);
+    }
+
+    public long getRecordCount() {
+        return fileReader.getRecordCount();
+    }
+
+    /**
+     * Refills the batch with the next rows of the current row group, moving to
+     * the next one when it is done. Returns null once the file is exhausted.
+     */
+    public MovieBatch next() {
+        try {
+            batch.size = 0;
+            if (rowsLeftInGroup == 0 && !nextRowGroup()) {
+                return null;
+            }
+            final int end = (int) Math.min(batch.capacity(), rowsLeftInGroup);
+            for (int c = 0; c < fillers.length; c++) {
+                fill(columnReaders[c], fillers[c], 0, end);
+            }
+            batch.size = end;
+            rowsLeftInGroup -= end;
+            return batch;
+        } catch (IOException ex) {
+            throw new RuntimeException("Error reading Parquet file", ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            fileReader.close();
+        } catch (IOException ex) {
+            throw new RuntimeException("Error closing Parquet file", ex);
+        }
+    }
+
+    private boolean nextRowGroup() throws IOException {
+        final var rowGroup = fileReader.readNextRowGroup();
+        if (rowGroup == null) {
+            return false;
+        }
+        batch.names().reset();
+        final var root = new GroupConverter() {
+            @Override
+            public Converter getConverter(int fieldIndex) {
+                return fillers[fieldIndex];
+            }
+
+            @Override
+            public void start() {
+                // values are pushed by the column loop, not by record assembly
+            }
+
+            @Override
+            public void end() {
+                // same as start
+            }
+        };
+        final var store = new ColumnReadStoreImpl(rowGroup, root, requestedSchema, createdBy);
+        final List<ColumnDescriptor> columns = requestedSchema.getColumns();
+        for (int c = 0; c < columnReaders.length; c++) {
+            columnReaders[c] = store.getColumnReader(columns.get(c));
+        }
+        rowsLeftInGroup = rowGroup.getRowCount();
+        return true;
+    }
+
+    private static void fill(ColumnReader reader, ColumnFiller filler, int start, int end) {
+        final int maxDefinitionLevel = reader.getDescriptor().getMaxDefinitionLevel();
+        for (int row = start; row < end; row++) {
+            if (reader.getCurrentDefinitionLevel() == maxDefinitionLevel) {
+                filler.row = row;
+                reader.writeCurrentValueToConverter();
+            } else {
+                filler.setNull(row);
+            }
+            reader.consume();
+        }
+    }
+
+    private ColumnFiller newFiller(Type field) {
+        return switch (field.getName()) {
+            case ID_FIELD -> new ColumnFiller() {
+                @Override
+                public void addLong(long value) {
+                    batch.ids[row] = value;
+                    batch.idNulls[row] = false;
+                }
+
+                @Override
+                void setNull(int row) {
+                    batch.idNulls[row] = true;
+                }
+            };
+            case NAME_FIELD -> new NameFiller();
+            case RATING_FIELD -> new ColumnFiller() {
+                @Override
+                public void addFloat(float value) {
+                    batch.ratings[row] = value;
+                }
+            };
+            case RELEASE_DATE_FIELD -> new ReleaseDateFiller(
+                field.asPrimitiveType().getPrimitiveTypeName() == PrimitiveTypeName.BINARY);
+            default -> throw new IllegalStateException("Unexpected movie column: " + field.getName());
+        };
+    }
+
+    private static void closeQuietly(ParquetFileReader fileReader) {
+        try {
+            fileReader.close();
+        } catch (IOException ex) {
+            // already failing, keep the original error
+        }
+    }
+
+    /**
+     * Writes the current value of its column into the batch at {@link #row}.
+     */
+    private abstract static class ColumnFiller extends PrimitiveConverter {
+
+        int row;
+
+        void setNull(int row) {
+            throw new IllegalStateException("Unexpected null in a required movie column");
+        }
+    }
+
+    private final class NameFiller extends ColumnFiller {
+
+        @Override
+        public boolean hasDictionarySupport() {
+            return true;
+        }
+
+        @Override
+        public void setDictionary(Dictionary dictionary) {
+            batch.names().setDictionary(dictionary);
+        }
+
+        @Override
+        public void addValueFromDictionary(int dictionaryId) {
+            batch.nameCodes[row] = dictionaryId;
+        }
+
+        @Override
+        public void addBinary(Binary value) {
+            batch.nameCodes[row] = batch.names().encode(value);
+        }
+    }
+
+    /**
+     * Reads INT32 dates, or the ISO strings written by the Avro path.
+     */
+    private final class ReleaseDateFiller extends ColumnFiller {
+
+        private final boolean isoString;
+
+        private int[] days;
+
+        ReleaseDateFiller(boolean isoString) {
+            this.isoString = isoString;
+        }
+
+        @Override
+        public boolean hasDictionarySupport() {
+            return true;
+        }
+
+        @Override
+        public void setDictionary(Dictionary dictionary) {
+            days = new int[dictionary.getMaxId() + 1];
+            for (int i = 0; i < days.length; i++) {
+                days[i] = isoString
+                    ? (int) LocalDate.parse(dictionary.decodeToBinary(i).toStringUsingUTF8()).toEpochDay()
+                    : dictionary.decodeToInt(i);
+            }
+        }
+
+        @Override
+        public void addValueFromDictionary(int dictionaryId) {
+            batch.releaseDays[row] = days[dictionaryId];
+        }
+
+        @Override
+        public void addInt(int value) {
+            batch.releaseDays[row] = value;
+        }
+
+        @Override
+        public void addBinary(Binary value) {
+            batch.releaseDays[row] = (int) LocalDate.parse(value.toStringUsingUTF8()).toEpochDay();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.raonigabriel.poc_parquet.columnar;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.parquet.column.Dictionary;
+import org.apache.parquet.io.api.Binary;
+
+/**
+ * Int codes for the movie names of the current row group, so batches only
+ * carry the codes. Dictionary encoded values keep their page dictionary id as
+ * code; values of plain pages, written once the dictionary grew too large,
+ * are numbered after it. Reset at every row group, so it never holds more
+ * than one row group's names, and nothing is decoded until asked for.
+ */
+public final class NameDictionary {
+
+    private Dictionary dictionary;
+
+    private int dictionarySize;
+
+    private final List<Binary> plainValues = new ArrayList<>();
+
+    void reset() {
+        dictionary = null;
+        dictionarySize = 0;
+        plainValues.clear();
+    }
+
+    void setDictionary(Dictionary dictionary) {
+        this.dictionary = dictionary;
+        this.dictionarySize = dictionary.getMaxId() + 1;
+    }
+
+    int encode(Binary name) {
+        // page buffers may be recycled, only then keep our own copy
+        plainValues.add(name.isBackingBytesReused() ? name.copy() : name);
+        return dictionarySize + plainValues.size() - 1;
+    }
+
+    /**
+     * The UTF-8 bytes of a name, valid until the reader moves to the next row group.
+     */
+    public Binary decodeToBinary(int code) {
+        return code < dictionarySize ? dictionary.decodeToBinary(code) : plainValues.get(code - dictionarySize);
+    }
+
+    public String decode(int code) {
+        return decodeToBinary(code).toStringUsingUTF8();
+    }
+
+    public int size() {
+        return dictionarySize + plainValues.size();
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.raonigabriel.poc_parquet.columnar;
+
+/**
+ * Reusable selection vector: the rows of a {@link MovieBatch} that passed the
+ * filters so far, in ascending order.
+ */
+public final class Selection {
+
+    final int[] rows;
+
+    int size;
+
+    public Selection(int capacity) {
+        this.rows = new int[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int row(int index) {
+        return rows[index];
+    }
+
+    public Selection selectAll(MovieBatch batch) {
+        for (int i = 0; i < batch.size; i++) {
+            rows[i] = i;
+        }
+        size = batch.size;
+        return this;
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.raonigabriel.poc_parquet.columnar;
+
+import static com.github.raonigabriel.poc_parquet.service.MovieService.NAME_FIELD;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.parquet.io.api.Binary;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+/**
+ * Top N by rating over any number of batches. A bounded min-heap of row
+ * copies, kept in primitive arrays; entities are only built for the result.
+ * Names are copied as UTF-8 bytes when a row enters the heap, as the codes of
+ * a batch do not outlive its row group, and decoded for the result only.
+ * Ties keep the movie seen first.
+ */
+public final class TopRatedMovies {
+
+    private final int limit;
+
+    private final float[] ratings;
+
+    private final long[] ids;
+
+    private final boolean[] idNulls;
+
+    private final Binary[] names;
+
+    private final int[] releaseDays;
+
+    private final long[] sequences;
+
+    private int size;
+
+    private long seen;
+
+    public TopRatedMovies(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        this.limit = limit;
+        this.ratings = new float[limit];
+        this.ids = new long[limit];
+        this.idNulls = new boolean[limit];
+        this.names = new Binary[limit];
+        this.releaseDays = new int[limit];
+        this.sequences = new long[limit];
+    }
+
+    public TopRatedMovies add(MovieBatch batch, Selection selection) {
+        for (int i = 0; i < selection.size; i++) {
+            final int row = selection.rows[i];
+            final float rating = batch.ratings[row];
+            final long sequence = seen++;
+            if (size < limit) {
+                set(size, batch, row, sequence);
+                siftUp(size++);
+            } else if (rating > ratings[0]) {
+                set(0, batch, row, sequence);
+                siftDown(0);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * The best rated movies, highest rating first.
+     */
+    public List<MovieEntity> result() {
+        final var order = new ArrayList<Integer>(size);
+        for (int i = 0; i < size; i++) {
+            order.add(i);
+        }
+        order.sort((a, b) -> lessThan(a, b) ? 1 : lessThan(b, a) ? -1 : 0);
+        final var movies = new ArrayList<MovieEntity>(size);
+        for (int slot : order) {
+            final var movie = new MovieEntity();
+            movie.setId(idNulls[slot] ? null : ids[slot]);
+            movie.setName(names[slot] == null ? null : names[slot].toStringUsingUTF8());
+            movie.setRating(ratings[slot]);
+            movie.setReleaseDate(LocalDate.ofEpochDay(releaseDays[slot]));
+            movies.add(movie);
+        }
+        return movies;
+    }
+
+    private void set(int slot, MovieBatch batch, int row, long sequence) {
+        ratings[slot] = batch.ratings[row];
+        ids[slot] = batch.ids[row];
+        idNulls[slot] = batch.idNulls[row];
+        names[slot] = batch.hasColumn(NAME_FIELD)
+            ? Binary.fromConstantByteArray(batch.names().decodeToBinary(batch.nameCodes[row]).getBytes())
+            : null;
+        releaseDays[slot] = batch.releaseDays[row];
+        sequences[slot] = sequence;
+    }
+
+    /**
+     * Heap order: lower rating first, then the later seen movie first, so it
+     * is the one evicted on ties.
+     */
+    private boolean lessThan(int a, int b) {
+        return ratings[a] < ratings[b] || (ratings[a] == ratings[b] && sequences[a] > sequences[b]);
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            final int parent = (slot - 1) / 2;
+            if (!lessThan(slot, parent)) {
+                return;
+            }
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            final int left = 2 * slot + 1;
+            if (left >= size) {
+                return;
+            }
+            final int right = left + 1;
+            final int smallest = right < size && lessThan(right, left) ? right : left;
+            if (!lessThan(smallest, slot)) {
+                return;
+            }
+            swap(slot, smallest);
+            slot = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        final float rating = ratings[a];
+        ratings[a] = ratings[b];
+        ratings[b] = rating;
+        final long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        final boolean idNull = idNulls[a];
+        idNulls[a] = idNulls[b];
+        idNulls[b] = idNull;
+        final Binary name = names[a];
+        names[a] = names[b];
+        names[b] = name;
+        final int releaseDay = releaseDays[a];
+        releaseDays[a] = releaseDays[b];
+        releaseDays[b] = releaseDay;
+        final long sequence = sequences[a];
+        sequences[a] = sequences[b];
+        sequences[b] = sequence;
+    }
+}
@@ -0,0 +1,7 @@
+package com.github.raonigabriel.poc_parquet.columnar;
+
+/**
+ * Rating statistics of the movies released in one year.
+ */
+public record YearlyRating(int year, long count, double averageRating, float minRating, float maxRating) {
+}
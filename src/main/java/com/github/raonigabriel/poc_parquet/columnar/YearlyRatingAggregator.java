@@ -0,0 +1,57 @@
+package com.github.raonigabriel.poc_parquet.columnar;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Group by release year over any number of batches, keeping count, sum, min
+ * and max ratings in arrays indexed by year.
+ */
+public final class YearlyRatingAggregator {
+
+    private static final int MAX_YEAR = 9999;
+
+    private final long[] counts = new long[MAX_YEAR + 1];
+
+    private final double[] sums = new double[MAX_YEAR + 1];
+
+    private final float[] mins = new float[MAX_YEAR + 1];
+
+    private final float[] maxs = new float[MAX_YEAR + 1];
+
+    public YearlyRatingAggregator add(MovieBatch batch, Selection selection) {
+        final int[] days = batch.releaseDays;
+        final float[] ratings = batch.ratings;
+        for (int i = 0; i < selection.size; i++) {
+            final int row = selection.rows[i];
+            final int year = MovieBatchFilters.yearOfEpochDay(days[row]);
+            if (year < 0 || year > MAX_YEAR) {
+                throw new IllegalArgumentException("Release year out of range: " + year);
+            }
+            final float rating = ratings[row];
+            if (counts[year] == 0) {
+                mins[year] = rating;
+                maxs[year] = rating;
+            } else {
+                mins[year] = Math.min(mins[year], rating);
+                maxs[year] = Math.max(maxs[year], rating);
+            }
+            counts[year]++;
+            sums[year] += rating;
+        }
+        return this;
+    }
+
+    /**
+     * The years seen so far, in ascending order.
+     */
+    public List<YearlyRating> result() {
+        final var result = new ArrayList<YearlyRating>();
+        for (int year = 0; year <= MAX_YEAR; year++) {
+            if (counts[year] > 0) {
+                result.add(new YearlyRating(year, counts[year], sums[year] / counts[year], mins[year], maxs[year]));
+            }
+        }
+        return result;
+    }
+}
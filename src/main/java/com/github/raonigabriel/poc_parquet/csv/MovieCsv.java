@@ -0,0 +1,48 @@
+package com.github.raonigabriel.poc_parquet.csv;
+
+import static com.github.raonigabriel.poc_parquet.service.MovieService.ID_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.NAME_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.RATING_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.RELEASE_DATE_FIELD;
+
+import java.io.Reader;
+import java.io.Writer;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.CSVWriterBuilder;
+
+/**
+ * Single threaded CSV reading and writing, with a header line.
+ */
+public final class MovieCsv {
+
+    private MovieCsv() {
+    }
+
+    public static List<MovieEntity> read(Reader reader) {
+        try (final var csvReader = new CSVReaderBuilder(reader).withSkipLines(1).build()) {
+            return csvReader.readAll().stream().map(MovieCsvMapper::toMovie).toList();
+        } catch (Exception ex) {
+            throw new RuntimeException("Error reading CSV", ex);
+        }
+    }
+
+    public static int write(Writer writer, Stream<MovieEntity> movies) {
+        int count = 0;
+        try (final var csvWriter = new CSVWriterBuilder(writer).build()) {
+            csvWriter.writeNext(new String[] { ID_FIELD, NAME_FIELD, RATING_FIELD, RELEASE_DATE_FIELD });
+            final var iterator = movies.iterator();
+            while (iterator.hasNext()) {
+                csvWriter.writeNext(MovieCsvMapper.toRow(iterator.next()));
+                count++;
+            }
+            csvWriter.flush();
+            return count;
+        } catch (Exception ex) {
+            throw new RuntimeException("Error writing CSV", ex);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.raonigabriel.poc_parquet.csv;
+
+import java.time.LocalDate;
+
+import org.springframework.util.StringUtils;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+/**
+ * Maps movies from and to CSV rows laid out as id, name, rating, release date.
+ */
+public final class MovieCsvMapper {
+
+    private MovieCsvMapper() {
+    }
+
+    public static MovieEntity toMovie(String[] data) {
+        final var movie = new MovieEntity();
+        if (StringUtils.hasText(data[0])) {
+            movie.setId(Long.parseLong(data[0]));
+        }
+        movie.setName(data[1]);
+        movie.setRating(Float.parseFloat(data[2]));
+        movie.setReleaseDate(LocalDate.parse(data[3]));
+        return movie;
+    }
+
+    public static String[] toRow(MovieEntity movie) {
+        return new String[] {
+            movie.getId() == null ? "" : String.valueOf(movie.getId()),
+            movie.getName(),
+            String.valueOf(movie.getRating()),
+            movie.getReleaseDate().toString()
+        };
+    }
+}
@@ -0,0 +1,306 @@
+package com.github.raonigabriel.poc_parquet.csv;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+import com.opencsv.CSVParser;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Parses movie CSV files on several cores. The calling thread splits the input
+ * into chunks of {@code movies.csv.chunk-records} complete records (quoted line
+ * breaks are kept inside their record) and worker threads parse and map them.
+ * At most {@code movies.csv.max-in-flight-chunks} chunks are pending at once,
+ * which bounds memory and makes a slow sink throttle the reader.
+ */
+@Slf4j
+@Component
+public class ParallelCsvIngestor implements AutoCloseable {
+
+    private static final List<MovieEntity> END_OF_INPUT = Collections.emptyList();
+
+    private final int chunkRecords;
+
+    private final int maxInFlightChunks;
+
+    private final ExecutorService executor;
+
+    public ParallelCsvIngestor(@Value("${movies.csv.chunk-records:10000}") int chunkRecords,
+            @Value("${movies.csv.threads:4}") int threads,
+            @Value("${movies.csv.max-in-flight-chunks:8}") int maxInFlightChunks) {
+        this.chunkRecords = chunkRecords;
+        this.maxInFlightChunks = maxInFlightChunks;
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Parses the CSV, skipping its header, and hands each parsed chunk to the
+     * sink on the calling thread. When {@code ordered} is false chunks are
+     * handed over as soon as they are parsed.
+     */
+    public long ingest(Reader reader, boolean ordered, Consumer<List<MovieEntity>> sink) {
+        final var pending = new ArrayDeque<Future<List<MovieEntity>>>(maxInFlightChunks);
+        final var completion = new ExecutorCompletionService<List<MovieEntity>>(executor);
+        long count = 0;
+        try {
+            final var records = new RecordIterator(reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader));
+            if (records.hasNext()) {
+                records.next(); // header
+            }
+            while (records.hasNext()) {
+                final var chunk = new ArrayList<String>(chunkRecords);
+                while (chunk.size() < chunkRecords && records.hasNext()) {
+                    chunk.add(records.next());
+                }
+                if (pending.size() == maxInFlightChunks) {
+                    final var batch = nextChunk(pending, ordered ? null : completion);
+                    sink.accept(batch);
+                    count += batch.size();
+                }
+                pending.add(ordered ? executor.submit(() -> parse(chunk)) : completion.submit(() -> parse(chunk)));
+            }
+            while (!pending.isEmpty()) {
+                final var batch = nextChunk(pending, ordered ? null : completion);
+                sink.accept(batch);
+                count += batch.size();
+            }
+            return count;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while reading CSV");
+        } catch (ExecutionException ex) {
+            throw new RuntimeException("Error reading CSV", ex.getCause());
+        } finally {
+            // on failure, stop the chunks still being parsed
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Waits for the oldest pending chunk, or for the first one parsed when a
+     * completion service is given, and removes it from the pending ones.
+     */
+    private static List<MovieEntity> nextChunk(ArrayDeque<Future<List<MovieEntity>>> pending,
+            ExecutorCompletionService<List<MovieEntity>> completion) throws InterruptedException, ExecutionException {
+        if (completion == null) {
+            return pending.poll().get();
+        }
+        final var future = completion.take();
+        pending.remove(future);
+        return future.get();
+    }
+
+    /**
+     * Runs {@link #ingest} on a virtual thread and exposes the parsed rows as a
+     * stream. The stream owns the reader: it is closed once the input is read
+     * or fails, and closing the stream stops the ingest and closes it too.
+     */
+    public Stream<MovieEntity> stream(Reader reader, boolean ordered) {
+        final var queue = new ArrayBlockingQueue<List<MovieEntity>>(maxInFlightChunks);
+        final var failure = new AtomicReference<Throwable>();
+        final var producer = Thread.ofVirtual().name("csv-ingest").start(() -> {
+            try {
+                ingest(reader, ordered, batch -> {
+                    try {
+                        queue.put(batch);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new CancellationException("CSV stream closed");
+                    }
+                });
+            } catch (CancellationException ex) {
+                log.debug("CSV ingest cancelled");
+            } catch (Throwable ex) {
+                failure.set(ex);
+            } finally {
+                closeQuietly(reader);
+                try {
+                    queue.put(END_OF_INPUT);
+                } catch (InterruptedException ex) {
+                    // the stream was closed, nobody is waiting for the marker
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        final var batches = new Spliterators.AbstractSpliterator<List<MovieEntity>>(Long.MAX_VALUE, Spliterator.ORDERED) {
+
+            private boolean done;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super List<MovieEntity>> action) {
+                if (done) {
+                    return false;
+                }
+                final var batch = nextBatch(queue, failure);
+                if (batch == END_OF_INPUT) {
+                    done = true;
+                    return false;
+                }
+                action.accept(batch);
+                return true;
+            }
+        };
+        return StreamSupport.stream(batches, false)
+            .flatMap(List::stream)
+            .onClose(() -> {
+                producer.interrupt();
+                closeQuietly(reader);
+            });
+    }
+
+    /**
+     * Waits for the next batch, throwing the ingest failure once the end of
+     * input marker follows it.
+     */
+    private static List<MovieEntity> nextBatch(BlockingQueue<List<MovieEntity>> queue,
+            AtomicReference<Throwable> failure) {
+        try {
+            final var batch = queue.take();
+            if (batch == END_OF_INPUT && failure.get() != null) {
+                throw new RuntimeException("Error reading CSV", failure.get());
+            }
+            return batch;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while reading CSV");
+        }
+    }
+
+    private static void closeQuietly(Reader reader) {
+        try {
+            reader.close();
+        } catch (IOException ex) {
+            log.debug("Error closing CSV reader", ex);
+        }
+    }
+
+    /**
+     * The splitter and the workers must agree on the quote and escape characters.
+     */
+    private static CSVParser newParser() {
+        return new CSVParser();
+    }
+
+    private static List<MovieEntity> parse(List<String> chunk) throws IOException {
+        final var parser = newParser();
+        final var movies = new ArrayList<MovieEntity>(chunk.size());
+        for (var line : chunk) {
+            movies.add(MovieCsvMapper.toMovie(parser.parseLine(line)));
+        }
+        return movies;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Iterates over complete CSV records, joining lines while a quoted field is open.
+     */
+    private static final class RecordIterator implements Iterator<String> {
+
+        private final BufferedReader reader;
+
+        private final char quote;
+
+        private final char escape;
+
+        private String next;
+
+        RecordIterator(BufferedReader reader) {
+            this.reader = reader;
+            final var parser = newParser();
+            this.quote = parser.getQuotechar();
+            this.escape = parser.getEscape();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = readRecord();
+            }
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final var record = next;
+            next = null;
+            return record;
+        }
+
+        private String readRecord() {
+            try {
+                String line;
+                do {
+                    line = reader.readLine();
+                } while (line != null && line.isEmpty());
+                if (line == null || !isOpen(line)) {
+                    return line;
+                }
+                final var record = new StringBuilder(line);
+                while ((line = reader.readLine()) != null) {
+                    record.append('\n').append(line);
+                    if (!isOpen(record)) {
+                        break;
+                    }
+                }
+                return record.toString();
+            } catch (IOException ex) {
+                throw new RuntimeException("Error reading CSV", ex);
+            }
+        }
+
+        /**
+         * Whether the record ends inside a quoted field. Without escape
+         * characters that is an odd count of quotes, as doubled quotes count
+         * twice. Escaped quotes do not count, so records having escape
+         * characters are left to the parser.
+         */
+        private boolean isOpen(CharSequence record) throws IOException {
+            boolean open = false;
+            for (int i = 0; i < record.length(); i++) {
+                final char c = record.charAt(i);
+                if (c == escape) {
+                    final var parser = newParser();
+                    parser.parseLineMulti(record.toString());
+                    return parser.isPending();
+                }
+                if (c == quote) {
+                    open = !open;
+                }
+            }
+            return open;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.raonigabriel.poc_parquet.iceberg;
+
+/**
+ * Outcome of one {@link IcebergTableMaintenance} run.
+ *
+ * @param before table layout before the run
+ * @param after table layout after the run
+ * @param rewrittenDataFiles small data files, or files with deletes, replaced by compaction
+ * @param addedDataFiles data files written by compaction
+ * @param rewrittenManifests small manifests merged together
+ * @param expiredSnapshots snapshots removed from the metadata
+ * @param orphanFilesDeleted files under the table location no snapshot referenced
+ */
+public record IcebergMaintenanceReport(
+    IcebergTableStats before,
+    IcebergTableStats after,
+    int rewrittenDataFiles,
+    int addedDataFiles,
+    int rewrittenManifests,
+    int expiredSnapshots,
+    int orphanFilesDeleted) {
+}
@@ -0,0 +1,199 @@
+package com.github.raonigabriel.poc_parquet.iceberg;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.apache.iceberg.CombinedScanTask;
+import org.apache.iceberg.FileFormat;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.data.GenericDeleteFilter;
+import org.apache.iceberg.data.IdentityPartitionConverters;
+import org.apache.iceberg.data.InternalRecordWrapper;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.data.parquet.GenericParquetReaders;
+import org.apache.iceberg.expressions.Evaluator;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.metrics.ScanReport;
+import org.apache.iceberg.parquet.Parquet;
+import org.apache.iceberg.util.PartitionUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+import com.github.raonigabriel.poc_parquet.service.MovieService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Filtered and projected reads of an Iceberg table. Planning prunes manifests
+ * and data files with partition values and column statistics; the remaining
+ * splits are read in parallel on a pool of {@code iceberg.scan.threads}.
+ * Position and equality delete files attached to a split are applied while
+ * reading it.
+ */
+@Slf4j
+@Component
+public class IcebergMovieScanner implements AutoCloseable {
+
+    private final ExecutorService executor;
+
+    public IcebergMovieScanner(@Value("${iceberg.scan.threads:4}") int scanThreads) {
+        this.executor = Executors.newFixedThreadPool(scanThreads);
+    }
+
+    /**
+     * Returns the movies matching the filter, with only the given columns set
+     * (all of them when empty). Rows keep the order of the planned splits.
+     */
+    public IcebergScanResult scan(Table table, Expression filter, Collection<String> columns) {
+        final var report = new AtomicReference<ScanReport>();
+        var scan = table.newScan()
+            .filter(filter)
+            .metricsReporter(metricsReport -> {
+                if (metricsReport instanceof ScanReport scanReport) {
+                    report.set(scanReport);
+                }
+            });
+        if (!columns.isEmpty()) {
+            scan = scan.select(columns);
+        }
+        // includes the columns the residual filter needs
+        final Schema projection = scan.schema();
+
+        final var tasks = new ArrayList<CombinedScanTask>();
+        try (var planned = scan.planTasks()) {
+            planned.forEach(tasks::add);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Error planning Iceberg scan of " + table.name(), ex);
+        }
+
+        final long readStart = System.nanoTime();
+        final var futures = new ArrayList<Future<List<MovieEntity>>>(tasks.size());
+        long bytesScanned = 0;
+        for (var task : tasks) {
+            bytesScanned += task.files().stream().mapToLong(FileScanTask::length).sum();
+            futures.add(executor.submit(() -> read(table, task, projection)));
+        }
+        final var movies = new ArrayList<MovieEntity>();
+        try {
+            for (var future : futures) {
+                movies.addAll(future.get());
+            }
+        } catch (InterruptedException ex) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning " + table.name(), ex);
+        } catch (ExecutionException ex) {
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Error scanning " + table.name(), ex.getCause());
+        }
+
+        final var metrics = toMetrics(report.get(), tasks.size(), bytesScanned, movies.size(),
+            Duration.ofNanos(System.nanoTime() - readStart));
+        log.info("Scanned {} with filter {}: {}", table.name(), filter, metrics);
+        return new IcebergScanResult(movies, metrics);
+    }
+
+    private static List<MovieEntity> read(Table table, CombinedScanTask combinedTask, Schema projection)
+            throws IOException {
+        final var movies = new ArrayList<MovieEntity>();
+        for (var task : combinedTask.files()) {
+            read(table, task, projection, movies::add);
+        }
+        return movies;
+    }
+
+    /**
+     * Reads, as of the snapshot, the live rows of the data files it added, e.g.
+     * the new versions of the rows replaced by a row delta.
+     */
+    public static void readAddedRows(Table table, Snapshot snapshot, Consumer<MovieEntity> sink) {
+        final var added = new HashSet<String>();
+        snapshot.addedDataFiles(table.io()).forEach(file -> added.add(file.location()));
+        try (var tasks = table.newScan().useSnapshot(snapshot.snapshotId()).planFiles()) {
+            for (var task : tasks) {
+                if (added.contains(task.file().location())) {
+                    read(table, task, table.schema(), sink);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Error reading the rows added by snapshot " + snapshot.snapshotId(), ex);
+        }
+    }
+
+    /**
+     * Reads the live rows of one file split, applying its delete files and
+     * residual filter.
+     */
+    static void read(Table table, FileScanTask task, Schema projection, Consumer<MovieEntity> sink)
+            throws IOException {
+        if (task.file().format() != FileFormat.PARQUET) {
+            throw new UnsupportedOperationException("Cannot read " + task.file().format() + " file " + task.file().location());
+        }
+        // with delete files, also reads the equality columns and row positions they match on
+        final var deletes = task.deletes().isEmpty()
+            ? null
+            : new GenericDeleteFilter(table.io(), task, table.schema(), projection);
+        final var readSchema = deletes == null ? projection : deletes.requiredSchema();
+        final boolean idProjected = projection.findField(MovieService.ID_FIELD) != null;
+        final var wrapper = new InternalRecordWrapper(readSchema.asStruct());
+        final var constants = PartitionUtil.constantsMap(task, IdentityPartitionConverters::convertConstant);
+        final var evaluator = new Evaluator(readSchema.asStruct(), task.residual(), true);
+        final CloseableIterable<Record> fileRecords = Parquet.read(table.io().newInputFile(task.file().location()))
+            .project(readSchema)
+            .split(task.start(), task.length())
+            .filter(task.residual())
+            .createReaderFunc(fileSchema -> GenericParquetReaders.buildReader(readSchema, fileSchema, constants))
+            .build();
+        try (var records = deletes == null ? fileRecords : deletes.filter(fileRecords)) {
+            for (var movieRecord : records) {
+                if (evaluator.eval(wrapper.wrap(movieRecord))) {
+                    final var movie = IcebergRecords.toMovie(movieRecord);
+                    if (!idProjected) {
+                        // only read to match the equality deletes
+                        movie.setId(null);
+                    }
+                    sink.accept(movie);
+                }
+            }
+        }
+    }
+
+    private static IcebergScanMetrics toMetrics(ScanReport report, int splits, long bytesScanned, long rows,
+            Duration readDuration) {
+        if (report == null) {
+            // empty tables have no snapshot to plan, so no report is emitted
+            return new IcebergScanMetrics(0, 0, 0, splits, bytesScanned, rows, Duration.ZERO, readDuration);
+        }
+        final var scanMetrics = report.scanMetrics();
+        return new IcebergScanMetrics(
+            scanMetrics.resultDataFiles() == null ? 0 : scanMetrics.resultDataFiles().value(),
+            scanMetrics.skippedDataFiles() == null ? 0 : scanMetrics.skippedDataFiles().value(),
+            scanMetrics.skippedDataManifests() == null ? 0 : scanMetrics.skippedDataManifests().value(),
+            splits,
+            bytesScanned,
+            rows,
+            scanMetrics.totalPlanningDuration() == null ? Duration.ZERO : scanMetrics.totalPlanningDuration().totalDuration(),
+            readDuration);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,368 @@
+package com.github.raonigabriel.poc_parquet.iceberg;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.DeleteFile;
+import org.apache.iceberg.FileFormat;
+import org.apache.iceberg.PartitionKey;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.data.GenericFileWriterFactory;
+import org.apache.iceberg.data.GenericRecord;
+import org.apache.iceberg.data.InternalRecordWrapper;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.deletes.EqualityDeleteWriter;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.io.FanoutDataWriter;
+import org.apache.iceberg.io.OutputFileFactory;
+import org.apache.iceberg.util.StructLikeSet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+import com.github.raonigabriel.poc_parquet.service.MovieService;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes movies into an Iceberg table using several writer threads. The
+ * caller's thread hands batches of rows to the writers through a bounded
+ * queue. Each writer fans rows out to one file per partition and rolls to a
+ * new file at {@code iceberg.movies.target-file-size}. All data files are
+ * committed in a single append.
+ */
+@Slf4j
+@Component
+public class IcebergMovieWriter {
+
+    static final int BATCH_SIZE = 1024;
+
+    private static final List<MovieEntity> END_OF_INPUT = Collections.emptyList();
+
+    @Getter
+    private final String partitionSpec;
+
+    private final long targetFileSize;
+
+    private final int writerThreads;
+
+    public IcebergMovieWriter(@Value("${iceberg.movies.partition-spec:}") String partitionSpec,
+            @Value("${iceberg.movies.target-file-size:134217728}") long targetFileSize,
+            @Value("${iceberg.movies.writer-threads:4}") int writerThreads) {
+        this.partitionSpec = partitionSpec;
+        this.targetFileSize = targetFileSize;
+        this.writerThreads = writerThreads;
+    }
+
+    /**
+     * The configured partition spec, bound to the given schema.
+     */
+    public PartitionSpec partitionSpec(Schema schema) {
+        return PartitionSpecs.parse(schema, partitionSpec);
+    }
+
+    /**
+     * Writes the movies and commits the resulting data files in one atomic append.
+     */
+    public long append(Table table, Stream<MovieEntity> movies) {
+        return append(table, movies, Map.of());
+    }
+
+    /**
+     * Same as {@link #append(Table, Stream)}, adding the given properties to the
+     * snapshot summary.
+     */
+    public long append(Table table, Stream<MovieEntity> movies, Map<String, String> summary) {
+        return commit(table, write(table, movies), summary);
+    }
+
+    /**
+     * Commits data files returned by {@link #write} in one atomic append, with the
+     * given snapshot summary properties. Nothing is committed when there are no files.
+     */
+    public long commit(Table table, List<DataFile> dataFiles, Map<String, String> summary) {
+        if (dataFiles.isEmpty()) {
+            return 0;
+        }
+        final var append = table.newAppend();
+        dataFiles.forEach(append::appendFile);
+        summary.forEach(append::set);
+        append.commit();
+        final long count = dataFiles.stream().mapToLong(DataFile::recordCount).sum();
+        log.info("Appended {} movies in {} data files to Iceberg table {}", count, dataFiles.size(), table.name());
+        return count;
+    }
+
+    /**
+     * Replaces the rows having the ids of the given movies, adding those not in
+     * the table yet, in one row delta commit (merge-on-read): new data files hold
+     * the changed rows and equality delete files on {@code id} hide the current
+     * ones. The commit fails if a concurrent commit added or deleted rows with
+     * the same ids.
+     */
+    public long upsert(Table table, Collection<MovieEntity> movies) {
+        final var byId = new LinkedHashMap<Long, MovieEntity>();
+        for (var movie : movies) {
+            if (movie.getId() == null) {
+                throw new IllegalArgumentException("Cannot upsert a movie without id: " + movie.getName());
+            }
+            // the last change of an id wins
+            byId.put(movie.getId(), movie);
+        }
+        if (byId.isEmpty()) {
+            return 0;
+        }
+
+        final var base = table.currentSnapshot();
+        final var ids = Expressions.in(MovieService.ID_FIELD, byId.keySet());
+        final List<DeleteFile> deleteFiles = base == null
+            ? List.of()
+            : writeEqualityDeletes(table, base.snapshotId(), ids, byId.keySet().stream().sorted().toList());
+        final var dataFiles = write(table, byId.values().stream());
+
+        final var rowDelta = table.newRowDelta();
+        dataFiles.forEach(rowDelta::addRows);
+        deleteFiles.forEach(rowDelta::addDeletes);
+        if (base != null) {
+            rowDelta.validateFromSnapshot(base.snapshotId())
+                .conflictDetectionFilter(ids)
+                .validateNoConflictingDataFiles()
+                .validateNoConflictingDeleteFiles();
+        }
+        rowDelta.commit();
+        log.info("Upserted {} movies in {} data files and {} equality delete files to Iceberg table {}",
+            byId.size(), dataFiles.size(), deleteFiles.size(), table.name());
+        return byId.size();
+    }
+
+    /**
+     * Equality deletes only apply to data files of their own partition, so one
+     * delete file with all the ids is written to every partition holding files
+     * that may contain one of them, as told by the column stats of the snapshot.
+     */
+    private static List<DeleteFile> writeEqualityDeletes(Table table, long snapshotId, Expression filter,
+            List<Long> ids) {
+        final var partitionsBySpec = new HashMap<Integer, StructLikeSet>();
+        try (var tasks = table.newScan().useSnapshot(snapshotId).filter(filter).planFiles()) {
+            for (var task : tasks) {
+                final var file = task.file();
+                partitionsBySpec.computeIfAbsent(file.specId(),
+                        specId -> StructLikeSet.create(table.specs().get(specId).partitionType()))
+                    .add(file.partition());
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Error planning Iceberg scan of " + table.name(), ex);
+        }
+
+        final var schema = table.schema();
+        final var deleteSchema = schema.select(MovieService.ID_FIELD);
+        final var fileFactory = OutputFileFactory.builderFor(table, 1, 0)
+            .format(FileFormat.PARQUET)
+            .build();
+        final var writerFactory = GenericFileWriterFactory.builderFor(table)
+            .deleteFileFormat(FileFormat.PARQUET)
+            .equalityFieldIds(new int[] { schema.findField(MovieService.ID_FIELD).fieldId() })
+            .equalityDeleteRowSchema(deleteSchema)
+            .build();
+        final var deleteRecord = GenericRecord.create(deleteSchema);
+        final var deleteFiles = new ArrayList<DeleteFile>();
+        try {
+            for (var entry : partitionsBySpec.entrySet()) {
+                final var spec = table.specs().get(entry.getKey());
+                for (var partition : entry.getValue()) {
+                    final var partitionData = spec.isUnpartitioned() ? null : partition;
+                    final EqualityDeleteWriter<Record> writer = writerFactory.newEqualityDeleteWriter(
+                        partitionData == null ? fileFactory.newOutputFile() : fileFactory.newOutputFile(spec, partitionData),
+                        spec, partitionData);
+                    try (writer) {
+                        for (var id : ids) {
+                            deleteRecord.set(0, id);
+                            writer.write(deleteRecord);
+                        }
+                    }
+                    deleteFiles.add(writer.toDeleteFile());
+                }
+            }
+            return deleteFiles;
+        } catch (IOException | UncheckedIOException ex) {
+            deleteFiles.forEach(file -> table.io().deleteFile(file.location()));
+            throw new IllegalStateException("Error writing equality deletes to " + table.name(), ex);
+        }
+    }
+
+    /**
+     * A writer for movies pushed one at a time on the caller's thread, e.g. as
+     * they are read, without the queue and threads of {@link #write}. It fans
+     * out and rolls files the same way and commits nothing.
+     */
+    MovieFileWriter open(Table table) {
+        return new MovieFileWriter(table, 0, targetFileSize);
+    }
+
+    /**
+     * Writes the movies into new data files, without committing them.
+     */
+    public List<DataFile> write(Table table, Stream<MovieEntity> movies) {
+        return write(table, movies, writerThreads);
+    }
+
+    /**
+     * Same as {@link #write(Table, Stream)} with the given number of writer
+     * threads. Each thread writes its own files, so a single one gives the
+     * fewest and largest files.
+     */
+    public List<DataFile> write(Table table, Stream<MovieEntity> movies, int writerThreads) {
+        final var queue = new ArrayBlockingQueue<List<MovieEntity>>(writerThreads * 2);
+        final var futures = new ArrayList<Future<List<DataFile>>>(writerThreads);
+        final ExecutorService executor = Executors.newFixedThreadPool(writerThreads);
+        try {
+            for (int taskId = 0; taskId < writerThreads; taskId++) {
+                final int id = taskId;
+                futures.add(executor.submit(() -> writeTask(table, id, queue)));
+            }
+
+            var batch = new ArrayList<MovieEntity>(BATCH_SIZE);
+            final var iterator = movies.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == BATCH_SIZE) {
+                    put(queue, batch, futures);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty()) {
+                put(queue, batch, futures);
+            }
+            for (int i = 0; i < writerThreads; i++) {
+                put(queue, END_OF_INPUT, futures);
+            }
+
+            final var dataFiles = new ArrayList<DataFile>();
+            for (var future : futures) {
+                dataFiles.addAll(future.get());
+            }
+            return dataFiles;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing to Iceberg", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Error writing to Iceberg", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<DataFile> writeTask(Table table, int taskId, BlockingQueue<List<MovieEntity>> queue)
+            throws InterruptedException, IOException {
+        final var writer = new MovieFileWriter(table, taskId, targetFileSize);
+        try {
+            List<MovieEntity> batch;
+            while ((batch = queue.take()) != END_OF_INPUT) {
+                batch.forEach(writer);
+            }
+        } catch (InterruptedException | RuntimeException ex) {
+            writer.abort();
+            throw ex;
+        }
+        return writer.complete();
+    }
+
+    private static void put(BlockingQueue<List<MovieEntity>> queue, List<MovieEntity> batch,
+            List<Future<List<DataFile>>> futures) throws InterruptedException, ExecutionException {
+        while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+            for (var future : futures) {
+                if (future.isDone()) {
+                    // a writer stopped early, surface its failure instead of blocking forever
+                    future.get();
+                    throw new IllegalStateException("Iceberg writer stopped before the end of the input");
+                }
+            }
+        }
+    }
+
+    /**
+     * Fans movies out to one file per partition of the table's current spec,
+     * rolling to a new file at the target size. Each writer thread has its own.
+     */
+    static final class MovieFileWriter implements Consumer<MovieEntity> {
+
+        private final Table table;
+
+        private final PartitionSpec spec;
+
+        private final FanoutDataWriter<Record> writer;
+
+        private final PartitionKey partitionKey;
+
+        private final InternalRecordWrapper wrapper;
+
+        private final GenericRecord movieRecord;
+
+        MovieFileWriter(Table table, int taskId, long targetFileSize) {
+            final var schema = table.schema();
+            this.table = table;
+            this.spec = table.spec();
+            final var fileFactory = OutputFileFactory.builderFor(table, 1, taskId)
+                .format(FileFormat.PARQUET)
+                .build();
+            final var writerFactory = GenericFileWriterFactory.builderFor(table)
+                .dataFileFormat(FileFormat.PARQUET)
+                .dataSchema(schema)
+                .build();
+            this.writer = new FanoutDataWriter<>(writerFactory, fileFactory, table.io(), targetFileSize);
+            this.partitionKey = spec.isUnpartitioned() ? null : new PartitionKey(spec, schema);
+            this.wrapper = new InternalRecordWrapper(schema.asStruct());
+            this.movieRecord = GenericRecord.create(schema);
+        }
+
+        @Override
+        public void accept(MovieEntity movie) {
+            IcebergRecords.fill(movieRecord, movie);
+            if (partitionKey != null) {
+                partitionKey.partition(wrapper.wrap(movieRecord));
+            }
+            writer.write(movieRecord, spec, partitionKey);
+        }
+
+        /**
+         * Closes the open files and returns all the files written.
+         */
+        List<DataFile> complete() throws IOException {
+            writer.close();
+            return writer.result().dataFiles();
+        }
+
+        /**
+         * Closes and deletes the files written so far.
+         */
+        void abort() {
+            try {
+                writer.close();
+                writer.result().dataFiles().forEach(file -> table.io().deleteFile(file.location()));
+            } catch (IOException | UncheckedIOException ex) {
+                log.warn("Error cleaning up Iceberg data files", ex);
+            }
+        }
+    }
+}
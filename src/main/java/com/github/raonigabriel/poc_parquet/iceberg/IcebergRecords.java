@@ -0,0 +1,38 @@
+package com.github.raonigabriel.poc_parquet.iceberg;
+
+import java.time.LocalDate;
+
+import org.apache.iceberg.data.Record;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+import com.github.raonigabriel.poc_parquet.service.MovieService;
+
+/**
+ * Conversions between {@link MovieEntity} and Iceberg generic records of the
+ * movies table schema.
+ */
+public final class IcebergRecords {
+
+    private IcebergRecords() {
+    }
+
+    public static Record fill(Record movieRecord, MovieEntity movie) {
+        movieRecord.set(0, movie.getId());
+        movieRecord.set(1, movie.getName());
+        movieRecord.set(2, movie.getRating());
+        movieRecord.set(3, movie.getReleaseDate());
+        return movieRecord;
+    }
+
+    /**
+     * Maps by field name, so projected records leave the missing fields null.
+     */
+    public static MovieEntity toMovie(Record movieRecord) {
+        final var movie = new MovieEntity();
+        movie.setId((Long) movieRecord.getField(MovieService.ID_FIELD));
+        movie.setName((String) movieRecord.getField(MovieService.NAME_FIELD));
+        movie.setRating((Float) movieRecord.getField(MovieService.RATING_FIELD));
+        movie.setReleaseDate((LocalDate) movieRecord.getField(MovieService.RELEASE_DATE_FIELD));
+        return movie;
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.raonigabriel.poc_parquet.iceberg;
+
+import java.time.Duration;
+
+/**
+ * What an Iceberg scan planned, pruned and read.
+ *
+ * @param resultDataFiles data files left after manifest and statistics pruning
+ * @param skippedDataFiles data files pruned using partition values and column statistics
+ * @param skippedDataManifests manifests pruned using partition summaries
+ * @param splits splits read in parallel
+ * @param bytesScanned bytes of the data file splits that were read
+ * @param rowsReturned rows left after applying the residual filter
+ * @param planningDuration time spent planning the scan
+ * @param readDuration time spent reading the splits
+ */
+public record IcebergScanMetrics(
+    long resultDataFiles,
+    long skippedDataFiles,
+    long skippedDataManifests,
+    int splits,
+    long bytesScanned,
+    long rowsReturned,
+    Duration planningDuration,
+    Duration readDuration) {
+}
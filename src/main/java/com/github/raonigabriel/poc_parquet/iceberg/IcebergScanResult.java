@@ -0,0 +1,8 @@
+package com.github.raonigabriel.poc_parquet.iceberg;
+
+import java.util.List;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+public record IcebergScanResult(List<MovieEntity> movies, IcebergScanMetrics metrics) {
+}
@@ -0,0 +1,41 @@
+package com.github.raonigabriel.poc_parquet.iceberg;
+
+import java.util.Optional;
+
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.util.SnapshotUtil;
+
+/**
+ * Helpers for the custom properties kept in snapshot summaries.
+ */
+public final class IcebergSnapshots {
+
+    private IcebergSnapshots() {
+    }
+
+    /**
+     * The value of the summary property in the most recent snapshot that has it,
+     * walking back from the current snapshot through its ancestors.
+     */
+    public static Optional<String> latestSummaryValue(Table table, String property) {
+        return latestWithSummary(table, property).map(snapshot -> snapshot.summary().get(property));
+    }
+
+    /**
+     * The most recent ancestor of the current snapshot, itself included, whose
+     * summary has the property.
+     */
+    public static Optional<Snapshot> latestWithSummary(Table table, String property) {
+        final var current = table.currentSnapshot();
+        if (current == null) {
+            return Optional.empty();
+        }
+        for (var snapshot : SnapshotUtil.ancestorsOf(current.snapshotId(), table::snapshot)) {
+            if (snapshot.summary().containsKey(property)) {
+                return Optional.of(snapshot);
+            }
+        }
+        return Optional.empty();
+    }
+}
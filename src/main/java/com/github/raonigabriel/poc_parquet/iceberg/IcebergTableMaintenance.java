@@ -0,0 +1,297 @@
+package com.github.raonigabriel.poc_parquet.iceberg;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.HasTableOperations;
+import org.apache.iceberg.ManifestContent;
+import org.apache.iceberg.ManifestFiles;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.TableProperties;
+import org.apache.iceberg.io.SupportsBulkOperations;
+import org.apache.iceberg.io.SupportsPrefixOperations;
+import org.apache.iceberg.relocated.com.google.common.collect.Iterables;
+import org.apache.iceberg.util.PropertyUtil;
+import org.apache.iceberg.util.StructLikeMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps an Iceberg table fast to plan and read after many small commits. One
+ * run bin-packs small data files, merges small manifests, expires old
+ * snapshots and deletes the files no snapshot references anymore. The layout
+ * is logged before and after.
+ */
+@Slf4j
+@Component
+public class IcebergTableMaintenance {
+
+    private final IcebergMovieWriter icebergMovieWriter;
+
+    private final long minFileSize;
+
+    private final int minInputFiles;
+
+    private final Duration snapshotMaxAge;
+
+    private final int retainLast;
+
+    private final Duration orphanFileAge;
+
+    public IcebergTableMaintenance(IcebergMovieWriter icebergMovieWriter,
+            @Value("${iceberg.maintenance.min-file-size:100663296}") long minFileSize,
+            @Value("${iceberg.maintenance.min-input-files:5}") int minInputFiles,
+            @Value("${iceberg.maintenance.snapshot-max-age:P5D}") Duration snapshotMaxAge,
+            @Value("${iceberg.maintenance.retain-last:1}") int retainLast,
+            @Value("${iceberg.maintenance.orphan-file-age:P3D}") Duration orphanFileAge) {
+        this.icebergMovieWriter = icebergMovieWriter;
+        this.minFileSize = minFileSize;
+        this.minInputFiles = minInputFiles;
+        this.snapshotMaxAge = snapshotMaxAge;
+        this.retainLast = retainLast;
+        this.orphanFileAge = orphanFileAge;
+    }
+
+    /**
+     * Runs every maintenance step. Snapshots in {@code protectedSnapshotIds}, and
+     * all newer ones, are never expired, e.g. those other processes resume from.
+     */
+    public IcebergMaintenanceReport maintain(Table table, Collection<Long> protectedSnapshotIds) {
+        final var before = stats(table);
+        log.info("Maintaining Iceberg table {}: {}", table.name(), before);
+
+        final var compaction = compact(table);
+        final int rewrittenManifests = rewriteManifests(table);
+        final int expiredSnapshots = expireSnapshots(table, protectedSnapshotIds);
+        final int orphanFilesDeleted = deleteOrphanFiles(table);
+
+        final var after = stats(table);
+        final var report = new IcebergMaintenanceReport(before, after, compaction.rewritten(), compaction.added(),
+            rewrittenManifests, expiredSnapshots, orphanFilesDeleted);
+        log.info("Maintained Iceberg table {}: {}", table.name(), report);
+        return report;
+    }
+
+    /**
+     * File counts of the current snapshot, timing a full scan planning.
+     */
+    public IcebergTableStats stats(Table table) {
+        final int snapshots = Iterables.size(table.snapshots());
+        final var current = table.currentSnapshot();
+        if (current == null) {
+            return new IcebergTableStats(0, 0, 0, 0, snapshots, Duration.ZERO);
+        }
+
+        final long start = System.nanoTime();
+        int dataFiles = 0;
+        long dataBytes = 0;
+        final var deleteFiles = new HashSet<String>();
+        try (var tasks = table.newScan().useSnapshot(current.snapshotId()).planFiles()) {
+            for (var task : tasks) {
+                dataFiles++;
+                dataBytes += task.file().fileSizeInBytes();
+                task.deletes().forEach(deleteFile -> deleteFiles.add(deleteFile.location()));
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Error planning Iceberg scan of " + table.name(), ex);
+        }
+        final var planningDuration = Duration.ofNanos(System.nanoTime() - start);
+        return new IcebergTableStats(dataFiles, deleteFiles.size(), dataBytes,
+            current.allManifests(table.io()).size(), snapshots, planningDuration);
+    }
+
+    /**
+     * Rewrites, per partition, the data files smaller than
+     * {@code iceberg.maintenance.min-file-size} once there are at least
+     * {@code iceberg.maintenance.min-input-files} of them, and any file with
+     * deletes attached. Rows are read with their deletes applied and streamed
+     * straight into a writer on this thread, rolling at the target file size,
+     * so a partition is never held in memory. The new files keep
+     * the sequence number of the snapshot they were read from, so deletes
+     * committed meanwhile still apply to them.
+     */
+    Compaction compact(Table table) {
+        final var current = table.currentSnapshot();
+        if (current == null) {
+            return new Compaction(0, 0);
+        }
+
+        final var groupsBySpec = new HashMap<Integer, StructLikeMap<List<FileScanTask>>>();
+        try (var tasks = table.newScan().useSnapshot(current.snapshotId()).planFiles()) {
+            for (var task : tasks) {
+                if (task.file().fileSizeInBytes() < minFileSize || !task.deletes().isEmpty()) {
+                    groupsBySpec.computeIfAbsent(task.file().specId(),
+                            specId -> StructLikeMap.create(table.specs().get(specId).partitionType()))
+                        .computeIfAbsent(task.file().partition(), partition -> new ArrayList<>())
+                        .add(task);
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Error planning Iceberg scan of " + table.name(), ex);
+        }
+
+        final Set<DataFile> rewritten = new HashSet<>();
+        final Set<DataFile> added = new HashSet<>();
+        try {
+            for (var groups : groupsBySpec.values()) {
+                for (var group : groups.values()) {
+                    final boolean hasDeletes = group.stream().anyMatch(task -> !task.deletes().isEmpty());
+                    if (group.size() < minInputFiles && !hasDeletes) {
+                        continue;
+                    }
+                    final var writer = icebergMovieWriter.open(table);
+                    try {
+                        for (var task : group) {
+                            IcebergMovieScanner.read(table, task, table.schema(), writer);
+                            rewritten.add(task.file());
+                        }
+                    } catch (IOException | RuntimeException ex) {
+                        writer.abort();
+                        throw ex;
+                    }
+                    added.addAll(writer.complete());
+                }
+            }
+            if (rewritten.isEmpty()) {
+                return new Compaction(0, 0);
+            }
+            final var rewrite = table.newRewrite()
+                .validateFromSnapshot(current.snapshotId())
+                .dataSequenceNumber(current.sequenceNumber());
+            for (var file : rewritten) {
+                rewrite.deleteFile(file);
+            }
+            for (var file : added) {
+                rewrite.addFile(file);
+            }
+            rewrite.commit();
+        } catch (IOException | RuntimeException ex) {
+            added.forEach(file -> table.io().deleteFile(file.location()));
+            throw new IllegalStateException("Error compacting Iceberg table " + table.name(), ex);
+        }
+        log.info("Compacted {} data files into {} in Iceberg table {}", rewritten.size(), added.size(), table.name());
+        return new Compaction(rewritten.size(), added.size());
+    }
+
+    /**
+     * Merges the data manifests smaller than the table's target manifest size,
+     * clustered by partition spec.
+     */
+    int rewriteManifests(Table table) {
+        final var current = table.currentSnapshot();
+        if (current == null) {
+            return 0;
+        }
+        final long targetSize = PropertyUtil.propertyAsLong(table.properties(),
+            TableProperties.MANIFEST_TARGET_SIZE_BYTES, TableProperties.MANIFEST_TARGET_SIZE_BYTES_DEFAULT);
+        final int smallManifests = (int) current.dataManifests(table.io()).stream()
+            .filter(manifest -> manifest.length() < targetSize)
+            .count();
+        if (smallManifests < 2) {
+            return 0;
+        }
+        table.rewriteManifests()
+            .rewriteIf(manifest -> manifest.length() < targetSize)
+            .clusterBy(DataFile::specId)
+            .commit();
+        return smallManifests;
+    }
+
+    /**
+     * Expires the snapshots older than {@code iceberg.maintenance.snapshot-max-age},
+     * keeping the last {@code iceberg.maintenance.retain-last} ones, and deletes
+     * the files only they referenced.
+     */
+    int expireSnapshots(Table table, Collection<Long> protectedSnapshotIds) {
+        long olderThan = System.currentTimeMillis() - snapshotMaxAge.toMillis();
+        for (var snapshotId : protectedSnapshotIds) {
+            final var snapshot = table.snapshot(snapshotId);
+            if (snapshot != null) {
+                olderThan = Math.min(olderThan, snapshot.timestampMillis());
+            }
+        }
+        final int before = Iterables.size(table.snapshots());
+        table.expireSnapshots()
+            .expireOlderThan(olderThan)
+            .retainLast(retainLast)
+            .cleanExpiredFiles(true)
+            .commit();
+        return before - Iterables.size(table.snapshots());
+    }
+
+    /**
+     * Deletes the files under the table location older than
+     * {@code iceberg.maintenance.orphan-file-age} that neither the table
+     * metadata nor any snapshot references, e.g. left by failed writes. The age
+     * keeps files of commits still in progress. Needs a FileIO that can list.
+     */
+    int deleteOrphanFiles(Table table) {
+        if (!(table.io() instanceof SupportsPrefixOperations io) || !(table instanceof HasTableOperations ops)) {
+            log.warn("Cannot list the files of Iceberg table {}, skipping orphan file deletion", table.name());
+            return 0;
+        }
+        final var reachable = reachableFiles(table, ops);
+        final long olderThan = System.currentTimeMillis() - orphanFileAge.toMillis();
+        final var orphans = new ArrayList<String>();
+        for (var file : io.listPrefix(table.location() + "/")) {
+            if (file.createdAtMillis() < olderThan && !reachable.contains(file.location())) {
+                orphans.add(file.location());
+            }
+        }
+        if (orphans.isEmpty()) {
+            return 0;
+        }
+        if (io instanceof SupportsBulkOperations bulk) {
+            bulk.deleteFiles(orphans);
+        } else {
+            orphans.forEach(io::deleteFile);
+        }
+        log.info("Deleted {} orphan files of Iceberg table {}", orphans.size(), table.name());
+        return orphans.size();
+    }
+
+    private static Set<String> reachableFiles(Table table, HasTableOperations ops) {
+        final var metadata = ops.operations().current();
+        final var files = new HashSet<String>();
+        files.add(metadata.metadataFileLocation());
+        metadata.previousFiles().forEach(entry -> files.add(entry.file()));
+        metadata.statisticsFiles().forEach(file -> files.add(file.path()));
+        metadata.partitionStatisticsFiles().forEach(file -> files.add(file.path()));
+        try {
+            for (var snapshot : table.snapshots()) {
+                files.add(snapshot.manifestListLocation());
+                for (var manifest : snapshot.allManifests(table.io())) {
+                    // manifests are shared between snapshots, read each once
+                    if (!files.add(manifest.path())) {
+                        continue;
+                    }
+                    if (manifest.content() == ManifestContent.DATA) {
+                        try (var reader = ManifestFiles.read(manifest, table.io(), table.specs())) {
+                            reader.forEach(file -> files.add(file.location()));
+                        }
+                    } else {
+                        try (var reader = ManifestFiles.readDeleteManifest(manifest, table.io(), table.specs())) {
+                            reader.forEach(file -> files.add(file.location()));
+                        }
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Error reading manifests of " + table.name(), ex);
+        }
+        return files;
+    }
+
+    record Compaction(int rewritten, int added) {
+    }
+}
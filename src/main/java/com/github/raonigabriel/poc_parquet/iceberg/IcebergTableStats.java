@@ -0,0 +1,22 @@
+package com.github.raonigabriel.poc_parquet.iceberg;
+
+import java.time.Duration;
+
+/**
+ * File layout of the current snapshot of an Iceberg table.
+ *
+ * @param dataFiles live data files
+ * @param deleteFiles delete files attached to the live data files
+ * @param dataBytes total size of the live data files
+ * @param manifests data and delete manifests of the current snapshot
+ * @param snapshots snapshots kept in the table metadata
+ * @param planningDuration time spent planning a full scan
+ */
+public record IcebergTableStats(
+    int dataFiles,
+    int deleteFiles,
+    long dataBytes,
+    int manifests,
+    int snapshots,
+    Duration planningDuration) {
+}
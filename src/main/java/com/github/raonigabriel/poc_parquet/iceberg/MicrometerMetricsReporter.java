@@ -0,0 +1,35 @@
+package com.github.raonigabriel.poc_parquet.iceberg;
+
+import org.apache.iceberg.metrics.CommitReport;
+import org.apache.iceberg.metrics.MetricsReport;
+import org.apache.iceberg.metrics.MetricsReporter;
+
+import com.github.raonigabriel.poc_parquet.metrics.MovieMetrics;
+
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Records the latency of every Iceberg commit, and the attempts retried after
+ * losing a race with a concurrent commit. The catalog instantiates it from
+ * {@code metrics-reporter-impl}, so it records into the global registry,
+ * which Spring Boot links to the application one.
+ */
+public class MicrometerMetricsReporter implements MetricsReporter {
+
+    @Override
+    public void report(MetricsReport report) {
+        if (!(report instanceof CommitReport commit)) {
+            return;
+        }
+        final var metrics = commit.commitMetrics();
+        final var operation = commit.operation() == null ? "unknown" : commit.operation();
+        if (metrics.totalDuration() != null) {
+            Metrics.globalRegistry.timer(MovieMetrics.ICEBERG_COMMIT, "table", commit.tableName(),
+                "operation", operation).record(metrics.totalDuration().totalDuration());
+        }
+        if (metrics.attempts() != null && metrics.attempts().value() > 1) {
+            Metrics.globalRegistry.counter(MovieMetrics.ICEBERG_COMMIT_CONFLICTS, "table", commit.tableName(),
+                "operation", operation).increment(metrics.attempts().value() - 1);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.github.raonigabriel.poc_parquet.iceberg;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.iceberg.CatalogProperties;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.TableProperties;
+import org.apache.iceberg.aws.s3.S3FileIO;
+import org.apache.iceberg.catalog.Catalog;
+import org.apache.iceberg.catalog.Namespace;
+import org.apache.iceberg.catalog.TableIdentifier;
+import org.apache.iceberg.exceptions.AlreadyExistsException;
+import org.apache.iceberg.jdbc.JdbcCatalog;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.s3.DelegatingS3Client;
+import software.amazon.awssdk.services.s3.S3Client;
+
+/**
+ * Application wide Iceberg JDBC catalog. It is initialized once and keeps the
+ * loaded tables in a cache that expires after {@code iceberg.catalog.cache.expiration},
+ * so repeated reads skip the catalog lookup and the metadata file download.
+ * Call {@link #refresh(TableIdentifier)} after committing to a table so the cached
+ * instance sees the new snapshot right away. The cache is published to Micrometer as
+ * {@value #TABLE_CACHE_NAME} ({@code cache.gets}, {@code cache.evictions}, ...).
+ */
+@Slf4j
+@Component
+public class MoviesCatalog implements AutoCloseable {
+
+    public static final String CATALOG_NAME = "MoviesCatalog";
+
+    public static final Namespace NAMESPACE = Namespace.of("public");
+
+    public static final String WAREHOUSE_BUCKET = "warehouse";
+
+    public static final String TABLE_CACHE_NAME = "iceberg.tables";
+
+    private final JdbcCatalog catalog;
+
+    private final Cache<TableIdentifier, Table> tableCache;
+
+    public MoviesCatalog(DataSource dataSource, S3Client s3Client, MeterRegistry registry,
+            @Value("${iceberg.catalog.cache.expiration:PT5M}") Duration cacheExpiration) {
+        log.info("Creating Iceberg catalog {}", CATALOG_NAME);
+        final var props = new HashMap<String, String>();
+        props.put(CatalogProperties.CATALOG_IMPL, JdbcCatalog.class.getName());
+        props.putAll(jdbcProperties(dataSource));
+
+        props.put(CatalogProperties.WAREHOUSE_LOCATION, "s3://" + WAREHOUSE_BUCKET);
+        props.put(CatalogProperties.METRICS_REPORTER_IMPL, MicrometerMetricsReporter.class.getName());
+
+        // table files go through the application client, with its metrics and local object cache
+        final var sharedClient = new DelegatingS3Client(s3Client) {
+            @Override
+            public void close() {
+                // owned by the application context, not by the FileIO
+            }
+        };
+        this.catalog = new JdbcCatalog(ioProps -> {
+            final var io = new S3FileIO(() -> sharedClient);
+            io.initialize(ioProps);
+            return io;
+        }, null, true);
+        this.catalog.setConf(new Configuration());
+        this.catalog.initialize(CATALOG_NAME, props);
+
+        this.tableCache = CaffeineCacheMetrics.monitor(registry, Caffeine.newBuilder()
+            .expireAfterWrite(cacheExpiration)
+            .recordStats()
+            .<TableIdentifier, Table>build(), TABLE_CACHE_NAME);
+    }
+
+    /**
+     * Returns the table from the cache, loading it from the catalog on a miss.
+     */
+    public Table loadTable(TableIdentifier identifier) {
+        return tableCache.get(identifier, catalog::loadTable);
+    }
+
+    public boolean tableExists(TableIdentifier identifier) {
+        return tableCache.getIfPresent(identifier) != null || catalog.tableExists(identifier);
+    }
+
+    /**
+     * Creates a format v2 table, which row level deletes require.
+     */
+    public Table createTable(TableIdentifier identifier, Schema schema, PartitionSpec spec) {
+        final var table = catalog.createTable(identifier, schema, spec,
+            Map.of(TableProperties.FORMAT_VERSION, "2"));
+        tableCache.put(identifier, table);
+        return table;
+    }
+
+    /**
+     * Loads the table, creating it first when it does not exist yet.
+     */
+    public Table loadOrCreateTable(TableIdentifier identifier, Schema schema, PartitionSpec spec) {
+        if (tableExists(identifier)) {
+            return loadTable(identifier);
+        }
+        try {
+            return createTable(identifier, schema, spec);
+        } catch (AlreadyExistsException ex) {
+            // created concurrently by another writer
+            return loadTable(identifier);
+        }
+    }
+
+    public boolean dropTable(TableIdentifier identifier, boolean purge) {
+        tableCache.invalidate(identifier);
+        return catalog.dropTable(identifier, purge);
+    }
+
+    /**
+     * Reloads the cached table metadata, e.g. after a commit made by this application.
+     */
+    public void refresh(TableIdentifier identifier) {
+        final var table = tableCache.getIfPresent(identifier);
+        if (table != null) {
+            table.refresh();
+        }
+    }
+
+    /**
+     * Drops the cached instance, so the next {@link #loadTable} goes to the catalog.
+     */
+    public void invalidate(TableIdentifier identifier) {
+        tableCache.invalidate(identifier);
+    }
+
+    /** Hit and miss counters of the table metadata cache. */
+    public CacheStats cacheStats() {
+        return tableCache.stats();
+    }
+
+    /** The underlying catalog, bypassing the table cache. */
+    public Catalog catalog() {
+        return catalog;
+    }
+
+    @Override
+    public void close() throws Exception {
+        final var stats = cacheStats();
+        log.info("Closing Iceberg catalog {} (table cache hits: {}, misses: {})", CATALOG_NAME, stats.hitCount(),
+            stats.missCount());
+        tableCache.invalidateAll();
+        catalog.close();
+    }
+
+    /**
+     * Reuses the connection settings of the application pool, without
+     * borrowing a connection when the pool is Hikari.
+     */
+    private static Map<String, String> jdbcProperties(DataSource dataSource) {
+        final var props = new HashMap<String, String>();
+        if (dataSource instanceof HikariDataSource hikari) {
+            props.put(CatalogProperties.URI, hikari.getJdbcUrl());
+            props.put(JdbcCatalog.PROPERTY_PREFIX + "user", hikari.getUsername());
+            props.put(JdbcCatalog.PROPERTY_PREFIX + "password", hikari.getPassword());
+            return props;
+        }
+        try (final var conn = dataSource.getConnection()) {
+            final var metaData = conn.getMetaData();
+            props.put(CatalogProperties.URI, metaData.getURL());
+            props.put(JdbcCatalog.PROPERTY_PREFIX + "user", metaData.getUserName());
+            props.put(JdbcCatalog.PROPERTY_PREFIX + "password", "postgres");
+            return props;
+        } catch (SQLException ex) {
+            throw new BeanInitializationException("Error getting catalog connection settings", ex);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.raonigabriel.poc_parquet.iceberg;
+
+import java.util.regex.Pattern;
+
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.springframework.util.StringUtils;
+
+/**
+ * Parses partition specs written as a comma separated list of transforms, such
+ * as {@code year(releaseDate)}, {@code bucket(id, 16)} or {@code truncate(name, 1)}.
+ * A bare column name is an identity partition and a blank spec is unpartitioned.
+ */
+public final class PartitionSpecs {
+
+    private static final Pattern TRANSFORM = Pattern.compile("(\\w+)\\s*\\(\\s*(\\w+)\\s*(?:,\\s*(\\d+)\\s*)?\\)");
+
+    private PartitionSpecs() {
+    }
+
+    public static PartitionSpec parse(Schema schema, String spec) {
+        if (!StringUtils.hasText(spec)) {
+            return PartitionSpec.unpartitioned();
+        }
+        final var builder = PartitionSpec.builderFor(schema);
+        for (var term : spec.split(",(?![^(]*\\))")) {
+            term = term.trim();
+            final var matcher = TRANSFORM.matcher(term);
+            if (!matcher.matches()) {
+                builder.identity(term);
+                continue;
+            }
+            final var transform = matcher.group(1).toLowerCase();
+            final var column = matcher.group(2);
+            final var width = matcher.group(3);
+            switch (transform) {
+                case "identity" -> builder.identity(column);
+                case "year", "years" -> builder.year(column);
+                case "month", "months" -> builder.month(column);
+                case "day", "days" -> builder.day(column);
+                case "bucket" -> builder.bucket(column, requireWidth(term, width));
+                case "truncate" -> builder.truncate(column, requireWidth(term, width));
+                default -> throw new IllegalArgumentException("Unknown partition transform: " + term);
+            }
+        }
+        return builder.build();
+    }
+
+    private static int requireWidth(String term, String width) {
+        if (width == null) {
+            throw new IllegalArgumentException("Partition transform needs a width: " + term);
+        }
+        return Integer.parseInt(width);
+    }
+}
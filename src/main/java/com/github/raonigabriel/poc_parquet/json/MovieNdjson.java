@@ -0,0 +1,66 @@
+package com.github.raonigabriel.poc_parquet.json;
+
+import static com.github.raonigabriel.poc_parquet.service.MovieService.ID_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.NAME_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.RATING_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.RELEASE_DATE_FIELD;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+/**
+ * Newline delimited JSON, one object per movie with the same fields as the CSV
+ * columns and the release date as an ISO date. Fields are written one by one
+ * with a streaming generator, no object mapper nor tree is involved.
+ */
+public final class MovieNdjson {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder().build();
+
+    private MovieNdjson() {
+    }
+
+    /**
+     * Writes the movies in UTF-8, closing the stream when done.
+     */
+    public static int write(OutputStream out, Stream<MovieEntity> movies) {
+        int count = 0;
+        try (var generator = JSON_FACTORY.createGenerator(out)) {
+            // the line feed below separates the objects instead of the default space
+            generator.setRootValueSeparator(null);
+            final var iterator = movies.iterator();
+            while (iterator.hasNext()) {
+                writeMovie(generator, iterator.next());
+                generator.writeRaw('\n');
+                count++;
+            }
+            generator.flush();
+            return count;
+        } catch (Exception ex) {
+            throw new RuntimeException("Error writing NDJSON", ex);
+        }
+    }
+
+    private static void writeMovie(JsonGenerator generator, MovieEntity movie) throws IOException {
+        generator.writeStartObject();
+        if (movie.getId() == null) {
+            generator.writeNullField(ID_FIELD);
+        } else {
+            generator.writeNumberField(ID_FIELD, movie.getId());
+        }
+        generator.writeStringField(NAME_FIELD, movie.getName());
+        if (movie.getRating() == null) {
+            generator.writeNullField(RATING_FIELD);
+        } else {
+            generator.writeNumberField(RATING_FIELD, movie.getRating());
+        }
+        generator.writeStringField(RELEASE_DATE_FIELD,
+            movie.getReleaseDate() == null ? null : movie.getReleaseDate().toString());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.raonigabriel.poc_parquet.local;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.parquet.io.PositionOutputStream;
+
+/**
+ * Appends to a {@link FileChannel} through a heap buffer, so the many small
+ * writes of page headers and footers do not each cost a system call. Writes
+ * larger than the buffer, such as compressed pages, go straight to the channel.
+ * The data goes to a temporary file, renamed to the target on {@link #close()};
+ * {@link #abort()} deletes it instead.
+ */
+class ChannelOutputStream extends PositionOutputStream {
+
+    static final int BUFFER_SIZE = 256 * 1024;
+
+    private final Path temporary;
+
+    private final Path target;
+
+    private final boolean replace;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private long pos;
+
+    ChannelOutputStream(Path target, boolean replace) throws IOException {
+        this.temporary = LocalFiles.temporarySibling(target);
+        this.target = target;
+        this.replace = replace;
+        this.channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+    }
+
+    @Override
+    public long getPos() {
+        return pos;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) b);
+        pos++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len > buffer.remaining()) {
+            drain();
+        }
+        if (len >= buffer.capacity()) {
+            writeFully(ByteBuffer.wrap(b, off, len));
+        } else {
+            buffer.put(b, off, len);
+        }
+        pos += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            try (channel) {
+                drain();
+            }
+            LocalFiles.publish(temporary, target, replace);
+        } catch (IOException | RuntimeException ex) {
+            LocalFiles.deleteQuietly(temporary);
+            throw ex;
+        }
+    }
+
+    /**
+     * Discards what was written, leaving the target as it was. Does nothing
+     * once closed.
+     */
+    void abort() {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            // deleted below anyway
+        }
+        LocalFiles.deleteQuietly(temporary);
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.raonigabriel.poc_parquet.local;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes local files through a temporary sibling that is renamed over the file
+ * once complete, so a failed write leaves no partial file behind, only the
+ * previous one if any.
+ */
+@Slf4j
+public final class LocalFiles {
+
+    private LocalFiles() {
+    }
+
+    /**
+     * Writes to a temporary file.
+     */
+    @FunctionalInterface
+    public interface Writing<T> {
+
+        T write(Path temporary) throws Exception;
+    }
+
+    /**
+     * Runs {@code writing} on a temporary sibling of {@code file} and renames
+     * it over the file when it returns. When it throws the temporary file is
+     * deleted and the file left as it was.
+     */
+    public static <T> T replace(Path file, Writing<T> writing) throws Exception {
+        final var temporary = temporarySibling(file);
+        try {
+            final T result = writing.write(temporary);
+            publish(temporary, file, true);
+            return result;
+        } catch (Exception | Error ex) {
+            deleteQuietly(temporary);
+            throw ex;
+        }
+    }
+
+    /**
+     * A hidden, not yet existing file next to {@code file}, so renaming it stays
+     * within the same file system.
+     */
+    static Path temporarySibling(Path file) {
+        return file.resolveSibling("." + file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+    }
+
+    static void publish(Path temporary, Path file, boolean replace) throws IOException {
+        if (replace) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } else {
+            Files.move(temporary, file);
+        }
+    }
+
+    static void deleteQuietly(Path temporary) {
+        try {
+            Files.deleteIfExists(temporary);
+        } catch (IOException ex) {
+            log.warn("Error deleting temporary file {}", temporary, ex);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.github.raonigabriel.poc_parquet.local;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.parquet.bytes.ByteBufferAllocator;
+import org.apache.parquet.io.ParquetFileRange;
+import org.apache.parquet.io.SeekableInputStream;
+
+/**
+ * Seekable stream over a memory mapped file. The file is mapped in regions of
+ * up to 1 GB, as a single {@link MappedByteBuffer} cannot go past 2 GB, and the
+ * channel is closed right away: the mappings stay valid until they are garbage
+ * collected. Reads only copy from the mapping; vectored reads are completed
+ * before returning. Closing drops the mappings, later reads fail.
+ */
+class MappedInputStream extends SeekableInputStream {
+
+    private static final int REGION_SHIFT = 30;
+
+    private final Path path;
+    private final long length;
+    private final int regionShift;
+    private final long regionMask;
+
+    private MappedByteBuffer[] regions;
+
+    private long pos;
+
+    MappedInputStream(Path path) throws IOException {
+        this(path, REGION_SHIFT);
+    }
+
+    /**
+     * Maps regions of {@code 2^regionShift} bytes, small ones being for tests.
+     */
+    MappedInputStream(Path path, int regionShift) throws IOException {
+        this.path = path;
+        this.regionShift = regionShift;
+        this.regionMask = (1L << regionShift) - 1;
+        try (var channel = FileChannel.open(path)) {
+            this.length = channel.size();
+            this.regions = new MappedByteBuffer[(int) ((length + regionMask) >>> regionShift)];
+            for (int i = 0; i < regions.length; i++) {
+                final long start = (long) i << regionShift;
+                regions[i] = channel.map(MapMode.READ_ONLY, start, Math.min(regionMask + 1, length - start));
+            }
+        }
+    }
+
+    @Override
+    public long getPos() {
+        return pos;
+    }
+
+    @Override
+    public void seek(long newPos) throws IOException {
+        ensureOpen();
+        if (newPos < 0 || newPos > length) {
+            throw new EOFException("Seek to " + newPos + " outside of " + path + " (" + length + " bytes)");
+        }
+        pos = newPos;
+    }
+
+    @Override
+    public int read() throws IOException {
+        ensureOpen();
+        if (pos >= length) {
+            return -1;
+        }
+        final int b = region(pos).get((int) (pos & regionMask)) & 0xFF;
+        pos++;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (len == 0) {
+            return 0;
+        }
+        if (pos >= length) {
+            return -1;
+        }
+        final int n = copy(pos, b, off, (int) Math.min(len, length - pos));
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public void readFully(byte[] bytes) throws IOException {
+        readFully(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void readFully(byte[] bytes, int start, int len) throws IOException {
+        ensureOpen();
+        if (len > length - pos) {
+            throw new EOFException("Reached the end of " + path + " with " + (len - (length - pos))
+                + " bytes left to read");
+        }
+        int done = 0;
+        while (done < len) {
+            done += copy(pos + done, bytes, start + done, len - done);
+        }
+        pos += len;
+    }
+
+    @Override
+    public int read(ByteBuffer buf) throws IOException {
+        ensureOpen();
+        if (!buf.hasRemaining()) {
+            return 0;
+        }
+        if (pos >= length) {
+            return -1;
+        }
+        final int n = copy(pos, buf, (int) Math.min(buf.remaining(), length - pos));
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public void readFully(ByteBuffer buf) throws IOException {
+        ensureOpen();
+        if (buf.remaining() > length - pos) {
+            throw new EOFException("Reached the end of " + path + " with " + (buf.remaining() - (length - pos))
+                + " bytes left to read");
+        }
+        while (buf.hasRemaining()) {
+            pos += copy(pos, buf, buf.remaining());
+        }
+    }
+
+    @Override
+    public boolean readVectoredAvailable(ByteBufferAllocator allocator) {
+        return true;
+    }
+
+    @Override
+    public void readVectored(List<ParquetFileRange> ranges, ByteBufferAllocator allocator) throws IOException {
+        ensureOpen();
+        for (var range : ranges) {
+            if (range.getOffset() < 0 || range.getOffset() + range.getLength() > length) {
+                throw new EOFException("Range " + range + " outside of " + path + " (" + length + " bytes)");
+            }
+            final var buf = allocator.allocate(range.getLength());
+            long position = range.getOffset();
+            while (buf.hasRemaining()) {
+                position += copy(position, buf, buf.remaining());
+            }
+            buf.flip();
+            range.setDataReadFuture(CompletableFuture.completedFuture(buf));
+        }
+    }
+
+    @Override
+    public void close() {
+        // unmapped once unreachable
+        regions = null;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (regions == null) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    /**
+     * Copies up to {@code len} bytes at {@code position}, stopping at the end of its region.
+     */
+    private int copy(long position, byte[] b, int off, int len) {
+        final int offset = (int) (position & regionMask);
+        final var region = region(position);
+        final int n = Math.min(len, region.capacity() - offset);
+        region.get(offset, b, off, n);
+        return n;
+    }
+
+    private int copy(long position, ByteBuffer buf, int len) {
+        final int offset = (int) (position & regionMask);
+        final var region = region(position);
+        final int n = Math.min(len, region.capacity() - offset);
+        buf.put(buf.position(), region, offset, n);
+        buf.position(buf.position() + n);
+        return n;
+    }
+
+    private MappedByteBuffer region(long position) {
+        return regions[(int) (position >>> regionShift)];
+    }
+}
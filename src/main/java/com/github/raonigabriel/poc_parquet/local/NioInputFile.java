@@ -0,0 +1,45 @@
+package com.github.raonigabriel.poc_parquet.local;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.SeekableInputStream;
+
+import lombok.Getter;
+
+/**
+ * Parquet {@link InputFile} reading a local file through a memory mapping,
+ * without Hadoop's {@code FileSystem}, checksum files or configuration.
+ * Reads are served from the page cache with no system call per read.
+ */
+public class NioInputFile implements InputFile {
+
+    @Getter
+    private final Path path;
+
+    private long length = -1;
+
+    public NioInputFile(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public long getLength() throws IOException {
+        if (length < 0) {
+            length = Files.size(path);
+        }
+        return length;
+    }
+
+    @Override
+    public SeekableInputStream newStream() throws IOException {
+        return new MappedInputStream(path);
+    }
+
+    @Override
+    public String toString() {
+        return path.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.raonigabriel.poc_parquet.local;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+
+import com.github.raonigabriel.poc_parquet.parquet.AbortableOutputFile;
+
+/**
+ * Parquet {@link OutputFile} writing a local file through a buffered
+ * {@code FileChannel}, without Hadoop's {@code FileSystem} and the
+ * {@code .crc} checksum file it writes next to every local file. The file only
+ * appears, or is replaced, once the stream is closed; an aborted write leaves
+ * it as it was.
+ */
+public class NioOutputFile implements AbortableOutputFile {
+
+    private final Path path;
+
+    private volatile ChannelOutputStream stream;
+
+    public NioOutputFile(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public PositionOutputStream create(long blockSizeHint) throws IOException {
+        if (Files.exists(path)) {
+            throw new FileAlreadyExistsException(path.toString());
+        }
+        stream = new ChannelOutputStream(path, false);
+        return stream;
+    }
+
+    @Override
+    public PositionOutputStream createOrOverwrite(long blockSizeHint) throws IOException {
+        stream = new ChannelOutputStream(path, true);
+        return stream;
+    }
+
+    @Override
+    public void abort() {
+        final var current = stream;
+        if (current != null) {
+            current.abort();
+        }
+    }
+
+    @Override
+    public boolean supportsBlockSize() {
+        return false;
+    }
+
+    @Override
+    public long defaultBlockSize() {
+        return 0;
+    }
+
+    @Override
+    public String getPath() {
+        return path.toString();
+    }
+}
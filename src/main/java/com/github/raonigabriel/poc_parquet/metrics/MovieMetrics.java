@@ -0,0 +1,190 @@
+package com.github.raonigabriel.poc_parquet.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import com.github.raonigabriel.poc_parquet.parquet.ParquetFileStats;
+import com.github.raonigabriel.poc_parquet.parquet.ParquetScanMetrics;
+import com.github.raonigabriel.poc_parquet.parquet.StreamOutputFile;
+import com.github.raonigabriel.poc_parquet.s3.S3InputFile;
+import com.github.raonigabriel.poc_parquet.s3.S3OutputFile;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Micrometer meters of every read and write path, exposed through the
+ * Actuator {@code metrics} endpoint. Tags only take a handful of fixed
+ * values (path names, {@code s3} or {@code local}, S3 operations, Iceberg
+ * operations), never file names or ids, so the number of series stays small.
+ */
+@Slf4j
+@Component
+public class MovieMetrics {
+
+    /** Timer of each transfer, tagged by {@code path}. */
+    public static final String TRANSFER = "movies.transfer";
+
+    /** Rows moved by the transfers, tagged by {@code path}. */
+    public static final String TRANSFER_ROWS = "movies.transfer.rows";
+
+    /** Compressed column chunk bytes written, tagged by {@code target}. */
+    public static final String PARQUET_BYTES_WRITTEN = "movies.parquet.bytes.written";
+
+    /** Bytes transferred by Parquet readers, tagged by {@code target}. */
+    public static final String PARQUET_BYTES_READ = "movies.parquet.bytes.read";
+
+    /** Row groups flushed by Parquet writers, tagged by {@code target}. */
+    public static final String PARQUET_ROW_GROUPS = "movies.parquet.row.groups";
+
+    /** Row groups pruned by filtered scans, tagged by {@code filter}. */
+    public static final String PARQUET_ROW_GROUPS_SKIPPED = "movies.parquet.row.groups.skipped";
+
+    /** Data pages skipped by filtered scans through the page indexes. */
+    public static final String PARQUET_PAGES_SKIPPED = "movies.parquet.pages.skipped";
+
+    /** Time spent in the driver fetching rows of streamed queries, tagged by {@code query}. */
+    public static final String JDBC_FETCH = "movies.jdbc.fetch";
+
+    /** Latency of each S3 API call, retries included, tagged by {@code operation} and {@code outcome}. */
+    public static final String S3_REQUESTS = "s3.requests";
+
+    /** Retried S3 attempts, tagged by {@code operation}. */
+    public static final String S3_RETRIES = "s3.retries";
+
+    /** Objects removed by bulk deletes, tagged by {@code bucket}. */
+    public static final String S3_OBJECTS_DELETED = "s3.objects.deleted";
+
+    /** GetObject calls seen by the local object cache, tagged by {@code result}. */
+    public static final String S3_CACHE_REQUESTS = "s3.cache.requests";
+
+    /** Objects evicted from the local object cache. */
+    public static final String S3_CACHE_EVICTIONS = "s3.cache.evictions";
+
+    /** Served from a cached file. */
+    public static final String CACHE_HIT = "hit";
+
+    /** Downloaded into the cache. */
+    public static final String CACHE_MISS = "miss";
+
+    /** Waited for the download another request had started. */
+    public static final String CACHE_SHARED = "shared";
+
+    /** Sent to S3 without caching. */
+    public static final String CACHE_BYPASS = "bypass";
+
+    /** Latency of each Iceberg commit, retries included, tagged by {@code table} and {@code operation}. */
+    public static final String ICEBERG_COMMIT = "iceberg.commit";
+
+    /** Iceberg commit attempts that lost a race with another commit, tagged by {@code table} and {@code operation}. */
+    public static final String ICEBERG_COMMIT_CONFLICTS = "iceberg.commit.conflicts";
+
+    private static final String S3_TARGET = "s3";
+
+    private static final String LOCAL_TARGET = "local";
+
+    private static final String STREAM_TARGET = "stream";
+
+    private final MeterRegistry registry;
+
+    public MovieMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Records a transfer of {@code rows} movies that started at {@code startNanos},
+     * returning its duration in milliseconds (at least one).
+     */
+    public long recordTransfer(String path, long rows, long startNanos) {
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        registry.timer(TRANSFER, "path", path).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        registry.counter(TRANSFER_ROWS, "path", path).increment(rows);
+        return Math.max(1L, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+    }
+
+    public void recordParquetWrite(Object outputFile, ParquetFileStats stats) {
+        final var target = target(outputFile);
+        registry.counter(PARQUET_BYTES_WRITTEN, "target", target).increment(stats.dataBytes());
+        registry.counter(PARQUET_ROW_GROUPS, "target", target).increment(stats.rowGroups());
+    }
+
+    public void recordParquetRead(Object inputFile, long bytes) {
+        registry.counter(PARQUET_BYTES_READ, "target", target(inputFile)).increment(bytes);
+    }
+
+    public void recordParquetScan(ParquetScanMetrics scan) {
+        registry.counter(PARQUET_ROW_GROUPS_SKIPPED, "filter", "statistics").increment(scan.skippedByStatistics());
+        registry.counter(PARQUET_ROW_GROUPS_SKIPPED, "filter", "dictionary").increment(scan.skippedByDictionary());
+        registry.counter(PARQUET_ROW_GROUPS_SKIPPED, "filter", "bloom-filter").increment(scan.skippedByBloomFilter());
+        registry.counter(PARQUET_ROW_GROUPS_SKIPPED, "filter", "column-index").increment(scan.skippedByColumnIndex());
+        registry.counter(PARQUET_PAGES_SKIPPED).increment(scan.skippedPages());
+    }
+
+    public void recordObjectsDeleted(String bucket, long objects) {
+        registry.counter(S3_OBJECTS_DELETED, "bucket", bucket).increment(objects);
+    }
+
+    public void recordCacheRequest(String result) {
+        registry.counter(S3_CACHE_REQUESTS, "result", result).increment();
+    }
+
+    public void recordCacheEviction() {
+        registry.counter(S3_CACHE_EVICTIONS).increment();
+    }
+
+    public Timer jdbcFetchTimer(String query) {
+        return registry.timer(JDBC_FETCH, "query", query);
+    }
+
+    /**
+     * Logs the totals of every meter recorded since startup, e.g. at the end of a run.
+     */
+    public void logSummary() {
+        for (var timer : registry.find(TRANSFER).timers()) {
+            final var path = timer.getId().getTag("path");
+            final var rows = registry.find(TRANSFER_ROWS).tag("path", path).counter();
+            final long count = rows == null ? 0 : (long) rows.count();
+            final double seconds = timer.totalTime(TimeUnit.SECONDS);
+            log.info("Summary {} [{}]: {} rows in {} transfers, {} ms ({} rows/s)", TRANSFER, path, count,
+                timer.count(), (long) timer.totalTime(TimeUnit.MILLISECONDS),
+                seconds > 0 ? (long) (count / seconds) : 0);
+        }
+        logCounters(PARQUET_BYTES_WRITTEN);
+        logCounters(PARQUET_ROW_GROUPS);
+        logCounters(PARQUET_BYTES_READ);
+        logCounters(PARQUET_ROW_GROUPS_SKIPPED);
+        logCounters(PARQUET_PAGES_SKIPPED);
+        logTimers(JDBC_FETCH);
+        logTimers(S3_REQUESTS);
+        logCounters(S3_RETRIES);
+        logCounters(S3_OBJECTS_DELETED);
+        logCounters(S3_CACHE_REQUESTS);
+        logCounters(S3_CACHE_EVICTIONS);
+        logTimers(ICEBERG_COMMIT);
+        logCounters(ICEBERG_COMMIT_CONFLICTS);
+    }
+
+    private void logTimers(String name) {
+        for (var timer : registry.find(name).timers()) {
+            log.info("Summary {} {}: count {}, total {} ms, mean {} ms, max {} ms", name, timer.getId().getTags(),
+                timer.count(), (long) timer.totalTime(TimeUnit.MILLISECONDS),
+                String.format("%.1f", timer.mean(TimeUnit.MILLISECONDS)), (long) timer.max(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private void logCounters(String name) {
+        for (Counter counter : registry.find(name).counters()) {
+            log.info("Summary {} {}: {}", name, counter.getId().getTags(), (long) counter.count());
+        }
+    }
+
+    private static String target(Object file) {
+        if (file instanceof S3InputFile || file instanceof S3OutputFile) {
+            return S3_TARGET;
+        }
+        return file instanceof StreamOutputFile ? STREAM_TARGET : LOCAL_TARGET;
+    }
+}
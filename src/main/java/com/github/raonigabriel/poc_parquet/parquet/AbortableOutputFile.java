@@ -0,0 +1,13 @@
+package com.github.raonigabriel.poc_parquet.parquet;
+
+import org.apache.parquet.io.OutputFile;
+
+/**
+ * An {@link OutputFile} whose output can be thrown away instead of finished,
+ * e.g. when the rows being written stopped short. After {@link #abort()} the
+ * stream created last drops its writes and closing it publishes nothing.
+ */
+public interface AbortableOutputFile extends OutputFile {
+
+    void abort();
+}
@@ -0,0 +1,125 @@
+package com.github.raonigabriel.poc_parquet.parquet;
+
+import static com.github.raonigabriel.poc_parquet.service.MovieService.ID_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.NAME_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.RATING_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.RELEASE_DATE_FIELD;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.stream.Stream;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.avro.AvroParquetWriter;
+import org.apache.parquet.avro.AvroWriteSupport;
+import org.apache.parquet.hadoop.ParquetFileWriter.Mode;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.OutputFile;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+/**
+ * Reads and writes movie Parquet files through the Avro object model, one
+ * {@link GenericRecord} per row. Release dates are stored as ISO strings.
+ */
+public final class AvroMovieParquet {
+
+    public static final Schema SCHEMA = SchemaBuilder.record("MovieEntity")
+        .fields()
+        .optionalLong(ID_FIELD)
+        .requiredString(NAME_FIELD)
+        .requiredFloat(RATING_FIELD)
+        .requiredString(RELEASE_DATE_FIELD)
+        .endRecord();
+
+    private AvroMovieParquet() {
+    }
+
+    public static int write(OutputFile outputFile, Stream<MovieEntity> movies, ParquetWriteOptions options) {
+        int count = 0;
+        try (ParquetWriter<GenericRecord> writer = options.applyTo(AvroParquetWriter.<GenericRecord>builder(outputFile)
+                .withSchema(SCHEMA)
+                .withWriteMode(Mode.OVERWRITE)
+                .config(AvroWriteSupport.WRITE_OLD_LIST_STRUCTURE, "false"))
+                .build()) {
+
+            final var iterator = movies.iterator();
+            while (iterator.hasNext()) {
+                writer.write(toRecord(iterator.next()));
+                count++;
+            }
+            return count;
+        } catch (Exception ex) {
+            throw new RuntimeException("Error writing Parquet file", ex);
+        }
+    }
+
+    /**
+     * Lazily reads the file, one record at a time. The returned stream owns the
+     * underlying reader and must be closed by the caller.
+     */
+    public static Stream<MovieEntity> read(InputFile inputFile, Configuration conf) {
+        final ParquetReader<GenericRecord> reader;
+        try {
+            reader = AvroParquetReader.<GenericRecord>builder(inputFile).withConf(conf).build();
+        } catch (IOException ex) {
+            throw new RuntimeException("Error opening Parquet file", ex);
+        }
+        return ParquetStreams.of(reader, AvroMovieParquet::toMovie);
+    }
+
+    public static GenericRecord toRecord(MovieEntity movie) {
+        final GenericRecord movieRecord = new GenericData.Record(SCHEMA);
+        movieRecord.put(ID_FIELD, movie.getId());
+        movieRecord.put(NAME_FIELD, movie.getName());
+        movieRecord.put(RATING_FIELD, movie.getRating());
+        movieRecord.put(RELEASE_DATE_FIELD, movie.getReleaseDate().toString());
+        return movieRecord;
+    }
+
+    /**
+     * Maps a full or projected record, leaving the missing fields null.
+     */
+    public static MovieEntity toMovie(GenericRecord movieRecord) {
+        final MovieEntity movie = new MovieEntity();
+        if (movieRecord.hasField(ID_FIELD)) {
+            movie.setId((Long) movieRecord.get(ID_FIELD));
+        }
+        if (movieRecord.hasField(NAME_FIELD)) {
+            movie.setName(movieRecord.get(NAME_FIELD).toString());
+        }
+        if (movieRecord.hasField(RATING_FIELD)) {
+            movie.setRating((Float) movieRecord.get(RATING_FIELD));
+        }
+        if (movieRecord.hasField(RELEASE_DATE_FIELD)) {
+            // files written by MovieWriteSupport hold the epoch day instead of a string
+            final Object releaseDate = movieRecord.get(RELEASE_DATE_FIELD);
+            movie.setReleaseDate(switch (releaseDate) {
+                case LocalDate date -> date;
+                case Integer epochDay -> LocalDate.ofEpochDay(epochDay);
+                default -> LocalDate.parse(releaseDate.toString());
+            });
+        }
+        return movie;
+    }
+
+    public static Schema project(String... columns) {
+        final var fields = new ArrayList<Schema.Field>();
+        for (var column : columns) {
+            final var field = SCHEMA.getField(column);
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown movie column: " + column);
+            }
+            fields.add(new Schema.Field(field, field.schema()));
+        }
+        return Schema.createRecord(SCHEMA.getName(), null, null, false, fields);
+    }
+}
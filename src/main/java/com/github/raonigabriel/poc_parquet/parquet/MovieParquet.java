@@ -0,0 +1,248 @@
+package com.github.raonigabriel.poc_parquet.parquet;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.ParquetFileWriter.Mode;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.ReadSupport;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+/**
+ * Reads and writes movie Parquet files with {@link MovieWriteSupport} and
+ * {@link MovieReadSupport}, skipping any intermediate object model.
+ */
+public final class MovieParquet {
+
+    private MovieParquet() {
+    }
+
+    public static int write(OutputFile outputFile, Stream<MovieEntity> movies, ParquetWriteOptions options) {
+        return (int) writeWithStats(outputFile, movies, options).rows();
+    }
+
+    /**
+     * Same as {@link #write}, also returning the size and row groups of the file.
+     * When the movies or the writing fail, the file is not finished: an
+     * {@link AbortableOutputFile} is aborted, any other output is left without
+     * its footer, so no truncated but valid file is published.
+     */
+    public static ParquetFileStats writeWithStats(OutputFile outputFile, Stream<MovieEntity> movies,
+            ParquetWriteOptions options) {
+        long count = 0;
+        final var guarded = new GuardedOutputFile(outputFile);
+        final ParquetWriter<MovieEntity> writer;
+        try {
+            writer = options.applyTo(new Builder(guarded).withWriteMode(Mode.OVERWRITE)).build();
+        } catch (IOException ex) {
+            throw new RuntimeException("Error writing Parquet file", ex);
+        }
+        try {
+            final var iterator = movies.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+                count++;
+            }
+        } catch (Exception ex) {
+            abort(guarded, writer, ex);
+            throw new RuntimeException("Error writing Parquet file", ex);
+        }
+        try {
+            writer.close();
+        } catch (IOException ex) {
+            throw new RuntimeException("Error writing Parquet file", ex);
+        }
+        // the footer is only complete once the writer is closed
+        final var blocks = writer.getFooter().getBlocks();
+        long dataBytes = 0;
+        for (var block : blocks) {
+            dataBytes += block.getCompressedSize();
+        }
+        return new ParquetFileStats(count, dataBytes, blocks.size());
+    }
+
+    /**
+     * Drops the rest of the file, then closes the writer only to release its
+     * buffers: what it still flushes goes nowhere.
+     */
+    private static void abort(GuardedOutputFile outputFile, ParquetWriter<MovieEntity> writer, Exception failure) {
+        try {
+            outputFile.abort();
+            writer.close();
+        } catch (IOException | RuntimeException ex) {
+            failure.addSuppressed(ex);
+        }
+    }
+
+    /**
+     * Lazily reads the file, one record at a time. The returned stream owns the
+     * underlying reader and must be closed by the caller. Columns can be
+     * narrowed with {@link MovieReadSupport#setRequestedColumns}.
+     */
+    public static Stream<MovieEntity> read(InputFile inputFile, Configuration conf) {
+        return read(inputFile, conf, false);
+    }
+
+    /**
+     * Same as {@link #read(InputFile, Configuration)}, optionally handing out a
+     * single reused entity. Only safe when each movie is consumed before the next
+     * one is pulled, e.g. when converting to another format.
+     */
+    public static Stream<MovieEntity> read(InputFile inputFile, Configuration conf, boolean reuse) {
+        final ParquetReader<MovieEntity> reader;
+        try {
+            reader = new ReaderBuilder(inputFile, new MovieReadSupport(reuse)).withConf(conf).build();
+        } catch (IOException ex) {
+            throw new RuntimeException("Error opening Parquet file", ex);
+        }
+        return ParquetStreams.of(reader, movie -> movie);
+    }
+
+    /**
+     * Hands out streams that can be cut off, so a failed write never gets its
+     * footer, whatever the output.
+     */
+    private static final class GuardedOutputFile implements OutputFile {
+
+        private final OutputFile delegate;
+
+        private GuardedStream stream;
+
+        GuardedOutputFile(OutputFile delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public PositionOutputStream create(long blockSizeHint) throws IOException {
+            stream = new GuardedStream(delegate.create(blockSizeHint));
+            return stream;
+        }
+
+        @Override
+        public PositionOutputStream createOrOverwrite(long blockSizeHint) throws IOException {
+            stream = new GuardedStream(delegate.createOrOverwrite(blockSizeHint));
+            return stream;
+        }
+
+        @Override
+        public boolean supportsBlockSize() {
+            return delegate.supportsBlockSize();
+        }
+
+        @Override
+        public long defaultBlockSize() {
+            return delegate.defaultBlockSize();
+        }
+
+        @Override
+        public String getPath() {
+            return delegate.getPath();
+        }
+
+        void abort() throws IOException {
+            if (delegate instanceof AbortableOutputFile abortable) {
+                abortable.abort();
+            }
+            if (stream != null) {
+                stream.cutOff();
+            }
+        }
+    }
+
+    private static final class GuardedStream extends PositionOutputStream {
+
+        private final PositionOutputStream delegate;
+
+        private long pos;
+
+        private boolean cutOff;
+
+        GuardedStream(PositionOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * Closes the output as it is, dropping every later write.
+         */
+        void cutOff() throws IOException {
+            if (!cutOff) {
+                cutOff = true;
+                delegate.close();
+            }
+        }
+
+        @Override
+        public long getPos() {
+            return pos;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!cutOff) {
+                delegate.write(b);
+            }
+            pos++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!cutOff) {
+                delegate.write(b, off, len);
+            }
+            pos += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!cutOff) {
+                delegate.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!cutOff) {
+                delegate.close();
+            }
+        }
+    }
+
+    private static final class Builder extends ParquetWriter.Builder<MovieEntity, Builder> {
+
+        Builder(OutputFile outputFile) {
+            super(outputFile);
+        }
+
+        @Override
+        protected Builder self() {
+            return this;
+        }
+
+        @Override
+        protected WriteSupport<MovieEntity> getWriteSupport(Configuration conf) {
+            return new MovieWriteSupport();
+        }
+    }
+
+    private static final class ReaderBuilder extends ParquetReader.Builder<MovieEntity> {
+
+        private final MovieReadSupport readSupport;
+
+        ReaderBuilder(InputFile inputFile, MovieReadSupport readSupport) {
+            super(inputFile);
+            this.readSupport = readSupport;
+        }
+
+        @Override
+        protected ReadSupport<MovieEntity> getReadSupport() {
+            return readSupport;
+        }
+    }
+}
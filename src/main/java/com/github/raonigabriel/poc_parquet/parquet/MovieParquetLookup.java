@@ -0,0 +1,193 @@
+package com.github.raonigabriel.poc_parquet.parquet;
+
+import static com.github.raonigabriel.poc_parquet.service.MovieService.ID_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.NAME_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.RATING_FIELD;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.ParquetReadOptions;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.conf.PlainParquetConfiguration;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.compat.RowGroupFilter;
+import org.apache.parquet.filter2.compat.RowGroupFilter.FilterLevel;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.api.InitContext;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
+import org.apache.parquet.internal.filter2.columnindex.ColumnIndexFilter;
+import org.apache.parquet.internal.filter2.columnindex.ColumnIndexStore;
+import org.apache.parquet.internal.filter2.columnindex.ColumnIndexStore.MissingOffsetIndexException;
+import org.apache.parquet.internal.filter2.columnindex.RowRanges;
+import org.apache.parquet.io.ColumnIOFactory;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.api.Binary;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+/**
+ * Point lookups and filtered scans of movie Parquet files with predicate
+ * pushdown. Row groups are pruned with chunk statistics, then dictionaries,
+ * then bloom filters, and within the remaining ones the column and offset
+ * indexes select the pages that may hold matches. Only those pages are
+ * fetched and decoded; their rows are then checked one by one.
+ * <p>
+ * Equality on {@code id} relies on statistics and page indexes, as files are
+ * written in id order, equality on {@code name} on dictionaries and bloom
+ * filters. Ranges on {@code rating} can only use statistics and page indexes.
+ */
+public final class MovieParquetLookup {
+
+    private MovieParquetLookup() {
+    }
+
+    public static FilterPredicate idEquals(long id) {
+        return FilterApi.eq(FilterApi.longColumn(ID_FIELD), id);
+    }
+
+    public static FilterPredicate nameEquals(String name) {
+        return FilterApi.eq(FilterApi.binaryColumn(NAME_FIELD), Binary.fromString(name));
+    }
+
+    /**
+     * Ratings from {@code min} to {@code max}, both included.
+     */
+    public static FilterPredicate ratingBetween(float min, float max) {
+        return FilterApi.and(
+            FilterApi.gtEq(FilterApi.floatColumn(RATING_FIELD), min),
+            FilterApi.ltEq(FilterApi.floatColumn(RATING_FIELD), max));
+    }
+
+    /**
+     * All the movies matching the predicate, in file order.
+     */
+    public static ParquetScanResult find(InputFile inputFile, FilterPredicate predicate) {
+        final var movies = new ArrayList<MovieEntity>();
+        final var metrics = scan(inputFile, predicate, movies::add);
+        return new ParquetScanResult(movies, metrics);
+    }
+
+    /**
+     * Hands the movies matching the predicate to the sink, in file order,
+     * without holding on to them.
+     */
+    public static ParquetScanMetrics scan(InputFile inputFile, FilterPredicate predicate,
+            Consumer<MovieEntity> sink) {
+        final var filter = FilterCompat.get(predicate);
+        try (var reader = ParquetFileReader.open(inputFile,
+                ParquetReadOptions.builder(new PlainParquetConfiguration()).withUseHadoopVectoredIo(true).build())) {
+            final var fileMetaData = reader.getFooter().getFileMetaData();
+            final var fileSchema = fileMetaData.getSchema();
+            final var rowGroups = reader.getRowGroups();
+            // also rejects predicates on unknown columns or of the wrong type
+            final var afterStatistics = RowGroupFilter.filterRowGroups(List.of(FilterLevel.STATISTICS), filter,
+                rowGroups, reader);
+            final var afterDictionary = RowGroupFilter.filterRowGroups(List.of(FilterLevel.DICTIONARY), filter,
+                afterStatistics, reader);
+            final var afterBloomFilter = RowGroupFilter.filterRowGroups(List.of(FilterLevel.BLOOMFILTER), filter,
+                afterDictionary, reader);
+
+            final var conf = new Configuration(false);
+            final var readSupport = new MovieReadSupport();
+            final var readContext = readSupport.init(new InitContext(conf,
+                toSetMultimap(fileMetaData.getKeyValueMetaData()), fileSchema));
+            final var requestedSchema = readContext.getRequestedSchema();
+            reader.setRequestedSchema(requestedSchema);
+            final var materializer = readSupport.prepareForRead(conf, fileMetaData.getKeyValueMetaData(),
+                fileSchema, readContext);
+            final var columnIO = new ColumnIOFactory(fileMetaData.getCreatedBy())
+                .getColumnIO(requestedSchema, fileSchema, true);
+            final var paths = new HashSet<ColumnPath>();
+            for (var column : fileSchema.getColumns()) {
+                paths.add(ColumnPath.get(column.getPath()));
+            }
+
+            int skippedByColumnIndex = 0;
+            long pages = 0;
+            long pagesRead = 0;
+            long rowsScanned = 0;
+            long rowsReturned = 0;
+            for (var rowGroup : afterBloomFilter) {
+                final int index = rowGroups.indexOf(rowGroup);
+                final var indexes = reader.getColumnIndexStore(index);
+                final var rowRanges = ColumnIndexFilter.calculateRowRanges(filter, indexes, paths,
+                    rowGroup.getRowCount());
+                for (var column : requestedSchema.getColumns()) {
+                    final var pageCount = countPages(indexes, ColumnPath.get(column.getPath()), rowRanges,
+                        rowGroup.getRowCount());
+                    pages += pageCount.total();
+                    pagesRead += pageCount.read();
+                }
+                if (rowRanges.rowCount() == 0) {
+                    skippedByColumnIndex++;
+                    continue;
+                }
+
+                final PageReadStore rowGroupPages = reader.readFilteredRowGroup(index, rowRanges);
+                final var records = columnIO.getRecordReader(rowGroupPages, materializer, filter);
+                final long rows = rowGroupPages.getRowCount();
+                rowsScanned += rows;
+                for (long i = 0; i < rows; i++) {
+                    final var movie = records.read();
+                    // null when the row does not match
+                    if (movie != null && !records.shouldSkipCurrentRecord()) {
+                        sink.accept(movie);
+                        rowsReturned++;
+                    }
+                }
+            }
+            return new ParquetScanMetrics(
+                rowGroups.size(),
+                rowGroups.size() - afterStatistics.size(),
+                afterStatistics.size() - afterDictionary.size(),
+                afterDictionary.size() - afterBloomFilter.size(),
+                skippedByColumnIndex,
+                pages,
+                pages - pagesRead,
+                rowsScanned,
+                rowsReturned);
+        } catch (IOException ex) {
+            throw new RuntimeException("Error reading Parquet file", ex);
+        }
+    }
+
+    /**
+     * Pages of the column chunk, and those holding rows within the ranges.
+     * Files written without offset indexes report no page at all.
+     */
+    private static PageCount countPages(ColumnIndexStore indexes, ColumnPath column, RowRanges rowRanges,
+            long rowCount) {
+        try {
+            final var offsets = indexes.getOffsetIndex(column);
+            int read = 0;
+            for (int page = 0; page < offsets.getPageCount(); page++) {
+                if (rowRanges.isOverlapping(offsets.getFirstRowIndex(page),
+                        offsets.getLastRowIndex(page, rowCount))) {
+                    read++;
+                }
+            }
+            return new PageCount(offsets.getPageCount(), read);
+        } catch (MissingOffsetIndexException ex) {
+            return new PageCount(0, 0);
+        }
+    }
+
+    private static Map<String, Set<String>> toSetMultimap(Map<String, String> keyValueMetaData) {
+        final Map<String, Set<String>> multimap = new HashMap<>();
+        keyValueMetaData.forEach((key, value) -> multimap.put(key, Set.of(value)));
+        return multimap;
+    }
+
+    private record PageCount(int total, int read) {
+    }
+}
@@ -0,0 +1,240 @@
+package com.github.raonigabriel.poc_parquet.parquet;
+
+import static com.github.raonigabriel.poc_parquet.service.MovieService.ID_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.NAME_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.RATING_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.RELEASE_DATE_FIELD;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.column.Dictionary;
+import org.apache.parquet.conf.ParquetConfiguration;
+import org.apache.parquet.hadoop.api.InitContext;
+import org.apache.parquet.hadoop.api.ReadSupport;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.Converter;
+import org.apache.parquet.io.api.GroupConverter;
+import org.apache.parquet.io.api.PrimitiveConverter;
+import org.apache.parquet.io.api.RecordMaterializer;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+/**
+ * Materializes movies straight from the Parquet column converters. Names and
+ * release dates are decoded once per dictionary page and shared between rows.
+ * Release dates are read either as INT32 {@code DATE} or, for files written
+ * by the Avro path, as ISO strings.
+ * <p>
+ * With {@code reuse} on, the same entity is handed out for every row, so the
+ * caller must not keep a reference to it past the next read.
+ */
+public class MovieReadSupport extends ReadSupport<MovieEntity> {
+
+    /**
+     * Comma separated movie fields to read, all of them when unset.
+     */
+    public static final String REQUESTED_COLUMNS = "movies.parquet.columns";
+
+    private static final List<String> FIELDS = List.of(ID_FIELD, NAME_FIELD, RATING_FIELD, RELEASE_DATE_FIELD);
+
+    private final boolean reuse;
+
+    public MovieReadSupport() {
+        this(false);
+    }
+
+    public MovieReadSupport(boolean reuse) {
+        this.reuse = reuse;
+    }
+
+    public static void setRequestedColumns(Configuration conf, String... columns) {
+        for (var column : columns) {
+            if (!FIELDS.contains(column)) {
+                throw new IllegalArgumentException("Unknown movie column: " + column);
+            }
+        }
+        conf.set(REQUESTED_COLUMNS, String.join(",", columns));
+    }
+
+    @Override
+    public ReadContext init(InitContext context) {
+        final String requested = context.getParquetConfiguration().get(REQUESTED_COLUMNS);
+        final List<String> columns = requested == null || requested.isBlank()
+            ? FIELDS
+            : Arrays.asList(requested.split(","));
+
+        final var fileSchema = context.getFileSchema();
+        final var fields = new ArrayList<Type>();
+        for (var field : fileSchema.getFields()) {
+            if (columns.contains(field.getName()) && FIELDS.contains(field.getName())) {
+                fields.add(field);
+            }
+        }
+        return new ReadContext(new MessageType(fileSchema.getName(), fields));
+    }
+
+    @Override
+    public RecordMaterializer<MovieEntity> prepareForRead(Configuration configuration,
+            Map<String, String> keyValueMetaData, MessageType fileSchema, ReadContext readContext) {
+        return new MovieMaterializer(readContext.getRequestedSchema(), reuse);
+    }
+
+    @Override
+    public RecordMaterializer<MovieEntity> prepareForRead(ParquetConfiguration configuration,
+            Map<String, String> keyValueMetaData, MessageType fileSchema, ReadContext readContext) {
+        return new MovieMaterializer(readContext.getRequestedSchema(), reuse);
+    }
+
+    private static final class MovieMaterializer extends RecordMaterializer<MovieEntity> {
+
+        private final MovieConverter root;
+
+        MovieMaterializer(MessageType requestedSchema, boolean reuse) {
+            this.root = new MovieConverter(requestedSchema, reuse);
+        }
+
+        @Override
+        public MovieEntity getCurrentRecord() {
+            return root.current;
+        }
+
+        @Override
+        public GroupConverter getRootConverter() {
+            return root;
+        }
+    }
+
+    private static final class MovieConverter extends GroupConverter {
+
+        private final Converter[] converters;
+
+        private final boolean reuse;
+
+        private MovieEntity current;
+
+        MovieConverter(MessageType schema, boolean reuse) {
+            this.reuse = reuse;
+            this.converters = new Converter[schema.getFieldCount()];
+            for (int i = 0; i < converters.length; i++) {
+                final var field = schema.getType(i);
+                converters[i] = switch (field.getName()) {
+                    case ID_FIELD -> new PrimitiveConverter() {
+                        @Override
+                        public void addLong(long value) {
+                            current.setId(value);
+                        }
+                    };
+                    case NAME_FIELD -> new NameConverter();
+                    case RATING_FIELD -> new PrimitiveConverter() {
+                        @Override
+                        public void addFloat(float value) {
+                            current.setRating(value);
+                        }
+                    };
+                    case RELEASE_DATE_FIELD -> new ReleaseDateConverter(
+                        field.asPrimitiveType().getPrimitiveTypeName() == PrimitiveTypeName.BINARY);
+                    default -> throw new IllegalStateException("Unexpected movie column: " + field.getName());
+                };
+            }
+        }
+
+        @Override
+        public Converter getConverter(int fieldIndex) {
+            return converters[fieldIndex];
+        }
+
+        @Override
+        public void start() {
+            if (reuse && current != null) {
+                current.setId(null);
+                current.setName(null);
+                current.setRating(null);
+                current.setReleaseDate(null);
+            } else {
+                current = new MovieEntity();
+            }
+        }
+
+        @Override
+        public void end() {
+            // the movie is complete, nothing to finish
+        }
+
+        private final class NameConverter extends PrimitiveConverter {
+
+            private String[] names;
+
+            @Override
+            public boolean hasDictionarySupport() {
+                return true;
+            }
+
+            @Override
+            public void setDictionary(Dictionary dictionary) {
+                names = new String[dictionary.getMaxId() + 1];
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = dictionary.decodeToBinary(i).toStringUsingUTF8();
+                }
+            }
+
+            @Override
+            public void addValueFromDictionary(int dictionaryId) {
+                current.setName(names[dictionaryId]);
+            }
+
+            @Override
+            public void addBinary(Binary value) {
+                current.setName(value.toStringUsingUTF8());
+            }
+        }
+
+        private final class ReleaseDateConverter extends PrimitiveConverter {
+
+            private final boolean isoString;
+
+            private LocalDate[] dates;
+
+            ReleaseDateConverter(boolean isoString) {
+                this.isoString = isoString;
+            }
+
+            @Override
+            public boolean hasDictionarySupport() {
+                return true;
+            }
+
+            @Override
+            public void setDictionary(Dictionary dictionary) {
+                dates = new LocalDate[dictionary.getMaxId() + 1];
+                for (int i = 0; i < dates.length; i++) {
+                    dates[i] = isoString
+                        ? LocalDate.parse(dictionary.decodeToBinary(i).toStringUsingUTF8())
+                        : LocalDate.ofEpochDay(dictionary.decodeToInt(i));
+                }
+            }
+
+            @Override
+            public void addValueFromDictionary(int dictionaryId) {
+                current.setReleaseDate(dates[dictionaryId]);
+            }
+
+            @Override
+            public void addInt(int value) {
+                current.setReleaseDate(LocalDate.ofEpochDay(value));
+            }
+
+            @Override
+            public void addBinary(Binary value) {
+                current.setReleaseDate(LocalDate.parse(value.toStringUsingUTF8()));
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.raonigabriel.poc_parquet.parquet;
+
+import static com.github.raonigabriel.poc_parquet.service.MovieService.ID_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.NAME_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.RATING_FIELD;
+import static com.github.raonigabriel.poc_parquet.service.MovieService.RELEASE_DATE_FIELD;
+
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.conf.ParquetConfiguration;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Types;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+/**
+ * Writes movies straight to the {@link RecordConsumer}, without intermediate
+ * records. The release date is stored as an INT32 {@code DATE}.
+ */
+public class MovieWriteSupport extends WriteSupport<MovieEntity> {
+
+    public static final MessageType SCHEMA = Types.buildMessage()
+        .optional(PrimitiveTypeName.INT64).named(ID_FIELD)
+        .required(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named(NAME_FIELD)
+        .required(PrimitiveTypeName.FLOAT).named(RATING_FIELD)
+        .required(PrimitiveTypeName.INT32).as(LogicalTypeAnnotation.dateType()).named(RELEASE_DATE_FIELD)
+        .named("MovieEntity");
+
+    static final int ID_INDEX = 0;
+    static final int NAME_INDEX = 1;
+    static final int RATING_INDEX = 2;
+    static final int RELEASE_DATE_INDEX = 3;
+
+    private RecordConsumer recordConsumer;
+
+    @Override
+    public WriteContext init(Configuration configuration) {
+        return new WriteContext(SCHEMA, Map.of());
+    }
+
+    @Override
+    public WriteContext init(ParquetConfiguration configuration) {
+        return new WriteContext(SCHEMA, Map.of());
+    }
+
+    @Override
+    public void prepareForWrite(RecordConsumer recordConsumer) {
+        this.recordConsumer = recordConsumer;
+    }
+
+    @Override
+    public void write(MovieEntity movie) {
+        recordConsumer.startMessage();
+        if (movie.getId() != null) {
+            recordConsumer.startField(ID_FIELD, ID_INDEX);
+            recordConsumer.addLong(movie.getId());
+            recordConsumer.endField(ID_FIELD, ID_INDEX);
+        }
+        recordConsumer.startField(NAME_FIELD, NAME_INDEX);
+        recordConsumer.addBinary(Binary.fromString(movie.getName()));
+        recordConsumer.endField(NAME_FIELD, NAME_INDEX);
+
+        recordConsumer.startField(RATING_FIELD, RATING_INDEX);
+        recordConsumer.addFloat(movie.getRating());
+        recordConsumer.endField(RATING_FIELD, RATING_INDEX);
+
+        recordConsumer.startField(RELEASE_DATE_FIELD, RELEASE_DATE_INDEX);
+        recordConsumer.addInteger((int) movie.getReleaseDate().toEpochDay());
+        recordConsumer.endField(RELEASE_DATE_FIELD, RELEASE_DATE_INDEX);
+        recordConsumer.endMessage();
+    }
+
+    @Override
+    public String getName() {
+        return "movies";
+    }
+}
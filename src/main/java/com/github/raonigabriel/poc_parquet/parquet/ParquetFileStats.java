@@ -0,0 +1,11 @@
+package com.github.raonigabriel.poc_parquet.parquet;
+
+/**
+ * What a movie Parquet writer flushed, read from the footer once closed.
+ *
+ * @param rows movies written
+ * @param dataBytes compressed bytes of all column chunks, footer excluded
+ * @param rowGroups row groups flushed
+ */
+public record ParquetFileStats(long rows, long dataBytes, int rowGroups) {
+}
@@ -0,0 +1,32 @@
+package com.github.raonigabriel.poc_parquet.parquet;
+
+/**
+ * What a filtered Parquet scan pruned and read. Row groups are pruned in
+ * order by chunk statistics, dictionaries, bloom filters, then column indexes,
+ * each level only seeing the row groups left by the previous ones.
+ *
+ * @param rowGroups row groups of the file
+ * @param skippedByStatistics row groups pruned using the min, max and null count of their chunks
+ * @param skippedByDictionary row groups pruned using the dictionary pages of their chunks
+ * @param skippedByBloomFilter row groups pruned using the bloom filters of their chunks
+ * @param skippedByColumnIndex row groups where the column indexes left no page to read
+ * @param pages data pages of the row groups left after chunk level pruning, all read columns
+ * @param skippedPages pages among those that the column and offset indexes allowed to skip
+ * @param rowsScanned rows of the pages read, checked one by one against the predicate
+ * @param rowsReturned rows matching the predicate
+ */
+public record ParquetScanMetrics(
+    int rowGroups,
+    int skippedByStatistics,
+    int skippedByDictionary,
+    int skippedByBloomFilter,
+    int skippedByColumnIndex,
+    long pages,
+    long skippedPages,
+    long rowsScanned,
+    long rowsReturned) {
+
+    public int skippedRowGroups() {
+        return skippedByStatistics + skippedByDictionary + skippedByBloomFilter + skippedByColumnIndex;
+    }
+}
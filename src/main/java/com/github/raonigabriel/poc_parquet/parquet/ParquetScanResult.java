@@ -0,0 +1,8 @@
+package com.github.raonigabriel.poc_parquet.parquet;
+
+import java.util.List;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+public record ParquetScanResult(List<MovieEntity> movies, ParquetScanMetrics metrics) {
+}
@@ -0,0 +1,46 @@
+package com.github.raonigabriel.poc_parquet.parquet;
+
+import java.io.IOException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.parquet.hadoop.ParquetReader;
+
+/**
+ * Adapts a {@link ParquetReader} to a lazy stream that closes the reader.
+ */
+final class ParquetStreams {
+
+    private ParquetStreams() {
+    }
+
+    static <T, R> Stream<R> of(ParquetReader<T> reader, Function<T, R> mapper) {
+        final var spliterator = new Spliterators.AbstractSpliterator<R>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super R> action) {
+                try {
+                    final T value = reader.read();
+                    if (value == null) {
+                        return false;
+                    }
+                    action.accept(mapper.apply(value));
+                    return true;
+                } catch (IOException ex) {
+                    throw new RuntimeException("Error reading Parquet file", ex);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException ex) {
+                throw new RuntimeException("Error closing Parquet file", ex);
+            }
+        });
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.raonigabriel.poc_parquet.parquet;
+
+import static com.github.raonigabriel.poc_parquet.service.MovieService.NAME_FIELD;
+
+import java.util.Set;
+
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+
+/**
+ * Knobs applied to every movie Parquet writer.
+ * <p>
+ * Besides the chunk statistics, each column chunk gets a column index (min and
+ * max per page) and an offset index (first row per page), so readers can skip
+ * pages as well as row groups. Smaller pages, through {@code pageRowCountLimit},
+ * make that skipping finer at the cost of more page headers. Bloom filters
+ * answer equality lookups on high cardinality columns whose min and max cover
+ * about every value, such as {@code name}. Ids are written in ascending order,
+ * so statistics and page indexes already narrow them down to a single page.
+ *
+ * @param pageRowCountLimit most rows per data page
+ * @param bloomFilterColumns columns getting a bloom filter per row group
+ * @param columnIndexTruncateLength bytes kept of the min and max of binary values in the column index
+ */
+public record ParquetWriteOptions(CompressionCodecName codec, boolean dictionaryEncoding, long rowGroupSize,
+        int pageSize, int pageRowCountLimit, Set<String> bloomFilterColumns, int columnIndexTruncateLength) {
+
+    /** False positive probability of the bloom filters, sized on the distinct values of each row group. */
+    public static final double BLOOM_FILTER_FPP = 0.01;
+
+    public static final ParquetWriteOptions DEFAULTS = new ParquetWriteOptions(CompressionCodecName.GZIP, true,
+        ParquetWriter.DEFAULT_BLOCK_SIZE, ParquetWriter.DEFAULT_PAGE_SIZE,
+        ParquetProperties.DEFAULT_PAGE_ROW_COUNT_LIMIT, Set.of(NAME_FIELD),
+        ParquetProperties.DEFAULT_COLUMN_INDEX_TRUNCATE_LENGTH);
+
+    public ParquetWriteOptions {
+        bloomFilterColumns = Set.copyOf(bloomFilterColumns);
+    }
+
+    public ParquetWriteOptions withCodec(CompressionCodecName codec) {
+        return new ParquetWriteOptions(codec, dictionaryEncoding, rowGroupSize, pageSize, pageRowCountLimit,
+            bloomFilterColumns, columnIndexTruncateLength);
+    }
+
+    public ParquetWriteOptions withDictionaryEncoding(boolean dictionaryEncoding) {
+        return new ParquetWriteOptions(codec, dictionaryEncoding, rowGroupSize, pageSize, pageRowCountLimit,
+            bloomFilterColumns, columnIndexTruncateLength);
+    }
+
+    public ParquetWriteOptions withRowGroupSize(long rowGroupSize) {
+        return new ParquetWriteOptions(codec, dictionaryEncoding, rowGroupSize, pageSize, pageRowCountLimit,
+            bloomFilterColumns, columnIndexTruncateLength);
+    }
+
+    public ParquetWriteOptions withPageRowCountLimit(int pageRowCountLimit) {
+        return new ParquetWriteOptions(codec, dictionaryEncoding, rowGroupSize, pageSize, pageRowCountLimit,
+            bloomFilterColumns, columnIndexTruncateLength);
+    }
+
+    public ParquetWriteOptions withBloomFilterColumns(String... bloomFilterColumns) {
+        return new ParquetWriteOptions(codec, dictionaryEncoding, rowGroupSize, pageSize, pageRowCountLimit,
+            Set.of(bloomFilterColumns), columnIndexTruncateLength);
+    }
+
+    /**
+     * Sets these options on a writer builder, whatever its object model.
+     */
+    public <T, B extends ParquetWriter.Builder<T, B>> B applyTo(B builder) {
+        builder
+            .withDictionaryEncoding(dictionaryEncoding)
+            .withCompressionCodec(codec)
+            .withRowGroupSize(rowGroupSize)
+            .withPageSize(pageSize)
+            .withPageRowCountLimit(pageRowCountLimit)
+            .withStatisticsEnabled(true)
+            .withColumnIndexTruncateLength(columnIndexTruncateLength)
+            .withStatisticsTruncateLength(columnIndexTruncateLength);
+        if (!bloomFilterColumns.isEmpty()) {
+            // sizes each filter on the values actually written instead of the 1 MB maximum
+            builder.withAdaptiveBloomFilterEnabled(true);
+            for (var column : bloomFilterColumns) {
+                builder.withBloomFilterEnabled(column, true)
+                    .withBloomFilterFPP(column, BLOOM_FILTER_FPP);
+            }
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.raonigabriel.poc_parquet.parquet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+
+/**
+ * Parquet {@link OutputFile} writing into an already open stream, such as an
+ * HTTP response body, with no file behind it. Parquet writes strictly forward,
+ * the footer last, so only the position has to be tracked. The stream can be
+ * created once and is left open, its owner closes it.
+ */
+public class StreamOutputFile implements OutputFile {
+
+    private final OutputStream out;
+
+    private final String name;
+
+    private boolean created;
+
+    public StreamOutputFile(OutputStream out, String name) {
+        this.out = out;
+        this.name = name;
+    }
+
+    @Override
+    public PositionOutputStream create(long blockSizeHint) throws IOException {
+        if (created) {
+            throw new IOException("Stream " + name + " was already written");
+        }
+        created = true;
+        return new CountingOutputStream(out);
+    }
+
+    @Override
+    public PositionOutputStream createOrOverwrite(long blockSizeHint) throws IOException {
+        return create(blockSizeHint);
+    }
+
+    @Override
+    public boolean supportsBlockSize() {
+        return false;
+    }
+
+    @Override
+    public long defaultBlockSize() {
+        return 0;
+    }
+
+    @Override
+    public String getPath() {
+        return name;
+    }
+
+    private static final class CountingOutputStream extends PositionOutputStream {
+
+        private final OutputStream out;
+
+        private long pos;
+
+        CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public long getPos() {
+            return pos;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            pos++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            pos += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
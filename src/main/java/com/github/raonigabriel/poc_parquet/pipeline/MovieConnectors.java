@@ -0,0 +1,233 @@
+package com.github.raonigabriel.poc_parquet.pipeline;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.iceberg.catalog.TableIdentifier;
+import org.apache.iceberg.data.IcebergGenerics;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.OutputFile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.raonigabriel.poc_parquet.arrow.MovieArrow;
+import com.github.raonigabriel.poc_parquet.arrow.MovieArrowWriter;
+import com.github.raonigabriel.poc_parquet.csv.MovieCsv;
+import com.github.raonigabriel.poc_parquet.csv.ParallelCsvIngestor;
+import com.github.raonigabriel.poc_parquet.iceberg.IcebergMovieWriter;
+import com.github.raonigabriel.poc_parquet.iceberg.IcebergRecords;
+import com.github.raonigabriel.poc_parquet.iceberg.MoviesCatalog;
+import com.github.raonigabriel.poc_parquet.json.MovieNdjson;
+import com.github.raonigabriel.poc_parquet.local.LocalFiles;
+import com.github.raonigabriel.poc_parquet.parquet.AbortableOutputFile;
+import com.github.raonigabriel.poc_parquet.parquet.ParquetWriteOptions;
+import com.github.raonigabriel.poc_parquet.repository.MovieBulkLoader;
+import com.github.raonigabriel.poc_parquet.repository.MovieRepository;
+import com.github.raonigabriel.poc_parquet.service.MovieService;
+
+/**
+ * The {@link MovieSource}s and {@link MovieSink}s pipelines are built from.
+ * Files and streams are opened lazily, on the thread of the stage using them.
+ * Sinks writing local files or S3 objects only publish them once complete;
+ * streams handed in by the caller are theirs to discard when a pipeline fails.
+ */
+@Component
+public class MovieConnectors {
+
+    private final MovieRepository movieRepository;
+
+    private final MovieBulkLoader movieBulkLoader;
+
+    private final ParallelCsvIngestor csvIngestor;
+
+    private final MoviesCatalog moviesCatalog;
+
+    private final IcebergMovieWriter icebergMovieWriter;
+
+    private final MovieService movieService;
+
+    private final BufferAllocator arrowAllocator;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public MovieConnectors(MovieRepository movieRepository, MovieBulkLoader movieBulkLoader,
+            ParallelCsvIngestor csvIngestor, MoviesCatalog moviesCatalog, IcebergMovieWriter icebergMovieWriter,
+            MovieService movieService, BufferAllocator arrowAllocator, PlatformTransactionManager transactionManager) {
+        this.movieRepository = movieRepository;
+        this.movieService = movieService;
+        this.movieBulkLoader = movieBulkLoader;
+        this.csvIngestor = csvIngestor;
+        this.moviesCatalog = moviesCatalog;
+        this.icebergMovieWriter = icebergMovieWriter;
+        this.arrowAllocator = arrowAllocator;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Streams the movies table through a server side cursor, in a read-only
+     * transaction held by the source thread.
+     */
+    public MovieSource databaseSource() {
+        return consumer -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (var movies = movieRepository.streamAll()) {
+                movies.forEach(consumer);
+            }
+        });
+    }
+
+    /**
+     * Bulk loads with COPY, the database assigning the ids.
+     */
+    public MovieSink databaseSink() {
+        return movies -> movieBulkLoader.copyIn(movies, false);
+    }
+
+    /**
+     * Reads the given columns of a Parquet file (all of them when none is given)
+     * with vectored reads.
+     */
+    public MovieSource parquetSource(InputFile inputFile, String... columns) {
+        return consumer -> {
+            try (var movies = movieService.streamMoviesFromParquet(inputFile, columns)) {
+                movies.forEach(consumer);
+            }
+        };
+    }
+
+    /**
+     * Writes a Parquet file. When the write fails an {@link AbortableOutputFile},
+     * such as a local or S3 one, is aborted rather than finished.
+     */
+    public MovieSink parquetSink(OutputFile outputFile, ParquetWriteOptions options) {
+        return movies -> movieService.writeMoviesToParquet(outputFile, movies, options);
+    }
+
+    /**
+     * Parses the CSV opened by {@code reader} on several cores, keeping the file order.
+     */
+    public MovieSource csvSource(Callable<Reader> reader) {
+        return consumer -> {
+            try (var movies = csvIngestor.stream(reader.call(), true)) {
+                movies.forEach(consumer);
+            }
+        };
+    }
+
+    /**
+     * Writes a CSV with a header line, closing the writer when done.
+     */
+    public MovieSink csvSink(Callable<Writer> writer) {
+        return movies -> MovieCsv.write(writer.call(), movies);
+    }
+
+    /**
+     * Writes a UTF-8 CSV with a header line, replacing the file only once complete.
+     */
+    public MovieSink csvSink(Path file) {
+        return movies -> LocalFiles.replace(file,
+            temporary -> MovieCsv.write(Files.newBufferedWriter(temporary), movies));
+    }
+
+    /**
+     * Writes newline delimited JSON, closing the stream when done.
+     */
+    public MovieSink ndjsonSink(Callable<OutputStream> out) {
+        return movies -> MovieNdjson.write(out.call(), movies);
+    }
+
+    /**
+     * Reads the Arrow IPC stream format, closing the stream when done.
+     */
+    public MovieSource arrowStreamSource(Callable<InputStream> in) {
+        return consumer -> {
+            try (var allocator = arrowAllocator.newChildAllocator("arrow-stream-source", 0, Long.MAX_VALUE)) {
+                MovieArrow.read(MovieArrow.openStream(in.call(), allocator), consumer);
+            }
+        };
+    }
+
+    /**
+     * Reads an Arrow IPC file through memory mappings, without copying its batches.
+     */
+    public MovieSource arrowFileSource(Path file) {
+        return consumer -> {
+            try (var allocator = arrowAllocator.newChildAllocator("arrow-file-source", 0, Long.MAX_VALUE)) {
+                MovieArrow.read(MovieArrow.mapFile(file, allocator), consumer);
+            }
+        };
+    }
+
+    /**
+     * Writes the Arrow IPC stream format, closing the stream when done.
+     */
+    public MovieSink arrowStreamSink(Callable<OutputStream> out) {
+        return movies -> {
+            try (var allocator = arrowAllocator.newChildAllocator("arrow-stream-sink", 0, Long.MAX_VALUE);
+                    var writer = MovieArrowWriter.stream(out.call(), allocator)) {
+                return writer.write(movies);
+            }
+        };
+    }
+
+    /**
+     * Writes an Arrow IPC file, replacing the file if any only once complete.
+     */
+    public MovieSink arrowFileSink(Path file) {
+        return movies -> LocalFiles.replace(file, temporary -> {
+            try (var allocator = arrowAllocator.newChildAllocator("arrow-file-sink", 0, Long.MAX_VALUE);
+                    var writer = MovieArrowWriter.file(temporary, allocator)) {
+                return writer.write(movies);
+            }
+        });
+    }
+
+    /**
+     * Reads the current snapshot of an Iceberg table, with its deletes applied.
+     */
+    public MovieSource icebergSource(TableIdentifier identifier) {
+        return consumer -> {
+            try (var records = IcebergGenerics.read(moviesCatalog.loadTable(identifier)).build()) {
+                for (var movieRecord : records) {
+                    consumer.accept(IcebergRecords.toMovie(movieRecord));
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads the given snapshot of an Iceberg table, with its deletes applied,
+     * unaffected by the commits made while reading.
+     */
+    public MovieSource icebergSource(TableIdentifier identifier, long snapshotId) {
+        return consumer -> {
+            final var table = moviesCatalog.loadTable(identifier);
+            try (var records = IcebergGenerics.read(table).useSnapshot(snapshotId).build()) {
+                for (var movieRecord : records) {
+                    consumer.accept(IcebergRecords.toMovie(movieRecord));
+                }
+            }
+        };
+    }
+
+    /**
+     * Appends to an Iceberg table in one commit, creating the table with the
+     * configured partition spec when missing.
+     */
+    public MovieSink icebergSink(TableIdentifier identifier) {
+        return movies -> {
+            final var table = moviesCatalog.loadOrCreateTable(identifier, MovieService.ICEBERG_SCHEMA,
+                icebergMovieWriter.partitionSpec(MovieService.ICEBERG_SCHEMA));
+            final long count = icebergMovieWriter.append(table, movies);
+            moviesCatalog.refresh(identifier);
+            return count;
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.raonigabriel.poc_parquet.pipeline;
+
+import java.util.stream.Stream;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+/**
+ * Where a {@link Pipeline} writes movies to. Runs on its own virtual thread and
+ * pulls the movies from a lazy stream fed by the previous stage.
+ */
+@FunctionalInterface
+public interface MovieSink {
+
+    /**
+     * Writes the movies, returning how many were written. When a pipeline
+     * fails the stream throws instead of ending; the sink must then throw
+     * too, without finishing its output, so no complete looking file is left
+     * behind.
+     */
+    long write(Stream<MovieEntity> movies) throws Exception;
+}
@@ -0,0 +1,19 @@
+package com.github.raonigabriel.poc_parquet.pipeline;
+
+import java.util.function.Consumer;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+/**
+ * Where a {@link Pipeline} reads movies from. Runs on its own virtual thread,
+ * so it may block on I/O; the consumer blocks in turn while the next stage
+ * is behind.
+ */
+@FunctionalInterface
+public interface MovieSource {
+
+    /**
+     * Reads every movie into the consumer, on the calling thread.
+     */
+    void read(Consumer<MovieEntity> consumer) throws Exception;
+}
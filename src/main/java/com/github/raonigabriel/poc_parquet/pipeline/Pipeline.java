@@ -0,0 +1,32 @@
+package com.github.raonigabriel.poc_parquet.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+/**
+ * A transfer from a source to a sink, through optional conversion stages. Run
+ * by {@link PipelineEngine}, which gives every stage its own virtual thread.
+ */
+public record Pipeline(String name, MovieSource source, List<UnaryOperator<MovieEntity>> stages, MovieSink sink) {
+
+    public Pipeline {
+        stages = List.copyOf(stages);
+    }
+
+    public static Pipeline of(String name, MovieSource source, MovieSink sink) {
+        return new Pipeline(name, source, List.of(), sink);
+    }
+
+    /**
+     * A copy of this pipeline converting every movie with the given function,
+     * after the stages already there.
+     */
+    public Pipeline map(UnaryOperator<MovieEntity> stage) {
+        final var newStages = new ArrayList<>(stages);
+        newStages.add(stage);
+        return new Pipeline(name, source, newStages, sink);
+    }
+}
@@ -0,0 +1,232 @@
+package com.github.raonigabriel.poc_parquet.pipeline;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.raonigabriel.poc_parquet.metrics.MovieMetrics;
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs {@link Pipeline}s on virtual threads. The source, every conversion stage
+ * and the sink get a thread of their own, connected by bounded queues of
+ * {@code pipeline.batch-size} movies, so reading, converting and writing
+ * overlap. A full queue blocks the stage feeding it, which keeps memory
+ * bounded by {@code pipeline.queue-capacity} batches per queue. Each run is
+ * recorded under the pipeline name in {@link MovieMetrics#TRANSFER}.
+ */
+@Slf4j
+@Component
+public class PipelineEngine {
+
+    private static final List<MovieEntity> END_OF_INPUT = Collections.emptyList();
+
+    private final int batchSize;
+
+    private final int queueCapacity;
+
+    private final MovieMetrics movieMetrics;
+
+    public PipelineEngine(@Value("${pipeline.batch-size:1024}") int batchSize,
+            @Value("${pipeline.queue-capacity:8}") int queueCapacity, MovieMetrics movieMetrics) {
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.movieMetrics = movieMetrics;
+    }
+
+    /**
+     * Runs the pipelines concurrently and waits for all of them. A failing
+     * pipeline does not stop the others; its error is thrown once they are all
+     * done, with the errors of other failed pipelines suppressed.
+     */
+    public List<PipelineResult> runAll(List<Pipeline> pipelines) {
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            final var futures = new ArrayList<Future<PipelineResult>>(pipelines.size());
+            for (var pipeline : pipelines) {
+                futures.add(executor.submit(() -> run(pipeline)));
+            }
+            final var results = new ArrayList<PipelineResult>(pipelines.size());
+            RuntimeException failure = null;
+            for (var future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException ex) {
+                    final var cause = ex.getCause() instanceof RuntimeException runtime
+                        ? runtime
+                        : new IllegalStateException("Error running pipeline", ex.getCause());
+                    if (failure == null) {
+                        failure = cause;
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                } catch (InterruptedException ex) {
+                    futures.forEach(pending -> pending.cancel(true));
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while running pipelines", ex);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Runs one pipeline to completion. When any stage fails, the others are
+     * interrupted and the failure is thrown.
+     */
+    public PipelineResult run(Pipeline pipeline) {
+        final long start = System.nanoTime();
+        final var stages = pipeline.stages();
+        final var queues = new ArrayList<BlockingQueue<List<MovieEntity>>>(stages.size() + 1);
+        for (int i = 0; i <= stages.size(); i++) {
+            queues.add(new ArrayBlockingQueue<>(queueCapacity));
+        }
+
+        final var threads = Thread.ofVirtual().name(pipeline.name() + "-", 0).factory();
+        try (var executor = Executors.newThreadPerTaskExecutor(threads)) {
+            final var completion = new ExecutorCompletionService<Long>(executor);
+            final var futures = new ArrayList<Future<Long>>(stages.size() + 2);
+            final var read = new AtomicLong();
+            futures.add(completion.submit(() -> read(pipeline.source(), queues.get(0), read)));
+            for (int i = 0; i < stages.size(); i++) {
+                final var stage = stages.get(i);
+                final var in = queues.get(i);
+                final var out = queues.get(i + 1);
+                futures.add(completion.submit(() -> convert(stage, in, out)));
+            }
+            final var sink = completion.submit(() -> pipeline.sink().write(drain(queues.get(stages.size()))));
+            futures.add(sink);
+
+            long written = 0;
+            while (true) {
+                final var done = completion.take();
+                try {
+                    written = done.get();
+                } catch (ExecutionException ex) {
+                    futures.forEach(future -> future.cancel(true));
+                    throw new IllegalStateException("Error running pipeline " + pipeline.name(), ex.getCause());
+                }
+                if (done == sink) {
+                    break;
+                }
+            }
+            // the sink may stop before the end of the input, release the stages still feeding it
+            futures.forEach(future -> future.cancel(true));
+
+            movieMetrics.recordTransfer(pipeline.name(), written, start);
+            final var result = new PipelineResult(pipeline.name(), read.get(), written,
+                Duration.ofNanos(System.nanoTime() - start));
+            log.info("Pipeline {} read {} and wrote {} movies in {} ms ({} rows/s)", result.name(), result.read(),
+                result.written(), result.elapsed().toMillis(), result.rowsPerSecond());
+            return result;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running pipeline " + pipeline.name(), ex);
+        }
+    }
+
+    private long read(MovieSource source, BlockingQueue<List<MovieEntity>> out, AtomicLong read) throws Exception {
+        final var batcher = new Batcher(out, read);
+        source.read(batcher);
+        batcher.finish();
+        return read.get();
+    }
+
+    private long convert(UnaryOperator<MovieEntity> stage, BlockingQueue<List<MovieEntity>> in,
+            BlockingQueue<List<MovieEntity>> out) throws InterruptedException {
+        long count = 0;
+        List<MovieEntity> batch;
+        while ((batch = in.take()) != END_OF_INPUT) {
+            batch.replaceAll(stage);
+            out.put(batch);
+            count += batch.size();
+        }
+        out.put(END_OF_INPUT);
+        return count;
+    }
+
+    private static Stream<MovieEntity> drain(BlockingQueue<List<MovieEntity>> in) {
+        final var batches = new Spliterators.AbstractSpliterator<List<MovieEntity>>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            @Override
+            public boolean tryAdvance(Consumer<? super List<MovieEntity>> action) {
+                try {
+                    final var batch = in.take();
+                    if (batch == END_OF_INPUT) {
+                        return false;
+                    }
+                    action.accept(batch);
+                    return true;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Pipeline cancelled");
+                }
+            }
+        };
+        return StreamSupport.stream(batches, false).flatMap(List::stream);
+    }
+
+    /**
+     * Groups the movies pushed by a source into batches for the next queue.
+     */
+    private final class Batcher implements Consumer<MovieEntity> {
+
+        private final BlockingQueue<List<MovieEntity>> out;
+
+        private final AtomicLong read;
+
+        private List<MovieEntity> batch = new ArrayList<>(batchSize);
+
+        Batcher(BlockingQueue<List<MovieEntity>> out, AtomicLong read) {
+            this.out = out;
+            this.read = read;
+        }
+
+        @Override
+        public void accept(MovieEntity movie) {
+            batch.add(movie);
+            if (batch.size() == batchSize) {
+                put(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+
+        void finish() {
+            if (!batch.isEmpty()) {
+                put(batch);
+            }
+            put(END_OF_INPUT);
+        }
+
+        private void put(List<MovieEntity> movies) {
+            try {
+                out.put(movies);
+                read.addAndGet(movies.size());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Pipeline cancelled");
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.raonigabriel.poc_parquet.pipeline;
+
+import java.time.Duration;
+
+/**
+ * What a {@link Pipeline} moved.
+ *
+ * @param name name of the pipeline
+ * @param read movies read from the source
+ * @param written movies the sink reported as written
+ * @param elapsed time from starting the source to the sink finishing
+ */
+public record PipelineResult(String name, long read, long written, Duration elapsed) {
+
+    public long rowsPerSecond() {
+        return written * 1000L / Math.max(1L, elapsed.toMillis());
+    }
+}
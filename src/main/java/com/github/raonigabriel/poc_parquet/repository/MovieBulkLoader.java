@@ -0,0 +1,129 @@
+package com.github.raonigabriel.poc_parquet.repository;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads movies with {@code COPY ... FROM STDIN (FORMAT BINARY)}, committing
+ * every {@code movies.copy.chunk-size} rows. It runs on its own connection,
+ * outside of any Spring managed transaction.
+ */
+@Slf4j
+@Repository
+public class MovieBulkLoader {
+
+    private static final String COPY_WITHOUT_IDS = "COPY movies (name, rating, release_date) FROM STDIN (FORMAT BINARY)";
+    private static final String COPY_WITH_IDS = "COPY movies (id, name, rating, release_date) FROM STDIN (FORMAT BINARY)";
+    private static final String RESET_SEQUENCE = "SELECT setval(pg_get_serial_sequence('movies', 'id'), (SELECT COALESCE(MAX(id), 1) FROM movies))";
+
+    private static final byte[] BINARY_SIGNATURE = "PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1);
+    private static final LocalDate PG_EPOCH = LocalDate.of(2000, 1, 1);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DataSource dataSource;
+
+    private final int chunkSize;
+
+    public MovieBulkLoader(DataSource dataSource, @Value("${movies.copy.chunk-size:50000}") int chunkSize) {
+        this.dataSource = dataSource;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Copies the movies into the table. When {@code keepIds} is false the ids
+     * are assigned by the table sequence, otherwise they are copied as is and
+     * the sequence is moved past the highest id afterwards.
+     */
+    public long copyIn(Stream<MovieEntity> movies, boolean keepIds) {
+        long count = 0;
+        try (Connection conn = dataSource.getConnection()) {
+            final boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                final var pgConnection = conn.unwrap(PGConnection.class);
+                final var iterator = movies.iterator();
+                while (iterator.hasNext()) {
+                    count += copyChunk(pgConnection, iterator, keepIds);
+                    conn.commit();
+                    log.debug("Committed {} movies with COPY", count);
+                }
+                if (keepIds) {
+                    try (var stmt = conn.createStatement()) {
+                        stmt.execute(RESET_SEQUENCE);
+                    }
+                    conn.commit();
+                }
+            } catch (SQLException | IOException | RuntimeException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+            return count;
+        } catch (SQLException | IOException ex) {
+            throw new RuntimeException("Error copying movies to PG after " + count + " rows", ex);
+        }
+    }
+
+    private long copyChunk(PGConnection pgConnection, Iterator<MovieEntity> iterator, boolean keepIds)
+            throws SQLException, IOException {
+        final var copyStream = new PGCopyOutputStream(pgConnection, keepIds ? COPY_WITH_IDS : COPY_WITHOUT_IDS, BUFFER_SIZE);
+        try {
+            final var out = new DataOutputStream(copyStream);
+            out.write(BINARY_SIGNATURE);
+            out.writeInt(0); // flags
+            out.writeInt(0); // header extension length
+            int rows = 0;
+            while (rows < chunkSize && iterator.hasNext()) {
+                writeTuple(out, iterator.next(), keepIds);
+                rows++;
+            }
+            out.writeShort(-1); // trailer
+            out.flush();
+            return copyStream.endCopy();
+        } catch (SQLException | IOException | RuntimeException ex) {
+            if (copyStream.isActive()) {
+                copyStream.cancelCopy();
+            }
+            throw ex;
+        }
+    }
+
+    private static void writeTuple(DataOutputStream out, MovieEntity movie, boolean keepIds) throws IOException {
+        out.writeShort(keepIds ? 4 : 3);
+        if (keepIds) {
+            if (movie.getId() == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(Long.BYTES);
+                out.writeLong(movie.getId());
+            }
+        }
+        final byte[] name = movie.getName().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(name.length);
+        out.write(name);
+        // rating is a FLOAT8 column
+        out.writeInt(Double.BYTES);
+        out.writeDouble(movie.getRating());
+        out.writeInt(Integer.BYTES);
+        out.writeInt((int) ChronoUnit.DAYS.between(PG_EPOCH, movie.getReleaseDate()));
+    }
+}
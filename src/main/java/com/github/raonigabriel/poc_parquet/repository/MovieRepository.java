@@ -8,7 +8,8 @@ import org.springframework.stereotype.Repository;
 import com.github.raonigabriel.poc_parquet.model.MovieEntity;
 
 @Repository
-public interface MovieRepository extends ListCrudRepository<MovieEntity, Long> {
+public interface MovieRepository extends ListCrudRepository<MovieEntity, Long>, MovieStreamingRepository,
+        MovieUpsertRepository {
 
     @Modifying
     @Query("DELETE FROM movies WHERE id > :id")
@@ -0,0 +1,152 @@
+package com.github.raonigabriel.poc_parquet.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads the movies table in parallel, split into id ranges. Each shard streams
+ * its range on its own connection and virtual thread, in a read-only
+ * REPEATABLE READ transaction importing the snapshot exported by a
+ * coordinating transaction with {@code pg_export_snapshot()}. All shards thus
+ * see the table as of the same instant, as a single cursor would. The
+ * coordinator stays open until every shard is done, so the pool must allow
+ * {@code shards + 1} connections.
+ * <p>
+ * The span from the lowest to the highest id is split evenly, which balances
+ * the shards as long as the ids are dense, as sequence ids are.
+ */
+@Slf4j
+@Repository
+public class MovieShardedExtractor {
+
+    private static final String EXPORT_SNAPSHOT = "SELECT pg_export_snapshot()";
+
+    private static final String ID_BOUNDS = "SELECT MIN(id), MAX(id) FROM movies WHERE id > ?";
+
+    private final MovieRepository movieRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate snapshotTransaction;
+
+    public MovieShardedExtractor(MovieRepository movieRepository, DataSource dataSource,
+            PlatformTransactionManager transactionManager) {
+        this.movieRepository = movieRepository;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Hands the movies with an id above {@code afterId} to the writer, one
+     * stream per shard, returning what it returned for each shard in id order.
+     * Fewer shards are used when there are fewer ids than shards. When a shard
+     * fails, the others are interrupted and the failure is thrown.
+     */
+    public <T> List<T> extract(long afterId, int shards, ShardWriter<T> writer) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("At least one shard is needed, got " + shards);
+        }
+        return snapshotTransaction.execute(status -> {
+            final var snapshotId = jdbcTemplate.queryForObject(EXPORT_SNAPSHOT, String.class);
+            final var ranges = jdbcTemplate.queryForObject(ID_BOUNDS, (rs, rowNum) -> {
+                final var firstId = rs.getObject(1, Long.class);
+                return firstId == null ? List.<Shard>of() : Shard.split(firstId, rs.getLong(2), shards);
+            }, afterId);
+            log.debug("Extracting movies above id {} in {} shards from snapshot {}", afterId, ranges.size(),
+                snapshotId);
+            return run(snapshotId, ranges, writer);
+        });
+    }
+
+    private <T> List<T> run(String snapshotId, List<Shard> shards, ShardWriter<T> writer) {
+        final var threads = Thread.ofVirtual().name("movies-shard-", 0).factory();
+        try (var executor = Executors.newThreadPerTaskExecutor(threads)) {
+            final var futures = new ArrayList<Future<T>>(shards.size());
+            for (var shard : shards) {
+                futures.add(executor.submit(() -> snapshotTransaction.execute(
+                    status -> read(snapshotId, shard, writer))));
+            }
+            final var results = new ArrayList<T>(shards.size());
+            for (var future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException ex) {
+                    futures.forEach(pending -> pending.cancel(true));
+                    throw ex.getCause() instanceof RuntimeException runtime
+                        ? runtime
+                        : new IllegalStateException("Error extracting movies", ex.getCause());
+                } catch (InterruptedException ex) {
+                    futures.forEach(pending -> pending.cancel(true));
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while extracting movies", ex);
+                }
+            }
+            return results;
+        }
+    }
+
+    private <T> T read(String snapshotId, Shard shard, ShardWriter<T> writer) {
+        // has to come before any query of the transaction. The id comes from
+        // the server and cannot be passed as a parameter
+        jdbcTemplate.execute("SET TRANSACTION SNAPSHOT '" + snapshotId + "'");
+        try (var movies = movieRepository.streamAllByIdBetween(shard.firstId(), shard.lastId())) {
+            return writer.write(shard, movies);
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error extracting shard " + shard, ex);
+        }
+    }
+
+    /**
+     * A range of ids read by one connection.
+     *
+     * @param index position of the shard, from 0, in id order
+     * @param firstId lowest id of the range
+     * @param lastId highest id of the range, included
+     */
+    public record Shard(int index, long firstId, long lastId) {
+
+        /**
+         * Splits the ids from {@code firstId} to {@code lastId} into up to
+         * {@code count} contiguous ranges of the same length, the last one
+         * maybe shorter.
+         */
+        static List<Shard> split(long firstId, long lastId, int count) {
+            final long length = Math.max(1, Math.ceilDiv(lastId - firstId + 1, count));
+            final var shards = new ArrayList<Shard>(count);
+            for (long first = firstId; first <= lastId; first += length) {
+                shards.add(new Shard(shards.size(), first, Math.min(lastId, first + length - 1)));
+            }
+            return shards;
+        }
+    }
+
+    /**
+     * Writes the movies of one shard, on the thread reading them.
+     */
+    @FunctionalInterface
+    public interface ShardWriter<T> {
+
+        T write(Shard shard, Stream<MovieEntity> movies) throws Exception;
+    }
+}
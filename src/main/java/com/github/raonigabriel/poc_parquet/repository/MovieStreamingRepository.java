@@ -0,0 +1,26 @@
+package com.github.raonigabriel.poc_parquet.repository;
+
+import java.util.stream.Stream;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+/**
+ * Cursor based reads of the movies table. The returned streams hold an open
+ * JDBC cursor and must be consumed inside a transaction and closed afterwards.
+ */
+public interface MovieStreamingRepository {
+
+    Stream<MovieEntity> streamAll();
+
+    /**
+     * Movies with an id above the given one, in id order.
+     */
+    Stream<MovieEntity> streamAllByIdGreaterThan(long id);
+
+    /**
+     * Movies with an id from {@code firstId} to {@code lastId}, both included,
+     * in id order.
+     */
+    Stream<MovieEntity> streamAllByIdBetween(long firstId, long lastId);
+
+}
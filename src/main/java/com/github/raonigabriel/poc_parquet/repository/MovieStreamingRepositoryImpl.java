@@ -0,0 +1,162 @@
+package com.github.raonigabriel.poc_parquet.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import com.github.raonigabriel.poc_parquet.metrics.MovieMetrics;
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * PostgreSQL only uses a server side cursor when autocommit is off and a fetch
+ * size is set, so callers must run inside a transaction. Otherwise the driver
+ * buffers the whole result set.
+ * <p>
+ * Rows are pulled the way {@code JdbcTemplate#queryForStream} does, also
+ * timing the driver calls into {@link MovieMetrics#JDBC_FETCH}, one sample per
+ * fetch of {@code movies.jdbc.fetch-size} rows. Mapping the rows and whatever
+ * the consumer does with them are not included.
+ */
+public class MovieStreamingRepositoryImpl implements MovieStreamingRepository {
+
+    private static final String SELECT_MOVIES = "SELECT id, name, rating, release_date FROM movies";
+
+    private final DataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final int fetchSize;
+
+    private final MovieMetrics movieMetrics;
+
+    public MovieStreamingRepositoryImpl(DataSource dataSource, @Value("${movies.jdbc.fetch-size:1000}") int fetchSize,
+            MovieMetrics movieMetrics) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.fetchSize = fetchSize;
+        this.movieMetrics = movieMetrics;
+    }
+
+    @Override
+    public Stream<MovieEntity> streamAll() {
+        return stream("streamAll", SELECT_MOVIES + " ORDER BY id");
+    }
+
+    @Override
+    public Stream<MovieEntity> streamAllByIdGreaterThan(long id) {
+        return stream("streamAllByIdGreaterThan", SELECT_MOVIES + " WHERE id > ? ORDER BY id", id);
+    }
+
+    @Override
+    public Stream<MovieEntity> streamAllByIdBetween(long firstId, long lastId) {
+        return stream("streamAllByIdBetween", SELECT_MOVIES + " WHERE id BETWEEN ? AND ? ORDER BY id", firstId,
+            lastId);
+    }
+
+    static MovieEntity mapRow(ResultSet rs, int rowNum) throws SQLException {
+        final var movie = new MovieEntity();
+        movie.setId(rs.getLong(1));
+        movie.setName(rs.getString(2));
+        movie.setRating(rs.getFloat(3));
+        movie.setReleaseDate(rs.getObject(4, LocalDate.class));
+        return movie;
+    }
+
+    private Stream<MovieEntity> stream(String query, String sql, Object... args) {
+        final var timer = movieMetrics.jdbcFetchTimer(query);
+        final Connection connection = DataSourceUtils.getConnection(dataSource);
+        PreparedStatement statement = null;
+        try {
+            statement = connection.prepareStatement(sql);
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            final long start = System.nanoTime();
+            // the driver fetches the first rows right away
+            final var rs = statement.executeQuery();
+            final var rows = new TimedRows(rs, timer, System.nanoTime() - start);
+            final var openStatement = statement;
+            return StreamSupport.stream(rows, false).onClose(() -> {
+                rows.flush();
+                JdbcUtils.closeResultSet(rs);
+                JdbcUtils.closeStatement(openStatement);
+                DataSourceUtils.releaseConnection(connection, dataSource);
+            });
+        } catch (SQLException ex) {
+            JdbcUtils.closeStatement(statement);
+            DataSourceUtils.releaseConnection(connection, dataSource);
+            throw translate(query, sql, ex);
+        }
+    }
+
+    private RuntimeException translate(String query, String sql, SQLException ex) {
+        final var translated = jdbcTemplate.getExceptionTranslator().translate(query, sql, ex);
+        return translated != null ? translated : new IllegalStateException("Error streaming movies", ex);
+    }
+
+    /**
+     * Maps the rows one at a time, adding up the time spent in
+     * {@link ResultSet#next()} and recording it once per fetch.
+     */
+    private final class TimedRows extends Spliterators.AbstractSpliterator<MovieEntity> {
+
+        private final ResultSet rs;
+
+        private final Timer timer;
+
+        private long fetchNanos;
+
+        private int rowNum;
+
+        TimedRows(ResultSet rs, Timer timer, long fetchNanos) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.rs = rs;
+            this.timer = timer;
+            this.fetchNanos = fetchNanos;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super MovieEntity> action) {
+            try {
+                final long start = System.nanoTime();
+                final boolean hasRow = rs.next();
+                fetchNanos += System.nanoTime() - start;
+                if (!hasRow) {
+                    return false;
+                }
+                action.accept(mapRow(rs, rowNum++));
+                if (rowNum % fetchSize == 0) {
+                    flush();
+                }
+                return true;
+            } catch (SQLException ex) {
+                throw translate("next", "ResultSet.next()", ex);
+            }
+        }
+
+        void flush() {
+            if (fetchNanos > 0) {
+                timer.record(fetchNanos, TimeUnit.NANOSECONDS);
+                fetchNanos = 0;
+            }
+        }
+    }
+}
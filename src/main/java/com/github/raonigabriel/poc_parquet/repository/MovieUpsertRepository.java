@@ -0,0 +1,15 @@
+package com.github.raonigabriel.poc_parquet.repository;
+
+import java.util.List;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+/**
+ * Idempotent batch writes: movies with an id replace the row with that id,
+ * movies without one replace the row with the same name.
+ */
+public interface MovieUpsertRepository {
+
+    int upsertAll(List<MovieEntity> movies);
+
+}
@@ -0,0 +1,52 @@
+package com.github.raonigabriel.poc_parquet.repository;
+
+import java.sql.Date;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+
+/**
+ * Runs in the caller's transaction. Rows with an explicit id move the id
+ * sequence past the highest id afterwards.
+ */
+public class MovieUpsertRepositoryImpl implements MovieUpsertRepository {
+
+    private static final String UPSERT_BY_ID = "INSERT INTO movies (id, name, rating, release_date) VALUES (?, ?, ?, ?) "
+        + "ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, rating = EXCLUDED.rating, release_date = EXCLUDED.release_date";
+    private static final String UPSERT_BY_NAME = "INSERT INTO movies (name, rating, release_date) VALUES (?, ?, ?) "
+        + "ON CONFLICT (name) DO UPDATE SET rating = EXCLUDED.rating, release_date = EXCLUDED.release_date";
+    private static final String RESET_SEQUENCE = "SELECT setval(pg_get_serial_sequence('movies', 'id'), (SELECT COALESCE(MAX(id), 1) FROM movies))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MovieUpsertRepositoryImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public int upsertAll(List<MovieEntity> movies) {
+        final var withIds = movies.stream().filter(movie -> movie.getId() != null).toList();
+        final var withoutIds = movies.stream().filter(movie -> movie.getId() == null).toList();
+        if (!withIds.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_BY_ID, withIds, withIds.size(), (ps, movie) -> {
+                ps.setLong(1, movie.getId());
+                ps.setString(2, movie.getName());
+                ps.setDouble(3, movie.getRating());
+                ps.setDate(4, Date.valueOf(movie.getReleaseDate()));
+            });
+            jdbcTemplate.queryForObject(RESET_SEQUENCE, Long.class);
+        }
+        if (!withoutIds.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_BY_NAME, withoutIds, withoutIds.size(), (ps, movie) -> {
+                ps.setString(1, movie.getName());
+                ps.setDouble(2, movie.getRating());
+                ps.setDate(3, Date.valueOf(movie.getReleaseDate()));
+            });
+        }
+        return movies.size();
+    }
+}
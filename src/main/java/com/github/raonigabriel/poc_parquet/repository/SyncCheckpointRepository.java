@@ -0,0 +1,40 @@
+package com.github.raonigabriel.poc_parquet.repository;
+
+import java.util.OptionalLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Last applied position of each incremental sync, e.g. an Iceberg snapshot id.
+ * Saving it in the same transaction as the synced rows makes a restart resume
+ * right after the last committed step.
+ */
+@Repository
+public class SyncCheckpointRepository {
+
+    private static final String SELECT_CHECKPOINT = "SELECT snapshot_id FROM sync_checkpoints WHERE name = ?";
+    private static final String UPSERT_CHECKPOINT = "INSERT INTO sync_checkpoints (name, snapshot_id, updated_at) VALUES (?, ?, now()) "
+        + "ON CONFLICT (name) DO UPDATE SET snapshot_id = EXCLUDED.snapshot_id, updated_at = EXCLUDED.updated_at";
+    private static final String DELETE_CHECKPOINT = "DELETE FROM sync_checkpoints WHERE name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SyncCheckpointRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public OptionalLong find(String name) {
+        return jdbcTemplate.query(SELECT_CHECKPOINT, rs -> rs.next() ? OptionalLong.of(rs.getLong(1)) : OptionalLong.empty(), name);
+    }
+
+    public void save(String name, long snapshotId) {
+        jdbcTemplate.update(UPSERT_CHECKPOINT, name, snapshotId);
+    }
+
+    public void delete(String name) {
+        jdbcTemplate.update(DELETE_CHECKPOINT, name);
+    }
+}
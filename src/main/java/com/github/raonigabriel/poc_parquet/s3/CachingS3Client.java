@@ -0,0 +1,304 @@
+package com.github.raonigabriel.poc_parquet.s3;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.DelegatingS3Client;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * {@link S3Client} serving GetObject from an {@link S3ObjectCache}. Every other
+ * operation goes straight to S3.
+ * <p>
+ * Only whole-object GETs fill the cache. When a copy of the object is cached,
+ * the GET is sent with {@code If-None-Match} on its ETag, so a current copy
+ * costs one request without a body; otherwise the response body is copied
+ * into the cache as it is read. Ranged GETs are served from the cache only
+ * when they carry an {@code If-Match} ETag, as {@link S3InputFile} sends, whose
+ * copy is already cached. Any other ranged GET passes through untouched, so
+ * projected and page-skipping Parquet reads transfer only what they ask for.
+ * Objects above the cache size limit, multi-range and other conditional
+ * requests, and SSE-C objects bypass the cache.
+ */
+@Slf4j
+public class CachingS3Client extends DelegatingS3Client {
+
+    private static final int NOT_MODIFIED = 304;
+
+    private final S3Client s3Client;
+
+    private final S3ObjectCache cache;
+
+    public CachingS3Client(S3Client s3Client, S3ObjectCache cache) {
+        super(s3Client);
+        this.s3Client = s3Client;
+        this.cache = cache;
+    }
+
+    @Override
+    public <ReturnT> ReturnT getObject(GetObjectRequest request,
+            ResponseTransformer<GetObjectResponse, ReturnT> transformer) {
+        if (!isCacheable(request)) {
+            return bypass(request, transformer);
+        }
+        if (request.ifMatch() != null) {
+            final var cached = open(cache.find(request.bucket(), request.key(), request.ifMatch()), request,
+                request.ifMatch());
+            if (cached != null) {
+                return transform(transformer, cached.response(), cached.in());
+            }
+        }
+        return request.range() == null ? getWhole(request, transformer) : bypass(request, transformer);
+    }
+
+    private <ReturnT> ReturnT getWhole(GetObjectRequest request,
+            ResponseTransformer<GetObjectResponse, ReturnT> transformer) {
+        final var knownETag = request.ifMatch() == null && request.versionId() == null
+            ? cache.latestETag(request.bucket(), request.key())
+            : null;
+        if (knownETag != null) {
+            try {
+                return fill(request, s3Client.getObject(request.toBuilder().ifNoneMatch(knownETag).build()),
+                    transformer);
+            } catch (S3Exception ex) {
+                if (ex.statusCode() != NOT_MODIFIED) {
+                    throw ex;
+                }
+            }
+            final var cached = open(cache.find(request.bucket(), request.key(), knownETag), request, knownETag);
+            if (cached != null) {
+                return transform(transformer, cached.response(), cached.in());
+            }
+        }
+        return fill(request, s3Client.getObject(request), transformer);
+    }
+
+    /**
+     * Copies the body into the cache and serves it from there, unless it is
+     * too large to be cached or another thread already cached that ETag.
+     */
+    private <ReturnT> ReturnT fill(GetObjectRequest request, ResponseInputStream<GetObjectResponse> in,
+            ResponseTransformer<GetObjectResponse, ReturnT> transformer) {
+        final var response = in.response();
+        if (response.eTag() == null || response.contentLength() == null
+                || !cache.accepts(response.contentLength())) {
+            cache.recordBypass();
+            return transform(transformer, response, in);
+        }
+        final var copied = new AtomicBoolean();
+        final Path file;
+        try {
+            file = cache.get(request.bucket(), request.key(), response.eTag(), response.contentLength(), target -> {
+                Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+                copied.set(true);
+            });
+        } finally {
+            if (!copied.get()) {
+                // cached by another thread meanwhile, or failed: do not drain the body
+                in.abort();
+            }
+            closeQuietly(in);
+        }
+        if (copied.get()) {
+            log.debug("Cached s3://{}/{} ({})", request.bucket(), request.key(), response.eTag());
+        }
+        final var cached = open(file, request, response.eTag());
+        return cached == null
+            ? s3Client.getObject(request, transformer)
+            : transform(transformer, cached.response(), cached.in());
+    }
+
+    /**
+     * The requested bytes of a cached copy, null when there is no copy, it was
+     * evicted before it could be opened or the range is not satisfiable.
+     */
+    private static CachedRead open(Path file, GetObjectRequest request, String eTag) {
+        if (file == null) {
+            return null;
+        }
+        try {
+            final long objectSize = Files.size(file);
+            final var range = Range.parse(request.range(), objectSize);
+            return range == null ? null : new CachedRead(open(file, range), response(request, eTag, objectSize, range));
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException ex) {
+            throw SdkClientException.create("Error reading cached S3 object " + file, ex);
+        }
+    }
+
+    private <ReturnT> ReturnT bypass(GetObjectRequest request,
+            ResponseTransformer<GetObjectResponse, ReturnT> transformer) {
+        cache.recordBypass();
+        return s3Client.getObject(request, transformer);
+    }
+
+    private static boolean isCacheable(GetObjectRequest request) {
+        return request.partNumber() == null
+            && request.sseCustomerKey() == null
+            && request.ifNoneMatch() == null
+            && request.ifModifiedSince() == null
+            && request.ifUnmodifiedSince() == null
+            && (request.range() == null || !request.range().contains(","));
+    }
+
+    private static InputStream open(Path file, Range range) throws IOException {
+        final var channel = FileChannel.open(file);
+        try {
+            channel.position(range.start());
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        return new LimitedInputStream(Channels.newInputStream(channel), range.length());
+    }
+
+    /**
+     * Headers of a response served from a cached copy. Only what identifies
+     * the object and the bytes served is known, not its content type.
+     */
+    private static GetObjectResponse response(GetObjectRequest request, String eTag, long objectSize, Range range) {
+        final var response = GetObjectResponse.builder()
+            .eTag(eTag)
+            .versionId(request.versionId())
+            .acceptRanges("bytes")
+            .contentLength(range.length());
+        if (request.range() != null) {
+            response.contentRange("bytes " + range.start() + "-" + (range.start() + range.length() - 1) + "/"
+                + objectSize);
+        }
+        return response.build();
+    }
+
+    private static <ReturnT> ReturnT transform(ResponseTransformer<GetObjectResponse, ReturnT> transformer,
+            GetObjectResponse response, InputStream in) {
+        boolean leftOpen = false;
+        try {
+            final var result = transformer.transform(response, AbortableInputStream.create(in));
+            leftOpen = transformer.needsConnectionLeftOpen();
+            return result;
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw SdkClientException.create("Error transforming cached S3 object", ex);
+        } finally {
+            if (!leftOpen) {
+                closeQuietly(in);
+            }
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ex) {
+            // nothing left to read
+        }
+    }
+
+    private record CachedRead(InputStream in, GetObjectResponse response) {
+    }
+
+    /**
+     * First byte and length of an HTTP range within an object.
+     */
+    record Range(long start, long length) {
+
+        /**
+         * The whole object when there is no range header, null when it cannot be
+         * served from a local copy, e.g. starting past the end.
+         */
+        static Range parse(String header, long objectSize) {
+            if (header == null) {
+                return new Range(0, objectSize);
+            }
+            if (!header.startsWith("bytes=")) {
+                return null;
+            }
+            final var spec = header.substring("bytes=".length()).trim();
+            final int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                final var first = spec.substring(0, dash).trim();
+                final var last = spec.substring(dash + 1).trim();
+                if (first.isEmpty()) {
+                    // suffix range, the last N bytes
+                    final long suffix = Math.min(Long.parseLong(last), objectSize);
+                    return suffix <= 0 ? null : new Range(objectSize - suffix, suffix);
+                }
+                final long start = Long.parseLong(first);
+                final long end = last.isEmpty() ? objectSize - 1 : Math.min(Long.parseLong(last), objectSize - 1);
+                return start >= objectSize || end < start ? null : new Range(start, end - start + 1);
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Stops after the given number of bytes.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            final int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            final int read = super.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+    }
+}
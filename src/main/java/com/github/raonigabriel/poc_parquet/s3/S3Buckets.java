@@ -0,0 +1,168 @@
+package com.github.raonigabriel.poc_parquet.s3;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.raonigabriel.poc_parquet.metrics.MovieMetrics;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Bucket level operations sized for warehouses with many objects. Objects are
+ * removed with DeleteObjects, one request per listing page of up to 1000
+ * keys. While the next page is listed, up to {@code aws.s3.delete-concurrency}
+ * pages are being deleted on virtual threads.
+ */
+@Slf4j
+@Component
+public class S3Buckets {
+
+    /** Most keys a single DeleteObjects (and ListObjectsV2 page) can take. */
+    public static final int MAX_KEYS_PER_REQUEST = 1000;
+
+    private final S3Client s3Client;
+
+    private final MovieMetrics movieMetrics;
+
+    private final int deleteConcurrency;
+
+    public S3Buckets(S3Client s3Client, MovieMetrics movieMetrics,
+            @Value("${aws.s3.delete-concurrency:8}") int deleteConcurrency) {
+        this.s3Client = s3Client;
+        this.movieMetrics = movieMetrics;
+        this.deleteConcurrency = deleteConcurrency;
+    }
+
+    /**
+     * Checks the bucket with a HeadBucket call, without listing every bucket.
+     */
+    public boolean exists(String bucket) {
+        try {
+            s3Client.headBucket(b -> b.bucket(bucket));
+            return true;
+        } catch (NoSuchBucketException ex) {
+            return false;
+        } catch (S3Exception ex) {
+            // HeadBucket has no body, some stores only answer with the status
+            if (ex.statusCode() == 404) {
+                return false;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Empties and drops the bucket when it exists, then creates it again.
+     */
+    public void ensureClean(String bucket) {
+        if (exists(bucket)) {
+            log.info("Bucket {} already exists, removing it", bucket);
+            deletePrefix(bucket, "");
+            s3Client.deleteBucket(b -> b.bucket(bucket));
+        } else {
+            log.info("Bucket {} does not exists", bucket);
+        }
+        s3Client.createBucket(b -> b.bucket(bucket));
+        log.info("Created a new bucket {}", bucket);
+    }
+
+    /**
+     * Deletes every object under an {@code s3://bucket/path} location, e.g. the
+     * location of an Iceberg table. The path is taken as a directory, so
+     * {@code s3://warehouse/public/movies} leaves {@code public/movies_old} alone.
+     */
+    public S3DeleteResult deleteLocation(String location) {
+        final var uri = URI.create(location);
+        if (!"s3".equals(uri.getScheme()) && !"s3a".equals(uri.getScheme())) {
+            throw new IllegalArgumentException("Not an S3 location: " + location);
+        }
+        var prefix = uri.getPath().startsWith("/") ? uri.getPath().substring(1) : uri.getPath();
+        if (!prefix.isEmpty() && !prefix.endsWith("/")) {
+            prefix += "/";
+        }
+        return deletePrefix(uri.getHost(), prefix);
+    }
+
+    /**
+     * Deletes every object whose key starts with {@code prefix}, all of them
+     * when it is empty. After a batch fails no new one is started, and the
+     * failure is thrown once the batches in flight are done. The objects
+     * deleted so far stay deleted.
+     */
+    public S3DeleteResult deletePrefix(String bucket, String prefix) {
+        final long start = System.nanoTime();
+        final var request = ListObjectsV2Request.builder()
+            .bucket(bucket)
+            .prefix(prefix)
+            .maxKeys(MAX_KEYS_PER_REQUEST)
+            .build();
+        final var inFlight = new Semaphore(deleteConcurrency);
+        final var deleted = new AtomicLong();
+        final var failed = new AtomicBoolean();
+        final var batches = new ArrayList<CompletableFuture<Void>>();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var page : s3Client.listObjectsV2Paginator(request)) {
+                if (failed.get()) {
+                    break;
+                }
+                if (!page.hasContents() || page.contents().isEmpty()) {
+                    continue;
+                }
+                final List<ObjectIdentifier> keys = page.contents().stream()
+                    .map(object -> ObjectIdentifier.builder().key(object.key()).build())
+                    .toList();
+                inFlight.acquire();
+                batches.add(CompletableFuture.runAsync(() -> deleteBatch(bucket, keys, deleted), executor)
+                    .whenComplete((ignored, ex) -> {
+                        inFlight.release();
+                        if (ex != null) {
+                            failed.set(true);
+                        }
+                    }));
+            }
+            CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).join();
+        } catch (InterruptedException ex) {
+            batches.forEach(batch -> batch.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while deleting objects from bucket " + bucket, ex);
+        } catch (CompletionException ex) {
+            throw new IllegalStateException("Error deleting objects from s3://" + bucket + "/" + prefix,
+                ex.getCause());
+        }
+
+        final var result = new S3DeleteResult(bucket, prefix, deleted.get(), batches.size(),
+            Duration.ofNanos(System.nanoTime() - start));
+        movieMetrics.recordObjectsDeleted(bucket, result.deleted());
+        log.info("Deleted {} objects from s3://{}/{} in {} batches, {} ms ({} objects/s)", result.deleted(), bucket,
+            prefix, result.batches(), result.elapsed().toMillis(), result.objectsPerSecond());
+        return result;
+    }
+
+    private void deleteBatch(String bucket, List<ObjectIdentifier> keys, AtomicLong deleted) {
+        // quiet mode only reports the keys that failed
+        final var response = s3Client.deleteObjects(b -> b.bucket(bucket).delete(d -> d.objects(keys).quiet(true)));
+        if (response.hasErrors() && !response.errors().isEmpty()) {
+            final var error = response.errors().get(0);
+            deleted.addAndGet(keys.size() - response.errors().size());
+            throw new IllegalStateException("Error deleting " + response.errors().size() + " objects from bucket "
+                + bucket + ", first " + error.key() + ": " + error.code() + " " + error.message());
+        }
+        deleted.addAndGet(keys.size());
+    }
+}
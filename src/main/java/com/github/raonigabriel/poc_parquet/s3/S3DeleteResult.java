@@ -0,0 +1,19 @@
+package com.github.raonigabriel.poc_parquet.s3;
+
+import java.time.Duration;
+
+/**
+ * What a prefix cleanup removed.
+ *
+ * @param bucket bucket cleaned
+ * @param prefix key prefix cleaned, empty for the whole bucket
+ * @param deleted objects deleted
+ * @param batches DeleteObjects requests issued
+ * @param elapsed time from the first listing to the last delete
+ */
+public record S3DeleteResult(String bucket, String prefix, long deleted, int batches, Duration elapsed) {
+
+    public long objectsPerSecond() {
+        return deleted * 1000L / Math.max(1L, elapsed.toMillis());
+    }
+}
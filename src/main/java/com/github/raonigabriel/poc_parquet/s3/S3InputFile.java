@@ -0,0 +1,94 @@
+package com.github.raonigabriel.poc_parquet.s3;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.SeekableInputStream;
+
+import lombok.Getter;
+import software.amazon.awssdk.services.s3.S3Client;
+
+/**
+ * Parquet {@link InputFile} that reads an S3 object with ranged GETs, so only
+ * the footer and the column chunks a reader asks for are transferred. The
+ * ranged GETs carry the ETag returned by the first HeadObject as
+ * {@code If-Match}: a file replaced while being read fails instead of mixing
+ * two versions, and a {@link CachingS3Client} can serve them from a copy of
+ * that exact version without another HeadObject.
+ */
+public class S3InputFile implements InputFile {
+
+    private final S3Client s3Client;
+
+    @Getter
+    private final String bucket;
+
+    @Getter
+    private final String key;
+
+    private long length = -1;
+
+    private String eTag;
+
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    public S3InputFile(S3Client s3Client, String bucket, String key) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.key = key;
+    }
+
+    @Override
+    public long getLength() {
+        head();
+        return length;
+    }
+
+    /** ETag of the object as of the first call to {@link #getLength()} or {@link #newStream()}. */
+    public String getETag() {
+        head();
+        return eTag;
+    }
+
+    private synchronized void head() {
+        if (length < 0) {
+            final var head = s3Client.headObject(b -> b.bucket(bucket).key(key));
+            eTag = head.eTag();
+            length = head.contentLength();
+        }
+    }
+
+    @Override
+    public SeekableInputStream newStream() {
+        return new S3RangeInputStream(this, getLength());
+    }
+
+    /**
+     * Total bytes returned by the GETs of all streams of this file. They come
+     * from the network unless a {@link CachingS3Client} already held a copy.
+     */
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /** Total ranged GETs issued by all streams of this file. */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    S3Client s3Client() {
+        return s3Client;
+    }
+
+    void recordRequest(long bytes) {
+        requestCount.incrementAndGet();
+        bytesRead.addAndGet(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return "s3://" + bucket + "/" + key;
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.raonigabriel.poc_parquet.s3;
+
+import java.time.Duration;
+import java.util.List;
+
+import com.github.raonigabriel.poc_parquet.metrics.MovieMetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+
+/**
+ * Turns the metrics the SDK collects for each API call into Micrometer meters:
+ * the call latency, retries included, tagged by operation and outcome, and
+ * the retry count. Register it on the client with
+ * {@code overrideConfiguration(c -> c.addMetricPublisher(...))}.
+ */
+public class S3MetricPublisher implements MetricPublisher {
+
+    private final MeterRegistry registry;
+
+    public S3MetricPublisher(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void publish(MetricCollection metrics) {
+        final var operation = first(metrics.metricValues(CoreMetric.OPERATION_NAME), "unknown");
+        final var successful = first(metrics.metricValues(CoreMetric.API_CALL_SUCCESSFUL), false);
+        final var duration = first(metrics.metricValues(CoreMetric.API_CALL_DURATION), Duration.ZERO);
+        registry.timer(MovieMetrics.S3_REQUESTS, "operation", operation, "outcome", successful ? "success" : "error")
+            .record(duration);
+        final int retries = first(metrics.metricValues(CoreMetric.RETRY_COUNT), 0);
+        if (retries > 0) {
+            registry.counter(MovieMetrics.S3_RETRIES, "operation", operation).increment(retries);
+        }
+    }
+
+    @Override
+    public void close() {
+        // meters are owned by the registry
+    }
+
+    private static <T> T first(List<T> values, T defaultValue) {
+        return values.isEmpty() ? defaultValue : values.get(0);
+    }
+}
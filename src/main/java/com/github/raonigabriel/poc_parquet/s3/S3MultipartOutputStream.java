@@ -0,0 +1,233 @@
+package com.github.raonigabriel.poc_parquet.s3;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.parquet.io.PositionOutputStream;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+
+/**
+ * Streams bytes into an S3 multipart upload. Parts are uploaded on virtual
+ * threads while the caller keeps writing; at most {@code maxInFlightParts}
+ * part buffers are pending at once, so memory is bounded by
+ * {@code (maxInFlightParts + 1) * partSize}. Objects smaller than one part
+ * are sent with a single PutObject.
+ * <p>
+ * Closing publishes the object. When what was written is incomplete, call
+ * {@link #abort()} instead, so the object, or the one it was about to
+ * replace, is left as it was.
+ */
+@Slf4j
+public class S3MultipartOutputStream extends PositionOutputStream {
+
+    /** S3 requires every part but the last to be at least 5 MiB. */
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+    public static final int DEFAULT_PART_SIZE = 8 * 1024 * 1024;
+    public static final int DEFAULT_MAX_IN_FLIGHT_PARTS = 4;
+
+    private final S3Client s3Client;
+    private final String bucket;
+    private final String key;
+    private final String contentType;
+    private final int partSize;
+
+    private final Semaphore inFlightParts;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private byte[] buffer;
+    private int bufferPos;
+    private long position;
+    private String uploadId;
+    private boolean closed;
+    private boolean aborted;
+
+    public S3MultipartOutputStream(S3Client s3Client, String bucket, String key, String contentType) {
+        this(s3Client, bucket, key, contentType, DEFAULT_PART_SIZE, DEFAULT_MAX_IN_FLIGHT_PARTS);
+    }
+
+    public S3MultipartOutputStream(S3Client s3Client, String bucket, String key, String contentType,
+            int partSize, int maxInFlightParts) {
+        if (partSize < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("Part size must be at least " + MIN_PART_SIZE + " bytes");
+        }
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.key = key;
+        this.contentType = contentType;
+        this.partSize = partSize;
+        this.inFlightParts = new Semaphore(maxInFlightParts);
+        this.buffer = new byte[partSize];
+    }
+
+    @Override
+    public long getPos() {
+        return position;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (aborted) {
+            return;
+        }
+        ensureOpen();
+        if (bufferPos == buffer.length) {
+            uploadPart();
+        }
+        buffer[bufferPos++] = (byte) b;
+        position++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (aborted) {
+            return;
+        }
+        ensureOpen();
+        while (len > 0) {
+            if (bufferPos == buffer.length) {
+                uploadPart();
+            }
+            final int chunk = Math.min(len, buffer.length - bufferPos);
+            System.arraycopy(b, off, buffer, bufferPos, chunk);
+            bufferPos += chunk;
+            position += chunk;
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (uploadId == null) {
+                putObject();
+            } else {
+                if (bufferPos > 0) {
+                    uploadPart();
+                }
+                completeUpload();
+            }
+        } catch (IOException | RuntimeException ex) {
+            abortUpload();
+            throw ex;
+        } finally {
+            executor.shutdown();
+            buffer = null;
+        }
+    }
+
+    /**
+     * Discards the upload without publishing anything. Later writes are
+     * dropped and closing does nothing, so whatever produces the bytes can
+     * still be closed to release its own resources. Does nothing once closed.
+     */
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        aborted = true;
+        try {
+            abortUpload();
+            log.debug("Aborted upload of s3://{}/{} after {} bytes", bucket, key, position);
+        } finally {
+            executor.shutdown();
+            buffer = null;
+        }
+    }
+
+    private void putObject() {
+        s3Client.putObject(b -> b.bucket(bucket).key(key).contentType(contentType),
+            RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, bufferPos), bufferPos));
+        log.debug("Uploaded {} bytes to s3://{}/{}", bufferPos, bucket, key);
+    }
+
+    private void uploadPart() throws IOException {
+        throwIfFailed();
+        if (uploadId == null) {
+            uploadId = s3Client.createMultipartUpload(b -> b.bucket(bucket).key(key).contentType(contentType))
+                .uploadId();
+        }
+        try {
+            inFlightParts.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an S3 part upload slot");
+        }
+
+        final int partNumber = parts.size() + 1;
+        final byte[] data = buffer;
+        final int length = bufferPos;
+        final var part = CompletableFuture.supplyAsync(() -> {
+                final var response = s3Client.uploadPart(b -> b.bucket(bucket).key(key).uploadId(uploadId)
+                        .partNumber(partNumber).contentLength((long) length),
+                    RequestBody.fromInputStream(new ByteArrayInputStream(data, 0, length), length));
+                return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
+            }, executor)
+            .whenComplete((completed, ex) -> {
+                inFlightParts.release();
+                if (ex != null) {
+                    failure.compareAndSet(null, ex);
+                }
+            });
+        parts.add(part);
+        buffer = new byte[partSize];
+        bufferPos = 0;
+    }
+
+    private void completeUpload() throws IOException {
+        final List<CompletedPart> completedParts;
+        try {
+            completedParts = parts.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException ex) {
+            throw new IOException("Error uploading part to s3://" + bucket + "/" + key, ex.getCause());
+        }
+        s3Client.completeMultipartUpload(b -> b.bucket(bucket).key(key).uploadId(uploadId)
+            .multipartUpload(m -> m.parts(completedParts)));
+        log.debug("Uploaded {} bytes in {} parts to s3://{}/{}", position, completedParts.size(), bucket, key);
+    }
+
+    private void abortUpload() {
+        if (uploadId == null) {
+            return;
+        }
+        parts.forEach(part -> part.cancel(false));
+        try {
+            s3Client.abortMultipartUpload(b -> b.bucket(bucket).key(key).uploadId(uploadId));
+        } catch (RuntimeException ex) {
+            log.warn("Error aborting multipart upload {} of s3://{}/{}", uploadId, bucket, key, ex);
+        }
+    }
+
+    private void throwIfFailed() throws IOException {
+        final var ex = failure.get();
+        if (ex != null) {
+            throw new IOException("Error uploading part to s3://" + bucket + "/" + key, ex);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream already closed");
+        }
+    }
+}
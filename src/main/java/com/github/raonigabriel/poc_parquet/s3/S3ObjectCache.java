@@ -0,0 +1,289 @@
+package com.github.raonigabriel.poc_parquet.s3;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.github.raonigabriel.poc_parquet.metrics.MovieMetrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local disk copies of S3 objects, one file per bucket, key and ETag. As S3
+ * objects are immutable under a given ETag, an entry never goes stale: a
+ * rewritten object gets a new ETag, hence a new entry, and the old one ages
+ * out. Entries are evicted least recently used first once the total size
+ * exceeds {@code aws.s3.cache.max-size}. Concurrent requests for an object
+ * being downloaded wait for that single download instead of starting their own.
+ * <p>
+ * The ETag of the last copy cached per object is remembered, so a later
+ * whole-object read can be a conditional GET that only costs headers while the
+ * copy is current. Ranged reads never fill the cache; they are served from it
+ * when the exact ETag they ask for is already there.
+ * <p>
+ * Files are replaced and deleted by rename and unlink, so readers holding one
+ * open keep reading it even after it is evicted. Entries left on disk by a
+ * previous run are picked up on startup, oldest first in the LRU order.
+ */
+@Slf4j
+@Component
+public class S3ObjectCache {
+
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    private final MovieMetrics movieMetrics;
+
+    private final Path directory;
+
+    private final long maxSize;
+
+    private final long maxObjectSize;
+
+    /** Entries by file name, in access order. Guarded by itself. */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** ETag of the last cached copy by bucket and key. Guarded by {@link #entries}. */
+    private final Map<String, String> latestETags = new HashMap<>();
+
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> downloads = new ConcurrentHashMap<>();
+
+    private long size;
+
+    public S3ObjectCache(MovieMetrics movieMetrics, @Value("${aws.s3.cache.directory:}") String directory,
+            @Value("${aws.s3.cache.max-size:1GB}") DataSize maxSize,
+            @Value("${aws.s3.cache.max-object-size:256MB}") DataSize maxObjectSize) {
+        this.movieMetrics = movieMetrics;
+        this.directory = directory.isBlank() ? null : Path.of(directory);
+        this.maxSize = maxSize.toBytes();
+        this.maxObjectSize = Math.min(maxObjectSize.toBytes(), maxSize.toBytes());
+        if (isEnabled()) {
+            load();
+        }
+    }
+
+    /**
+     * False when {@code aws.s3.cache.directory} is not set or the size limit is zero.
+     */
+    public boolean isEnabled() {
+        return directory != null && maxSize > 0;
+    }
+
+    /**
+     * Whether an object of this size is small enough to be cached.
+     */
+    public boolean accepts(long objectSize) {
+        return isEnabled() && objectSize <= maxObjectSize;
+    }
+
+    /**
+     * The cached file of the object with this ETag, null when there is none.
+     */
+    public Path find(String bucket, String key, String eTag) {
+        final var name = entryName(bucket, key, eTag);
+        final var objectKey = bucket + '/' + key;
+        synchronized (entries) {
+            final var entry = entries.get(name);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.objectKey() == null) {
+                // picked up from disk, now we know what it holds
+                entries.put(name, new Entry(entry.size(), objectKey, eTag));
+                latestETags.putIfAbsent(objectKey, eTag);
+            }
+        }
+        movieMetrics.recordCacheRequest(MovieMetrics.CACHE_HIT);
+        return directory.resolve(name);
+    }
+
+    /**
+     * The ETag of the last copy of the object cached by this process and not
+     * evicted since, null when there is none.
+     */
+    public String latestETag(String bucket, String key) {
+        synchronized (entries) {
+            return latestETags.get(bucket + '/' + key);
+        }
+    }
+
+    /**
+     * The cached file of the object, downloaded into a new file by
+     * {@code download} when missing.
+     */
+    public Path get(String bucket, String key, String eTag, long objectSize, Downloader download) {
+        final var cached = find(bucket, key, eTag);
+        if (cached != null) {
+            return cached;
+        }
+        final var name = entryName(bucket, key, eTag);
+
+        final var pending = new CompletableFuture<Path>();
+        final var inFlight = downloads.putIfAbsent(name, pending);
+        if (inFlight != null) {
+            movieMetrics.recordCacheRequest(MovieMetrics.CACHE_SHARED);
+            try {
+                return inFlight.join();
+            } catch (CompletionException ex) {
+                throw ex.getCause() instanceof RuntimeException runtime ? runtime : ex;
+            }
+        }
+        try {
+            final var path = download(name, bucket + '/' + key, eTag, objectSize, download);
+            pending.complete(path);
+            return path;
+        } catch (RuntimeException ex) {
+            pending.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            downloads.remove(name, pending);
+        }
+    }
+
+    /**
+     * Counts a read that could not be served from the cache, e.g. too large.
+     */
+    public void recordBypass() {
+        movieMetrics.recordCacheRequest(MovieMetrics.CACHE_BYPASS);
+    }
+
+    private Path download(String name, String objectKey, String eTag, long objectSize, Downloader download) {
+        final var path = directory.resolve(name);
+        synchronized (entries) {
+            // finished between the lookup and taking over the download
+            if (entries.get(name) != null) {
+                movieMetrics.recordCacheRequest(MovieMetrics.CACHE_HIT);
+                return path;
+            }
+        }
+        movieMetrics.recordCacheRequest(MovieMetrics.CACHE_MISS);
+        Path partial = null;
+        try {
+            partial = Files.createTempFile(directory, name, PARTIAL_SUFFIX);
+            download.to(partial);
+            Files.move(partial, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            deleteQuietly(partial);
+            throw new UncheckedIOException("Error caching S3 object into " + path, ex);
+        } catch (RuntimeException ex) {
+            deleteQuietly(partial);
+            throw ex;
+        }
+        synchronized (entries) {
+            final var previous = entries.put(name, new Entry(objectSize, objectKey, eTag));
+            size += objectSize - (previous == null ? 0 : previous.size());
+            latestETags.put(objectKey, eTag);
+            evict(name);
+        }
+        return path;
+    }
+
+    /**
+     * Drops least recently used entries until the cache fits, never the one just added.
+     */
+    private void evict(String keep) {
+        final var iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            final var eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            iterator.remove();
+            size -= eldest.getValue().size();
+            if (eldest.getValue().objectKey() != null) {
+                latestETags.remove(eldest.getValue().objectKey(), eldest.getValue().eTag());
+            }
+            deleteQuietly(directory.resolve(eldest.getKey()));
+            movieMetrics.recordCacheEviction();
+        }
+    }
+
+    private void load() {
+        try {
+            Files.createDirectories(directory);
+            try (var files = Files.list(directory)) {
+                final var existing = files
+                    .filter(Files::isRegularFile)
+                    .sorted(Comparator.comparing(S3ObjectCache::lastModified))
+                    .toList();
+                synchronized (entries) {
+                    for (var file : existing) {
+                        if (file.getFileName().toString().endsWith(PARTIAL_SUFFIX)) {
+                            deleteQuietly(file);
+                            continue;
+                        }
+                        final long fileSize = Files.size(file);
+                        // which object it holds is unknown until it is asked for again
+                        entries.put(file.getFileName().toString(), new Entry(fileSize, null, null));
+                        size += fileSize;
+                    }
+                    evict(null);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Error opening S3 cache directory " + directory, ex);
+        }
+        log.info("S3 object cache {} holds {} objects, {} of {} bytes", directory, entries.size(), size, maxSize);
+    }
+
+    private static String entryName(String bucket, String key, String eTag) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256");
+            digest.update((bucket + '/' + key + '\n' + eTag).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Error deleting cached S3 object {}", file, ex);
+        }
+    }
+
+    /**
+     * Size of a cached file, and the object and ETag it holds when cached by
+     * this process.
+     */
+    private record Entry(long size, String objectKey, String eTag) {
+    }
+
+    /**
+     * Writes the whole object into the given file.
+     */
+    @FunctionalInterface
+    public interface Downloader {
+
+        void to(Path file) throws IOException;
+    }
+}
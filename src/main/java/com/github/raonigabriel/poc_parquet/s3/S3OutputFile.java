@@ -0,0 +1,62 @@
+package com.github.raonigabriel.poc_parquet.s3;
+
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+
+import com.github.raonigabriel.poc_parquet.parquet.AbortableOutputFile;
+
+import lombok.RequiredArgsConstructor;
+import software.amazon.awssdk.services.s3.S3Client;
+
+/**
+ * Parquet {@link OutputFile} that writes straight into an S3 object, without
+ * staging the file on local disk. The object only becomes visible once the
+ * writer is closed, and never when the upload is aborted.
+ */
+@RequiredArgsConstructor
+public class S3OutputFile implements AbortableOutputFile {
+
+    private static final String PARQUET_CONTENT_TYPE = "application/vnd.apache.parquet";
+
+    private final S3Client s3Client;
+
+    private final String bucket;
+
+    private final String key;
+
+    private volatile S3MultipartOutputStream stream;
+
+    @Override
+    public PositionOutputStream create(long blockSizeHint) {
+        return createOrOverwrite(blockSizeHint);
+    }
+
+    @Override
+    public PositionOutputStream createOrOverwrite(long blockSizeHint) {
+        stream = new S3MultipartOutputStream(s3Client, bucket, key, PARQUET_CONTENT_TYPE);
+        return stream;
+    }
+
+    @Override
+    public void abort() {
+        final var current = stream;
+        if (current != null) {
+            current.abort();
+        }
+    }
+
+    @Override
+    public boolean supportsBlockSize() {
+        return false;
+    }
+
+    @Override
+    public long defaultBlockSize() {
+        return 0;
+    }
+
+    @Override
+    public String getPath() {
+        return "s3://" + bucket + "/" + key;
+    }
+}
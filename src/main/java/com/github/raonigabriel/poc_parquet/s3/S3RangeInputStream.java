@@ -0,0 +1,263 @@
+package com.github.raonigabriel.poc_parquet.s3;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.parquet.bytes.ByteBufferAllocator;
+import org.apache.parquet.io.ParquetFileRange;
+import org.apache.parquet.io.SeekableInputStream;
+
+import software.amazon.awssdk.core.exception.SdkException;
+
+/**
+ * Seekable stream over an S3 object. The footer is prefetched with a single
+ * suffix range GET when the stream is opened; other reads are served from a
+ * small read-ahead buffer or, for large reads, fetched exactly. Vectored reads
+ * coalesce nearby column chunks and fetch them in parallel.
+ */
+class S3RangeInputStream extends SeekableInputStream {
+
+    /** Parquet footers are usually well below this, so one GET is enough. */
+    static final int FOOTER_PREFETCH_SIZE = 64 * 1024;
+    static final int READ_AHEAD_SIZE = 256 * 1024;
+    /** Ranges closer than this are fetched with one GET. */
+    static final int MAX_MERGE_GAP = 512 * 1024;
+    static final int MAX_MERGED_SIZE = 16 * 1024 * 1024;
+
+    private final S3InputFile file;
+    private final long length;
+
+    private final byte[] tail;
+    private final long tailStart;
+
+    private byte[] buffer = new byte[0];
+    private long bufferStart;
+
+    private long pos;
+
+    private ExecutorService executor;
+
+    S3RangeInputStream(S3InputFile file, long length) {
+        this.file = file;
+        this.length = length;
+        final int tailSize = (int) Math.min(length, FOOTER_PREFETCH_SIZE);
+        this.tailStart = length - tailSize;
+        this.tail = tailSize == 0 ? new byte[0] : fetchSuffix(tailSize);
+    }
+
+    @Override
+    public long getPos() {
+        return pos;
+    }
+
+    @Override
+    public void seek(long newPos) throws IOException {
+        if (newPos < 0 || newPos > length) {
+            throw new EOFException("Seek to " + newPos + " outside of " + file + " (" + length + " bytes)");
+        }
+        pos = newPos;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (pos >= length) {
+            return -1;
+        }
+        if (!isBuffered(pos)) {
+            fill(pos, READ_AHEAD_SIZE);
+        }
+        final int b = cached(pos) & 0xFF;
+        pos++;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (pos >= length) {
+            return -1;
+        }
+        final int n = (int) Math.min(len, length - pos);
+        if (pos >= tailStart) {
+            System.arraycopy(tail, (int) (pos - tailStart), b, off, n);
+        } else if (isBuffered(pos)) {
+            final int available = (int) Math.min(n, bufferStart + buffer.length - pos);
+            System.arraycopy(buffer, (int) (pos - bufferStart), b, off, available);
+            pos += available;
+            return available;
+        } else if (n >= READ_AHEAD_SIZE) {
+            fetchInto(pos, b, off, n);
+        } else {
+            fill(pos, READ_AHEAD_SIZE);
+            return read(b, off, len);
+        }
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public void readFully(byte[] bytes) throws IOException {
+        readFully(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void readFully(byte[] bytes, int start, int len) throws IOException {
+        int done = 0;
+        while (done < len) {
+            final int n = read(bytes, start + done, len - done);
+            if (n < 0) {
+                throw new EOFException("Reached the end of " + file + " with " + (len - done) + " bytes left to read");
+            }
+            done += n;
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer buf) throws IOException {
+        if (buf.hasArray()) {
+            final int n = read(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+            if (n > 0) {
+                buf.position(buf.position() + n);
+            }
+            return n;
+        }
+        final byte[] chunk = new byte[buf.remaining()];
+        final int n = read(chunk, 0, chunk.length);
+        if (n > 0) {
+            buf.put(chunk, 0, n);
+        }
+        return n;
+    }
+
+    @Override
+    public void readFully(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            if (read(buf) < 0) {
+                throw new EOFException("Reached the end of " + file + " with " + buf.remaining() + " bytes left to read");
+            }
+        }
+    }
+
+    @Override
+    public boolean readVectoredAvailable(ByteBufferAllocator allocator) {
+        return true;
+    }
+
+    @Override
+    public void readVectored(List<ParquetFileRange> ranges, ByteBufferAllocator allocator) {
+        final var sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparingLong(ParquetFileRange::getOffset));
+
+        var group = new ArrayList<ParquetFileRange>();
+        long groupStart = 0;
+        long groupEnd = 0;
+        for (var range : sorted) {
+            final long end = range.getOffset() + range.getLength();
+            if (!group.isEmpty()
+                    && (range.getOffset() - groupEnd > MAX_MERGE_GAP || end - groupStart > MAX_MERGED_SIZE)) {
+                submit(group, groupStart, groupEnd, allocator);
+                group = new ArrayList<>();
+            }
+            if (group.isEmpty()) {
+                groupStart = range.getOffset();
+                groupEnd = end;
+            }
+            group.add(range);
+            groupEnd = Math.max(groupEnd, end);
+        }
+        if (!group.isEmpty()) {
+            submit(group, groupStart, groupEnd, allocator);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+        buffer = new byte[0];
+    }
+
+    private void submit(List<ParquetFileRange> group, long start, long end, ByteBufferAllocator allocator) {
+        if (executor == null) {
+            executor = Executors.newVirtualThreadPerTaskExecutor();
+        }
+        final var data = CompletableFuture.supplyAsync(() -> fetch(start, (int) (end - start)), executor);
+        for (var range : group) {
+            final int offset = (int) (range.getOffset() - start);
+            range.setDataReadFuture(data.thenApply(bytes -> {
+                final ByteBuffer slice = allocator.allocate(range.getLength());
+                slice.put(bytes, offset, range.getLength());
+                slice.flip();
+                return slice;
+            }));
+        }
+    }
+
+    private boolean isBuffered(long position) {
+        return position >= tailStart || (position >= bufferStart && position < bufferStart + buffer.length);
+    }
+
+    private byte cached(long position) {
+        return position >= tailStart ? tail[(int) (position - tailStart)] : buffer[(int) (position - bufferStart)];
+    }
+
+    private void fill(long start, int size) throws IOException {
+        final int n = (int) Math.min(size, tailStart - start);
+        buffer = fetchChecked(start, n);
+        bufferStart = start;
+    }
+
+    private byte[] fetchSuffix(int size) {
+        final var bytes = file.s3Client()
+            .getObjectAsBytes(b -> b.bucket(file.getBucket()).key(file.getKey()).ifMatch(file.getETag())
+                .range("bytes=-" + size))
+            .asByteArrayUnsafe();
+        file.recordRequest(bytes.length);
+        return bytes;
+    }
+
+    private byte[] fetch(long start, int size) {
+        final var bytes = file.s3Client()
+            .getObjectAsBytes(b -> b.bucket(file.getBucket()).key(file.getKey()).ifMatch(file.getETag())
+                .range(range(start, size)))
+            .asByteArrayUnsafe();
+        file.recordRequest(bytes.length);
+        return bytes;
+    }
+
+    private byte[] fetchChecked(long start, int size) throws IOException {
+        try {
+            return fetch(start, size);
+        } catch (SdkException ex) {
+            throw new IOException("Error reading " + range(start, size) + " from " + file, ex);
+        }
+    }
+
+    private void fetchInto(long start, byte[] b, int off, int size) throws IOException {
+        try (var in = file.s3Client()
+                .getObject(r -> r.bucket(file.getBucket()).key(file.getKey()).ifMatch(file.getETag())
+                    .range(range(start, size)))) {
+            final int n = in.readNBytes(b, off, size);
+            file.recordRequest(n);
+            if (n < size) {
+                throw new EOFException("Short read of " + range(start, size) + " from " + file);
+            }
+        } catch (SdkException ex) {
+            throw new IOException("Error reading " + range(start, size) + " from " + file, ex);
+        }
+    }
+
+    private static String range(long start, int size) {
+        return "bytes=" + start + "-" + (start + size - 1);
+    }
+}
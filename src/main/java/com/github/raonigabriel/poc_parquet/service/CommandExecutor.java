@@ -1,11 +1,22 @@
 package com.github.raonigabriel.poc_parquet.service;
 
-import java.io.FileWriter;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.apache.iceberg.expressions.Expressions;
 
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
+import com.github.raonigabriel.poc_parquet.metrics.MovieMetrics;
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+import com.github.raonigabriel.poc_parquet.parquet.ParquetWriteOptions;
+import com.github.raonigabriel.poc_parquet.pipeline.MovieConnectors;
+import com.github.raonigabriel.poc_parquet.pipeline.Pipeline;
+import com.github.raonigabriel.poc_parquet.pipeline.PipelineEngine;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -17,52 +28,92 @@ public class CommandExecutor implements CommandLineRunner {
     
 	private static final String TMP_PARQUET_FILE = "/tmp/movies.parquet";
 
+	private static final String TMP_CSV_PARQUET_FILE = "/tmp/extra_movies.parquet";
+
+	private static final String S3_PARQUET_KEY = "movies.parquet";
+
+	private static final int EXTRACT_SHARDS = 4;
+
 	private final MovieService service;
 
+	private final PipelineEngine pipelines;
+
+	private final MovieConnectors connectors;
+
+	private final MovieMetrics metrics;
+
 	@Override
 	public void run(String... args) throws Exception {
 		// Setup and cleanup. We will end up with a database with 48 records and a bucket with a CSV file (50 records)
 		service.ensureCleanBucket(MovieService.MOVIES_BUCKET);
 		service.ensureCleanBucket(MovieService.WAREHOUSE_BUCKET);
+		service.ensureCleanIcebergTable();
 		service.uploadMoviesCsv();
 		service.ensureDefaultDatabase();
 
-		// READ from PG, save to parquet
-		var movies = service.readMoviesFromDatabase();
-		var count = service.writeMoviesToParquet(TMP_PARQUET_FILE, movies);
-		log.info("Exported {} movies from PG to Parquet file", count);
-		
-		// READ from remote CSV, save to parquet
-		final var csvReader = service.downloadMoviesCsv();
-		movies = service.readMoviesFromCsv(csvReader);
-		count = service.writeMoviesToParquet(TMP_PARQUET_FILE, movies);
-		log.info("Exported {} movies from CSV to Parquet file", count);
-
-		// READ from parquet, save to PG
-		movies = service.readMoviesFromParquet(TMP_PARQUET_FILE);
-		count = service.writeMoviesToDatabase(movies);
-		log.info("Exported {} movies from Parquet file to PG", count);
-
-		// READ from PG, save to local CSV
-		movies = service.readMoviesFromDatabase();
-		final var csvWriter = new FileWriter("/tmp/movies.csv");
-		count = service.writeMoviesToCsv(csvWriter, movies);
-		log.info("Exported {} movies from PG to CSV file", count);
-
-		// READ from PG, save to Iceberg
-		movies = service.readMoviesFromDatabase();
-		count = service.writeMoviesToIceberg(movies);
-		log.info("Exported {} movies from PG to Iceberg table", count);
-
-		// READ from Iceberg, save to PG
-		movies = service.readMoviesFromIceberg();
-		for (var movie : movies) {
-			movie.setId(null);
+		// TRANSFER concurrently: PG to a local Parquet file, PG to Parquet on S3 (no local staging) and the
+		// remote CSV (parsed in parallel) to another local Parquet file. Reading and writing overlap in each
+		final var exports = pipelines.runAll(List.of(
+			Pipeline.of("pg-to-parquet", connectors.databaseSource(),
+				connectors.parquetSink(service.newLocalOutputFile(TMP_PARQUET_FILE), ParquetWriteOptions.DEFAULTS)),
+			Pipeline.of("pg-to-s3-parquet", connectors.databaseSource(),
+				connectors.parquetSink(service.newS3OutputFile(S3_PARQUET_KEY), ParquetWriteOptions.DEFAULTS)),
+			Pipeline.of("csv-to-parquet", connectors.csvSource(service::downloadMoviesCsv),
+				connectors.parquetSink(service.newLocalOutputFile(TMP_CSV_PARQUET_FILE), ParquetWriteOptions.DEFAULTS))));
+		exports.forEach(result -> log.info("Pipeline {} exported {} movies", result.name(), result.written()));
+
+		// EXTRACT PG in parallel id ranges, all from one snapshot, into one local Parquet file per shard
+		final var extracted = service.exportMoviesFromDatabaseToParquet(EXTRACT_SHARDS,
+			shard -> service.newLocalOutputFile("/tmp/movies-" + shard + ".parquet"));
+		log.info("Exported {} movies from PG in {} shards to Parquet files", extracted, EXTRACT_SHARDS);
+
+		// READ only id and rating from parquet on S3, using ranged GETs
+		final var s3Parquet = service.newS3InputFile(S3_PARQUET_KEY);
+		try (var ratings = service.streamMoviesFromParquet(s3Parquet, MovieService.ID_FIELD, MovieService.RATING_FIELD)) {
+			log.info("Read {} ratings from Parquet on S3, transferring {} of {} bytes in {} requests",
+				ratings.count(), s3Parquet.getBytesRead(), s3Parquet.getLength(), s3Parquet.getRequestCount());
 		}
-		service.cleanDatabase();
-		count = service.writeMoviesToDatabase(movies);
-		log.info("Exported {} movies from Iceberg file to PG", count);
+
+		// AGGREGATE parquet on S3 over columnar batches
+		final var yearlyRatings = service.ratingsByReleaseYear(service.newS3InputFile(S3_PARQUET_KEY), 0f);
+		log.info("Rating statistics for {} release years, first: {}", yearlyRatings.size(),
+			yearlyRatings.isEmpty() ? null : yearlyRatings.get(0));
+		final var best = service.topRatedMovies(service.newS3InputFile(S3_PARQUET_KEY), 3, LocalDate.MIN, LocalDate.MAX);
+		log.info("Top {} rated movies: {}", best.size(), best.stream().map(MovieEntity::getName).toList());
 		
+		// STREAM the movies from the CSV file, through Parquet, to PG
+		var result = pipelines.run(Pipeline.of("parquet-to-pg",
+			connectors.parquetSource(service.newLocalInputFile(TMP_CSV_PARQUET_FILE)), connectors.databaseSink()));
+		log.info("Exported {} movies from Parquet file to PG", result.written());
+
+		// STREAM from PG, save to local CSV
+		result = pipelines.run(Pipeline.of("pg-to-csv", connectors.databaseSource(),
+			connectors.csvSink(Path.of("/tmp/movies.csv"))));
+		log.info("Exported {} movies from PG to CSV file", result.written());
+
+		// STREAM new rows from PG (above the watermark) in parallel shards, append to Iceberg. The second run finds nothing new
+		var exported = service.exportNewMoviesToIceberg(EXTRACT_SHARDS);
+		log.info("Exported {} movies from PG to Iceberg table", exported);
+		exported = service.exportNewMoviesToIceberg();
+		log.info("Exported {} more movies from PG to Iceberg table", exported);
+
+		// QUERY Iceberg with filter pushdown and column projection
+		final var topRated = service.queryMoviesFromIceberg(Expressions.greaterThanOrEqual(MovieService.RATING_FIELD, 8.5f),
+			MovieService.ID_FIELD, MovieService.NAME_FIELD, MovieService.RATING_FIELD);
+		log.info("Found {} movies rated 8.5 or more in Iceberg table: {}", topRated.movies().size(), topRated.metrics());
+
+		// SYNC rows appended to Iceberg since the last checkpoint into PG. The second run finds nothing new
+		var synced = service.syncNewMoviesFromIceberg();
+		log.info("Synced {} movies from Iceberg table to PG", synced);
+		synced = service.syncNewMoviesFromIceberg();
+		log.info("Synced {} more movies from Iceberg table to PG", synced);
+
+		// MAINTAIN the Iceberg table: compact small files, merge manifests, expire snapshots, delete orphans
+		service.maintainIcebergTable()
+			.ifPresent(report -> log.info("Iceberg table went from {} to {}", report.before(), report.after()));
+
+		// SUMMARY of the run: rows/s per path, Parquet bytes and row groups, JDBC fetch time, S3 and Iceberg latencies
+		metrics.logSummary();
 	}
 
 }
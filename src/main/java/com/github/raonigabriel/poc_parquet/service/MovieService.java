@@ -2,65 +2,93 @@ package com.github.raonigabriel.poc_parquet.service;
 
 import org.springframework.beans.factory.BeanInitializationException;
 import org.springframework.data.jdbc.repository.query.Modifying;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.StringUtils;
-
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.raonigabriel.poc_parquet.arrow.MovieArrow;
+import com.github.raonigabriel.poc_parquet.arrow.MovieArrowBatcher;
+import com.github.raonigabriel.poc_parquet.columnar.MovieBatchFilters;
+import com.github.raonigabriel.poc_parquet.columnar.MovieBatchReader;
+import com.github.raonigabriel.poc_parquet.columnar.Selection;
+import com.github.raonigabriel.poc_parquet.columnar.TopRatedMovies;
+import com.github.raonigabriel.poc_parquet.columnar.YearlyRating;
+import com.github.raonigabriel.poc_parquet.columnar.YearlyRatingAggregator;
+import com.github.raonigabriel.poc_parquet.csv.MovieCsv;
+import com.github.raonigabriel.poc_parquet.csv.ParallelCsvIngestor;
+import com.github.raonigabriel.poc_parquet.iceberg.IcebergMaintenanceReport;
+import com.github.raonigabriel.poc_parquet.iceberg.IcebergMovieScanner;
+import com.github.raonigabriel.poc_parquet.iceberg.IcebergMovieWriter;
+import com.github.raonigabriel.poc_parquet.iceberg.IcebergRecords;
+import com.github.raonigabriel.poc_parquet.iceberg.IcebergScanResult;
+import com.github.raonigabriel.poc_parquet.iceberg.IcebergSnapshots;
+import com.github.raonigabriel.poc_parquet.iceberg.IcebergTableMaintenance;
+import com.github.raonigabriel.poc_parquet.iceberg.MoviesCatalog;
+import com.github.raonigabriel.poc_parquet.local.NioInputFile;
+import com.github.raonigabriel.poc_parquet.local.NioOutputFile;
+import com.github.raonigabriel.poc_parquet.metrics.MovieMetrics;
 import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+import com.github.raonigabriel.poc_parquet.parquet.MovieParquet;
+import com.github.raonigabriel.poc_parquet.parquet.MovieParquetLookup;
+import com.github.raonigabriel.poc_parquet.parquet.MovieReadSupport;
+import com.github.raonigabriel.poc_parquet.parquet.ParquetScanResult;
+import com.github.raonigabriel.poc_parquet.parquet.ParquetWriteOptions;
+import com.github.raonigabriel.poc_parquet.repository.MovieBulkLoader;
 import com.github.raonigabriel.poc_parquet.repository.MovieRepository;
-import com.opencsv.CSVReaderBuilder;
-import com.opencsv.CSVWriterBuilder;
+import com.github.raonigabriel.poc_parquet.repository.MovieShardedExtractor;
+import com.github.raonigabriel.poc_parquet.repository.SyncCheckpointRepository;
+import com.github.raonigabriel.poc_parquet.s3.S3Buckets;
+import com.github.raonigabriel.poc_parquet.s3.S3InputFile;
+import com.github.raonigabriel.poc_parquet.s3.S3MultipartOutputStream;
+import com.github.raonigabriel.poc_parquet.s3.S3OutputFile;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.DeleteBucketRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.Writer;
-import java.sql.SQLException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.UUID;
-
-import javax.sql.DataSource;
-
-import org.apache.avro.SchemaBuilder;
-import org.apache.avro.generic.GenericData;
-import org.apache.avro.generic.GenericRecord;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.hadoop.conf.Configuration;
-import org.apache.parquet.hadoop.ParquetFileWriter.Mode;
-import org.apache.parquet.hadoop.ParquetWriter;
-import org.apache.parquet.hadoop.metadata.CompressionCodecName;
-import org.apache.parquet.hadoop.util.HadoopInputFile;
-import org.apache.parquet.hadoop.util.HadoopOutputFile;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.hadoop.ParquetInputFormat;
 import org.apache.parquet.io.InputFile;
 import org.apache.parquet.io.OutputFile;
-import org.apache.hadoop.fs.Path;
-import org.apache.iceberg.CatalogProperties;
-import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.DataOperations;
 import org.apache.iceberg.Schema;
-import org.apache.iceberg.aws.s3.S3FileIOProperties;
-import org.apache.iceberg.catalog.Namespace;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.SnapshotSummary;
+import org.apache.iceberg.Table;
 import org.apache.iceberg.catalog.TableIdentifier;
 import org.apache.iceberg.data.IcebergGenerics;
-import org.apache.iceberg.data.parquet.GenericParquetWriter;
-import org.apache.iceberg.io.DataWriter;
-import org.apache.iceberg.jdbc.JdbcCatalog;
-import org.apache.iceberg.parquet.Parquet;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.exceptions.NotFoundException;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.io.CloseableIterable;
 import org.apache.iceberg.types.Types;
-import org.apache.parquet.avro.AvroParquetWriter;
-import org.apache.parquet.avro.AvroWriteSupport;
-import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.iceberg.util.SnapshotUtil;
 
 @Slf4j
 @Service
@@ -73,118 +101,232 @@ public class MovieService {
     public static final String RELEASE_DATE_FIELD = "releaseDate";
 
     public static final String MOVIES_BUCKET = "movies-bucket";
-    public static final String WAREHOUSE_BUCKET = "warehouse";
+    public static final String WAREHOUSE_BUCKET = MoviesCatalog.WAREHOUSE_BUCKET;
 
     public static final String ICEBERG_TABLE = "movies";
 
+    public static final TableIdentifier ICEBERG_TABLE_ID = TableIdentifier.of(MoviesCatalog.NAMESPACE, ICEBERG_TABLE);
+
+    public static final Schema ICEBERG_SCHEMA = new Schema(
+        Types.NestedField.optional(1, ID_FIELD, Types.LongType.get()),
+        Types.NestedField.required(2, NAME_FIELD, Types.StringType.get()),
+        Types.NestedField.required(3, RATING_FIELD, Types.FloatType.get()),
+        Types.NestedField.required(4, RELEASE_DATE_FIELD, Types.DateType.get())
+    );
+
+    /**
+     * Snapshot summary property holding the highest PG id exported to Iceberg.
+     */
+    public static final String EXPORT_WATERMARK_PROPERTY = "movies.export.max-id";
+
+    /**
+     * Checkpoint holding the last Iceberg snapshot applied to PG.
+     */
+    public static final String ICEBERG_SYNC_CHECKPOINT = "iceberg-movies-to-pg";
+
     public static final String EXTRA_MOVIES_CSV = "extra_movies.csv";
 
+    public static final int DATABASE_BATCH_SIZE = 1000;
+
     private final MovieRepository movieRepository;
 
+    private final MovieBulkLoader movieBulkLoader;
+
+    private final MovieShardedExtractor movieShardedExtractor;
+
     private final S3Client s3Client;
 
-    private final DataSource dataSource;
+    private final S3Buckets s3Buckets;
+
+    private final MoviesCatalog moviesCatalog;
+
+    private final IcebergMovieWriter icebergMovieWriter;
 
-    private final String s3EndpointOverride;
+    private final IcebergMovieScanner icebergMovieScanner;
+
+    private final IcebergTableMaintenance icebergTableMaintenance;
+
+    private final ParallelCsvIngestor csvIngestor;
+
+    private final SyncCheckpointRepository syncCheckpointRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final MovieMetrics movieMetrics;
+
+    private final BufferAllocator arrowAllocator;
 
     public int writeMoviesToParquet(String fileName, List<MovieEntity> movies) {
+        return writeMoviesToParquet(fileName, movies.stream());
+    }
 
-        final var schema = SchemaBuilder.record("MovieEntity")
-            .fields()
-            .optionalLong(ID_FIELD)
-            .requiredString(NAME_FIELD)
-            .requiredFloat(RATING_FIELD)
-            .requiredString(RELEASE_DATE_FIELD)
-            .endRecord();
-
-        final var path = new Path(fileName);
-        
-        OutputFile outputFile;
-        try {
-            outputFile = HadoopOutputFile.fromPath(path, new Configuration());
-        } catch (IOException ex) {
-            throw new RuntimeException("Error creating Parquet file", ex);
+    public int writeMoviesToParquet(String fileName, Stream<MovieEntity> movies) {
+        return writeMoviesToParquet(newLocalOutputFile(fileName), movies);
+    }
+
+    public int writeMoviesToParquet(OutputFile outputFile, Stream<MovieEntity> movies) {
+        return writeMoviesToParquet(outputFile, movies, ParquetWriteOptions.DEFAULTS);
+    }
+
+    /**
+     * Writes with {@link MovieParquet}, storing the release date as a native DATE.
+     * Files written by the former Avro path are still readable by every reader here.
+     */
+    public int writeMoviesToParquet(OutputFile outputFile, Stream<MovieEntity> movies, ParquetWriteOptions options) {
+        final var stats = MovieParquet.writeWithStats(outputFile, movies, options);
+        movieMetrics.recordParquetWrite(outputFile, stats);
+        return (int) stats.rows();
+    }
+
+    public List<MovieEntity> readMoviesFromParquet(String fileName) {
+        try (var stream = streamMoviesFromParquet(fileName)) {
+            final var movies = stream.toList();
+            log.info("Successfully read {} movies from Parquet file", movies.size());
+            return movies;
         }
+    }
 
-        int count = 0;
-        try (ParquetWriter<GenericRecord> writer = AvroParquetWriter.<GenericRecord>builder(outputFile)
-                .withSchema(schema)
-                .withWriteMode(Mode.OVERWRITE)
-                .withDictionaryEncoding(true)
-                .withCompressionCodec(CompressionCodecName.GZIP)
-                .config(AvroWriteSupport.WRITE_OLD_LIST_STRUCTURE, "false")
-                .build()) {
-
-            for (final var movie : movies) {
-                final GenericRecord movieRecord = new GenericData.Record(schema);
-                movieRecord.put(ID_FIELD, movie.getId());
-                movieRecord.put(NAME_FIELD, movie.getName());
-                movieRecord.put(RATING_FIELD, movie.getRating());
-                movieRecord.put(RELEASE_DATE_FIELD, movie.getReleaseDate().toString());
-                writer.write(movieRecord);
-                count++;
+    /**
+     * Lazily reads a Parquet file, one record at a time. The returned stream
+     * owns the underlying reader and must be closed by the caller.
+     */
+    public Stream<MovieEntity> streamMoviesFromParquet(String fileName) {
+        final var conf = readerConfiguration();
+        final var inputFile = newLocalInputFile(fileName);
+        return recordBytesRead(inputFile, MovieParquet.read(inputFile, conf));
+    }
+
+    /**
+     * Lazily reads only the given columns (all of them when none is given).
+     * Fields that are not projected are left null on the returned entities.
+     * Column chunks are fetched with vectored reads, which {@link S3InputFile}
+     * turns into coalesced, parallel ranged GETs.
+     */
+    public Stream<MovieEntity> streamMoviesFromParquet(InputFile inputFile, String... columns) {
+        final var conf = readerConfiguration();
+        conf.setBoolean(ParquetInputFormat.HADOOP_VECTORED_IO_ENABLED, true);
+        if (columns.length > 0) {
+            MovieReadSupport.setRequestedColumns(conf, columns);
+        }
+        return recordBytesRead(inputFile, MovieParquet.read(inputFile, conf));
+    }
+
+    /**
+     * The movies matching the predicate, e.g. {@link MovieParquetLookup#idEquals},
+     * skipping the row groups and pages that statistics, dictionaries, bloom
+     * filters and page indexes rule out.
+     */
+    public ParquetScanResult findMoviesInParquet(InputFile inputFile, FilterPredicate predicate) {
+        final long s3BytesBefore = s3BytesRead(inputFile);
+        final var result = MovieParquetLookup.find(inputFile, predicate);
+        recordBytesRead(inputFile, s3BytesBefore);
+        movieMetrics.recordParquetScan(result.metrics());
+        log.info("Looked up {} in {}: {}", predicate, inputFile, result.metrics());
+        return result;
+    }
+
+    /**
+     * Rating statistics per release year of the movies rated at least
+     * {@code minRating}. Only the rating and release date columns are read, into
+     * columnar batches, so no object is created per row.
+     */
+    public List<YearlyRating> ratingsByReleaseYear(InputFile inputFile, float minRating) {
+        final var aggregator = new YearlyRatingAggregator();
+        final long s3BytesBefore = s3BytesRead(inputFile);
+        try (var reader = MovieBatchReader.open(inputFile, MovieBatchReader.DEFAULT_BATCH_SIZE,
+                RATING_FIELD, RELEASE_DATE_FIELD)) {
+            final var selection = new Selection(MovieBatchReader.DEFAULT_BATCH_SIZE);
+            for (var batch = reader.next(); batch != null; batch = reader.next()) {
+                selection.selectAll(batch);
+                MovieBatchFilters.ratingBetween(batch, selection, minRating, Float.MAX_VALUE);
+                aggregator.add(batch, selection);
             }
-            return count;
-        } catch (Exception ex) {
-            throw new RuntimeException("Error writing Parquet file", ex);
         }
+        recordBytesRead(inputFile, s3BytesBefore);
+        return aggregator.result();
     }
 
-    public List<MovieEntity> readMoviesFromParquet(String fileName) {
-        final var path = new Path(fileName);
-        InputFile inputFile;
-        
-        try {
-            inputFile = HadoopInputFile.fromPath(path, new Configuration());
-        } catch (IOException ex) {
-            throw new RuntimeException("Error opening Parquet file", ex);
-        }
-        final var movies = new ArrayList<MovieEntity>();
-        try (var reader = AvroParquetReader.<GenericRecord>builder(inputFile).build()) {
-            GenericRecord movieRecord;
-            while ((movieRecord = reader.read()) != null) {
-                final MovieEntity movie = new MovieEntity();
-                movie.setId((Long) movieRecord.get(ID_FIELD));
-                movie.setName(movieRecord.get(NAME_FIELD).toString());
-                movie.setRating((Float) movieRecord.get(RATING_FIELD));
-                movie.setReleaseDate(LocalDate.parse(movieRecord.get(RELEASE_DATE_FIELD).toString()));
-                movies.add(movie);
+    /**
+     * The {@code limit} best rated movies released within the given dates,
+     * highest rating first, scanned over columnar batches.
+     */
+    public List<MovieEntity> topRatedMovies(InputFile inputFile, int limit, LocalDate releasedFrom,
+            LocalDate releasedTo) {
+        final var topRated = new TopRatedMovies(limit);
+        final long s3BytesBefore = s3BytesRead(inputFile);
+        try (var reader = MovieBatchReader.open(inputFile, MovieBatchReader.DEFAULT_BATCH_SIZE)) {
+            final var selection = new Selection(MovieBatchReader.DEFAULT_BATCH_SIZE);
+            for (var batch = reader.next(); batch != null; batch = reader.next()) {
+                selection.selectAll(batch);
+                MovieBatchFilters.releasedBetween(batch, selection, releasedFrom, releasedTo);
+                topRated.add(batch, selection);
             }
-            log.info("Successfully read {} movies from Parquet file", movies.size());
-            return movies;
-        } catch (IOException ex) {
-            throw new RuntimeException("Error reading Parquet file", ex);
         }
+        recordBytesRead(inputFile, s3BytesBefore);
+        return topRated.result();
+    }
+
+    /**
+     * Parquet output file writing a local file through a buffered channel,
+     * bypassing Hadoop's local file system.
+     */
+    public OutputFile newLocalOutputFile(String fileName) {
+        return new NioOutputFile(Path.of(fileName));
+    }
+
+    /**
+     * Parquet input file reading a local file through a memory mapping,
+     * bypassing Hadoop's local file system.
+     */
+    public InputFile newLocalInputFile(String fileName) {
+        return new NioInputFile(Path.of(fileName));
+    }
+
+    /**
+     * Reader settings without Hadoop's default resources: only the keys set
+     * here are read, so parsing {@code core-default.xml} on every call is wasted.
+     */
+    private static Configuration readerConfiguration() {
+        return new Configuration(false);
+    }
+
+    /**
+     * Parquet input file reading the given key of the movies bucket with ranged GETs.
+     */
+    public S3InputFile newS3InputFile(String key) {
+        return new S3InputFile(s3Client, MOVIES_BUCKET, key);
     }
 
     public List<MovieEntity> readMoviesFromCsv(Reader reader) {
-        try (final var csvReader = new CSVReaderBuilder(reader).withSkipLines(1).build()) {
-                return csvReader.readAll().stream().map(this::mapToMovieEntity).toList();
-        } catch (Exception ex) {
-            throw new RuntimeException("Error reading CSV", ex);
-        }
+        return MovieCsv.read(reader);
+    }
+
+    /**
+     * Parses the CSV on several cores and hands the movies to the sink in batches,
+     * on the calling thread. Memory stays bounded by the chunks in flight.
+     */
+    public long ingestMoviesFromCsv(Reader reader, boolean ordered, Consumer<List<MovieEntity>> sink) {
+        final long start = System.nanoTime();
+        final long count = csvIngestor.ingest(reader, ordered, sink);
+        logThroughput("csv-ingest", "Ingested", count, "CSV", start);
+        return count;
+    }
+
+    /**
+     * Lazily parses the CSV on several cores, keeping the file order. The
+     * returned stream must be closed by the caller.
+     */
+    public Stream<MovieEntity> streamMoviesFromCsv(Reader reader) {
+        return csvIngestor.stream(reader, true);
     }
 
     public int writeMoviesToCsv(Writer writer, List<MovieEntity> movies) {
         log.info("Writing {} movies to CSV", movies.size());
-        int count = 0;
-        try (final var csvWriter = new CSVWriterBuilder(writer).build()) {
-            csvWriter.writeNext(new String[] { ID_FIELD, NAME_FIELD, RATING_FIELD, RELEASE_DATE_FIELD });
-            for (final var movie : movies) {
-                final var data = new String[] {
-                    movie.getId() == null ? "" : String.valueOf(movie.getId()),
-                    movie.getName(),
-                    String.valueOf(movie.getRating()),
-                    movie.getReleaseDate().toString()
-                };
-                csvWriter.writeNext(data);
-                count++;
-            }
-            csvWriter.flush();
-            return count;
-        } catch (Exception ex) {
-            throw new RuntimeException("Error reading CSV", ex);
-        }
+        return writeMoviesToCsv(writer, movies.stream());
+    }
+
+    public int writeMoviesToCsv(Writer writer, Stream<MovieEntity> movies) {
+        return MovieCsv.write(writer, movies);
     }
 
     @Transactional(readOnly = true)
@@ -193,6 +335,54 @@ public class MovieService {
         log.info("Successfully read {} movies from PG", movies.size());
         return movies;
     }
+
+    /**
+     * Streams the movies table into a Parquet file through a server side cursor,
+     * so only one fetch batch is held in memory regardless of the table size.
+     */
+    @Transactional(readOnly = true)
+    public int exportMoviesFromDatabaseToParquet(String fileName) {
+        final long start = System.nanoTime();
+        try (var movies = movieRepository.streamAll()) {
+            final int count = writeMoviesToParquet(fileName, movies);
+            logThroughput("pg-to-parquet", "Streamed", count, "PG to Parquet file", start);
+            return count;
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public int exportMoviesFromDatabaseToParquet(OutputFile outputFile) {
+        final long start = System.nanoTime();
+        try (var movies = movieRepository.streamAll()) {
+            final int count = writeMoviesToParquet(outputFile, movies);
+            logThroughput("pg-to-parquet", "Streamed", count, "PG to " + outputFile.getPath(), start);
+            return count;
+        }
+    }
+
+    /**
+     * Exports the movies table into one Parquet file per shard, e.g. with
+     * {@code shard -> newLocalOutputFile("/tmp/movies-" + shard + ".parquet")}.
+     * The shards are id ranges read and written in parallel, each on its own
+     * connection, all from the same snapshot of the table.
+     */
+    public long exportMoviesFromDatabaseToParquet(int shards, IntFunction<OutputFile> outputFiles) {
+        final long start = System.nanoTime();
+        final var counts = movieShardedExtractor.extract(0, shards,
+            (shard, movies) -> writeMoviesToParquet(outputFiles.apply(shard.index()), movies));
+        final long count = counts.stream().mapToLong(Integer::longValue).sum();
+        logThroughput("pg-to-parquet-sharded", "Exported", count, "PG in " + counts.size() + " shards to Parquet",
+            start);
+        return count;
+    }
+
+    /**
+     * Parquet output file backed by a multipart upload to the movies bucket.
+     */
+    public OutputFile newS3OutputFile(String key) {
+        return new S3OutputFile(s3Client, MOVIES_BUCKET, key);
+    }
+
     @Transactional(readOnly = false)
     public void ensureDefaultDatabase() {
         final long defaultCount = 48L;
@@ -207,26 +397,35 @@ public class MovieService {
         movieRepository.deleteAllByIdGreaterThan(0L);
     }
 
+    /**
+     * Recreates the bucket empty, deleting its objects in batches of up to 1000 keys.
+     */
     public void ensureCleanBucket(String bucketName) {
-        final boolean bucketExists = s3Client.listBuckets()
-            .buckets()
-            .stream()
-            .anyMatch(b -> b.name().equals(bucketName));
-
-        if (bucketExists) {
-            log.info("Bucket {} already exists, removing it", bucketName);
-            final var listFiles = ListObjectsV2Request.builder()
-                .bucket(bucketName)
-                .build();
-            log.info("Removing all files (if any) from bucket {}", bucketName);
-            s3Client.listObjectsV2Paginator(listFiles).contents()
-                .forEach(obj -> s3Client.deleteObject(b -> b.bucket(bucketName).key(obj.key())));
-            s3Client.deleteBucket(DeleteBucketRequest.builder().bucket(bucketName).build());
-        } else {
-            log.info("Bucket {} does not exists", bucketName);
+        s3Buckets.ensureClean(bucketName);
+    }
+
+    /**
+     * Drops the movies table from the catalog along with the sync checkpoint
+     * pointing into its history. The files under the table location are
+     * deleted by prefix, without reading any manifest, unless the warehouse
+     * bucket was already wiped.
+     */
+    public void ensureCleanIcebergTable() {
+        String location = null;
+        if (moviesCatalog.tableExists(ICEBERG_TABLE_ID)) {
+            try {
+                location = moviesCatalog.loadTable(ICEBERG_TABLE_ID).location();
+            } catch (NotFoundException ex) {
+                // the metadata files went away with the warehouse bucket
+            }
+        }
+        if (moviesCatalog.dropTable(ICEBERG_TABLE_ID, false)) {
+            log.info("Dropped Iceberg table {}", ICEBERG_TABLE_ID);
         }
-        s3Client.createBucket(b -> b.bucket(bucketName));
-        log.info("Created a new bucket {}", bucketName);
+        if (location != null) {
+            s3Buckets.deleteLocation(location);
+        }
+        syncCheckpointRepository.delete(ICEBERG_SYNC_CHECKPOINT);
     }
 
     public void uploadMoviesCsv() {
@@ -247,31 +446,63 @@ public class MovieService {
             .bucket(MOVIES_BUCKET)
             .key(EXTRA_MOVIES_CSV)
             .build();
-            return new InputStreamReader(s3Client.getObject(getRequest));
+            return new BufferedReader(new InputStreamReader(s3Client.getObject(getRequest), StandardCharsets.UTF_8));
         } catch (Exception ex) {
             throw new RuntimeException("Error downloading movies CSV file", ex);
         }
     }
 
-    private void uploadFile(String fileName, InputStream srcData, String contentType) throws IOException {
-        final var putRequest = PutObjectRequest.builder()
-            .bucket(MOVIES_BUCKET)
-            .key(fileName)
-            .contentType(contentType)
-            .build();
-        s3Client.putObject(putRequest, RequestBody.fromBytes(srcData.readAllBytes()));
-        log.info("Uploaded file {} to bucket {}", fileName, MOVIES_BUCKET);
+    /**
+     * Records the bytes the stream transferred once it is closed.
+     */
+    private Stream<MovieEntity> recordBytesRead(InputFile inputFile, Stream<MovieEntity> movies) {
+        final long s3BytesBefore = s3BytesRead(inputFile);
+        return movies.onClose(() -> recordBytesRead(inputFile, s3BytesBefore));
+    }
+
+    /**
+     * Records the bytes {@link S3InputFile} counted since {@code s3BytesBefore}.
+     * Local files are read through the page cache, their whole length is taken.
+     */
+    private void recordBytesRead(InputFile inputFile, long s3BytesBefore) {
+        try {
+            final long bytes = inputFile instanceof S3InputFile s3InputFile
+                ? s3InputFile.getBytesRead() - s3BytesBefore
+                : inputFile.getLength();
+            movieMetrics.recordParquetRead(inputFile, bytes);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Error getting Parquet file length", ex);
+        }
+    }
+
+    private static long s3BytesRead(InputFile inputFile) {
+        return inputFile instanceof S3InputFile s3InputFile ? s3InputFile.getBytesRead() : 0;
     }
 
-    private MovieEntity mapToMovieEntity(String[] data) {
-        final var movie = new MovieEntity();
-        if (StringUtils.hasText(data[0])) {
-            movie.setId(Long.parseLong(data[0]));
+    /**
+     * Uploads the data, publishing the object only once all of it was read:
+     * when reading fails, the upload is aborted and any previous object kept.
+     */
+    public void uploadFile(String fileName, InputStream srcData, String contentType) throws IOException {
+        final var out = new S3MultipartOutputStream(s3Client, MOVIES_BUCKET, fileName, contentType);
+        try {
+            srcData.transferTo(out);
+        } catch (IOException | RuntimeException ex) {
+            out.abort();
+            throw ex;
         }
-        movie.setName(data[1]);
-        movie.setRating(Float.parseFloat(data[2]));
-        movie.setReleaseDate(LocalDate.parse(data[3]));
-        return movie;
+        out.close();
+        log.info("Uploaded file {} to bucket {}", fileName, MOVIES_BUCKET);
+    }
+
+    /**
+     * Records the transfer under {@code path}, a fixed name used as metric tag,
+     * and logs it.
+     */
+    private void logThroughput(String path, String action, long count, String target, long startNanos) {
+        final long elapsedMillis = movieMetrics.recordTransfer(path, count, startNanos);
+        log.info("{} {} movies from {} in {} ms ({} rows/s)", action, count, target, elapsedMillis,
+            count * 1000L / elapsedMillis);
     }
 
     @Modifying
@@ -284,130 +515,280 @@ public class MovieService {
         }
     }
 
-    private String getJdbcCatalogUrl() {
-        try (final var conn = dataSource.getConnection()) {
-            return conn.getMetaData().getURL();
-        } catch (SQLException ex) {
-            throw new RuntimeException("Error getting catalog URL", ex);
+    /**
+     * Saves the movies in chunks of {@link #DATABASE_BATCH_SIZE}, so only one
+     * chunk is kept in memory while the source is being consumed.
+     */
+    @Modifying
+    @Transactional(readOnly = false)
+    public int writeMoviesToDatabase(Stream<MovieEntity> movies) {
+        final long start = System.nanoTime();
+        final var batch = new ArrayList<MovieEntity>(DATABASE_BATCH_SIZE);
+        int count = 0;
+        final var iterator = movies.iterator();
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            if (batch.size() == DATABASE_BATCH_SIZE) {
+                count += movieRepository.saveAll(batch).size();
+                batch.clear();
+            }
         }
-    }
-
-    private String getJdbcCatalogUsername() {
-        try (final var conn = dataSource.getConnection()) {
-            return conn.getMetaData().getUserName();
-        } catch (SQLException ex) {
-            throw new RuntimeException("Error getting catalog username", ex);
+        if (!batch.isEmpty()) {
+            count += movieRepository.saveAll(batch).size();
         }
+        logThroughput("stream-to-pg", "Saved", count, "stream to PG (saveAll)", start);
+        return count;
     }
 
-    private String getJdbcCatalogPassword() {
-        return "postgres";
+    /**
+     * Bulk loads the movies with PostgreSQL COPY in binary format, committing in
+     * chunks. Much faster than {@link #writeMoviesToDatabase(Stream)}, which
+     * issues one INSERT per row. Ids are assigned by the database.
+     */
+    public long bulkLoadMoviesToDatabase(Stream<MovieEntity> movies) {
+        final long start = System.nanoTime();
+        final long count = movieBulkLoader.copyIn(movies, false);
+        logThroughput("stream-to-pg-copy", "Copied", count, "stream to PG (COPY)", start);
+        return count;
     }
 
     public int writeMoviesToIceberg(List<MovieEntity> movies) {
-
         if (movies == null || movies.isEmpty()) {
             return 0;
         } else {
-            try (JdbcCatalog catalog = new JdbcCatalog()) {
-                final var props = new HashMap<String, String>();
-    
-                props.put(CatalogProperties.CATALOG_IMPL, JdbcCatalog.class.getName());
-                props.put(CatalogProperties.URI, getJdbcCatalogUrl());
-                props.put(JdbcCatalog.PROPERTY_PREFIX + "user", getJdbcCatalogUsername());
-                props.put(JdbcCatalog.PROPERTY_PREFIX + "password", getJdbcCatalogPassword());
-        
-                props.put(CatalogProperties.WAREHOUSE_LOCATION, "s3://" + WAREHOUSE_BUCKET);
-                props.put(CatalogProperties.FILE_IO_IMPL, "org.apache.iceberg.aws.s3.S3FileIO");
-                props.put(S3FileIOProperties.ENDPOINT, s3EndpointOverride);
-                props.put(S3FileIOProperties.PATH_STYLE_ACCESS, "true");
-                props.put(S3FileIOProperties.ACCESS_KEY_ID, "test");
-                props.put(S3FileIOProperties.SECRET_ACCESS_KEY, "test");
-                System.setProperty("aws.region", "us-east-1");
-    
-                catalog.setConf(new Configuration());
-                catalog.initialize("MoviesCatalog", props);
-        
-                final var namespace = Namespace.of("public");
-                final var schema = new Schema(
-                    Types.NestedField.optional(1, MovieService.ID_FIELD, Types.LongType.get()),
-                    Types.NestedField.required(2, MovieService.NAME_FIELD, Types.StringType.get()),
-                    Types.NestedField.required(3, MovieService.RATING_FIELD, Types.FloatType.get()),
-                    Types.NestedField.required(4, MovieService.RELEASE_DATE_FIELD, Types.DateType.get())
-                );
-        
-                final var partitionConfig = PartitionSpec.unpartitioned();
-                final var tableIdentifier = TableIdentifier.of(namespace, ICEBERG_TABLE);
-                final var table = catalog.createTable(tableIdentifier, schema, partitionConfig);
-                final var filePath = table.location() + "/" + UUID.randomUUID().toString();
-    
-                final var file = table.io().newOutputFile(filePath);
-                DataWriter<org.apache.iceberg.data.GenericRecord> dataWriter = Parquet.writeData(file)
-                    .schema(schema)
-                    .createWriterFunc(messageType -> GenericParquetWriter.create(schema, messageType))
-                    .overwrite()
-                    .withSpec(partitionConfig)
-                    .build();
-                        
-                var movieRecord = org.apache.iceberg.data.GenericRecord.create(schema);
-                int count = 0;
-                for (var movie: movies) {
-                    movieRecord = movieRecord.copy();
-                    movieRecord.setField(MovieService.ID_FIELD, movie.getId());
-                    movieRecord.setField(MovieService.NAME_FIELD, movie.getName());
-                    movieRecord.setField(MovieService.RATING_FIELD, movie.getRating());
-                    movieRecord.setField(MovieService.RELEASE_DATE_FIELD, movie.getReleaseDate());
-                    dataWriter.write(movieRecord);
-                    count++;
+            return writeMoviesToIceberg(movies.stream());
+        }
+    }
+
+    /**
+     * Creates the Iceberg table with the configured partition spec and writes the
+     * movies with several writer threads, committing all data files at once.
+     */
+    public int writeMoviesToIceberg(Stream<MovieEntity> movies) {
+        try {
+            final var partitionConfig = icebergMovieWriter.partitionSpec(ICEBERG_SCHEMA);
+            final var table = moviesCatalog.createTable(ICEBERG_TABLE_ID, ICEBERG_SCHEMA, partitionConfig);
+            final int count = (int) icebergMovieWriter.append(table, movies);
+            moviesCatalog.refresh(ICEBERG_TABLE_ID);
+            log.info("Successfully wrote {} movies to Iceberg table", count);
+            return count;
+        } catch (Exception ex) {
+            throw new RuntimeException("Error writing to Iceberg", ex);
+        }
+    }
+
+    /**
+     * Appends the movies added to PG since the last export, i.e. those above the
+     * id watermark kept in the snapshot summary, creating the table on the first
+     * run. The cost is proportional to the new rows. Rows updated in place are
+     * not picked up, and a single exporter at a time is assumed.
+     */
+    @Transactional(readOnly = true)
+    public long exportNewMoviesToIceberg() {
+        final long start = System.nanoTime();
+        final var table = moviesCatalog.loadOrCreateTable(ICEBERG_TABLE_ID, ICEBERG_SCHEMA,
+            icebergMovieWriter.partitionSpec(ICEBERG_SCHEMA));
+        final long watermark = IcebergSnapshots.latestSummaryValue(table, EXPORT_WATERMARK_PROPERTY)
+            .map(Long::parseLong)
+            .orElse(0L);
+
+        final var maxId = new AtomicLong(watermark);
+        final List<DataFile> dataFiles;
+        try (var movies = movieRepository.streamAllByIdGreaterThan(watermark)) {
+            // rows come in id order, so the last one seen holds the new watermark
+            dataFiles = icebergMovieWriter.write(table, movies.peek(movie -> maxId.set(movie.getId())));
+        }
+        final long count = icebergMovieWriter.commit(table, dataFiles,
+            Map.of(EXPORT_WATERMARK_PROPERTY, String.valueOf(maxId.get())));
+        if (count > 0) {
+            moviesCatalog.refresh(ICEBERG_TABLE_ID);
+        }
+        logThroughput("pg-to-iceberg", "Exported", count, "PG above id " + watermark + " to Iceberg", start);
+        return count;
+    }
+
+    /**
+     * Same as {@link #exportNewMoviesToIceberg()}, reading the new rows in
+     * {@code shards} id ranges in parallel, all from the same snapshot of the
+     * table. Each shard writes its own data files, which are then committed
+     * together in one append.
+     */
+    public long exportNewMoviesToIceberg(int shards) {
+        final long start = System.nanoTime();
+        final var table = moviesCatalog.loadOrCreateTable(ICEBERG_TABLE_ID, ICEBERG_SCHEMA,
+            icebergMovieWriter.partitionSpec(ICEBERG_SCHEMA));
+        final long watermark = IcebergSnapshots.latestSummaryValue(table, EXPORT_WATERMARK_PROPERTY)
+            .map(Long::parseLong)
+            .orElse(0L);
+
+        final var maxId = new AtomicLong(watermark);
+        final var dataFiles = movieShardedExtractor.extract(watermark, shards, (shard, movies) -> {
+            // the last shard ends at the highest id
+            maxId.accumulateAndGet(shard.lastId(), Math::max);
+            return icebergMovieWriter.write(table, movies, 1);
+        });
+        final long count = icebergMovieWriter.commit(table, dataFiles.stream().flatMap(List::stream).toList(),
+            Map.of(EXPORT_WATERMARK_PROPERTY, String.valueOf(maxId.get())));
+        if (count > 0) {
+            moviesCatalog.refresh(ICEBERG_TABLE_ID);
+        }
+        logThroughput("pg-to-iceberg-sharded", "Exported", count,
+            "PG above id " + watermark + " in " + dataFiles.size() + " shards to Iceberg", start);
+        return count;
+    }
+
+    /**
+     * Loads into PG the rows committed to Iceberg since the last sync, upserting
+     * them by id (or by name when the id is null). The first sync loads the
+     * current snapshot in full. After that each snapshot is applied in its own
+     * transaction together with the checkpoint, so a restart resumes after the
+     * last applied one: appends and overwrites upsert the rows they add, and
+     * rewrites of the same rows change nothing. Snapshots removing rows cannot
+     * be applied, as rows are never deleted from PG, and fail the sync.
+     */
+    public long syncNewMoviesFromIceberg() {
+        final long start = System.nanoTime();
+        moviesCatalog.refresh(ICEBERG_TABLE_ID);
+        final var table = moviesCatalog.loadTable(ICEBERG_TABLE_ID);
+        final var current = table.currentSnapshot();
+        if (current == null) {
+            return 0;
+        }
+
+        final var checkpoint = syncCheckpointRepository.find(ICEBERG_SYNC_CHECKPOINT);
+        if (checkpoint.isEmpty()) {
+            final long count = transactionTemplate.execute(status -> {
+                final long loaded = upsertToDatabase(
+                    IcebergGenerics.read(table).useSnapshot(current.snapshotId()).build());
+                syncCheckpointRepository.save(ICEBERG_SYNC_CHECKPOINT, current.snapshotId());
+                return loaded;
+            });
+            logThroughput("iceberg-to-pg", "Synced", count, "Iceberg snapshot " + current.snapshotId() + " to PG",
+                start);
+            return count;
+        }
+
+        final var pending = new ArrayList<Snapshot>();
+        boolean reachedCheckpoint = false;
+        for (var snapshot : SnapshotUtil.ancestorsOf(current.snapshotId(), table::snapshot)) {
+            if (snapshot.snapshotId() == checkpoint.getAsLong()) {
+                reachedCheckpoint = true;
+                break;
+            }
+            pending.add(snapshot);
+        }
+        if (!reachedCheckpoint) {
+            throw new IllegalStateException("Last synced snapshot " + checkpoint.getAsLong()
+                + " is no longer in the history of " + ICEBERG_TABLE_ID + ", delete the checkpoint to resync");
+        }
+        Collections.reverse(pending);
+
+        long count = 0;
+        for (var snapshot : pending) {
+            count += transactionTemplate.execute(status -> applySnapshot(table, snapshot));
+        }
+        logThroughput("iceberg-to-pg", "Synced", count, pending.size() + " Iceberg snapshots to PG", start);
+        return count;
+    }
+
+    private long applySnapshot(Table table, Snapshot snapshot) {
+        final long count = switch (snapshot.operation()) {
+            case DataOperations.APPEND -> upsertToDatabase(snapshot.parentId() == null
+                ? IcebergGenerics.read(table).useSnapshot(snapshot.snapshotId()).build()
+                : IcebergGenerics.read(table).appendsBetween(snapshot.parentId(), snapshot.snapshotId()).build());
+            // compaction, the same rows in other files
+            case DataOperations.REPLACE -> 0L;
+            case DataOperations.OVERWRITE -> {
+                final long removed = Long.parseLong(
+                    snapshot.summary().getOrDefault(SnapshotSummary.DELETED_RECORDS_PROP, "0"));
+                if (removed > 0) {
+                    throw unsyncableSnapshot(snapshot, removed + " rows removed");
                 }
-                dataWriter.close();
-   
-                table.newAppend().appendFile(dataWriter.toDataFile()).commit();
-                log.info("Successfully wrote {} movies to Iceberg table", count);
-                return count;
-            } catch (Exception ex) {
-                throw new RuntimeException("Error writing to Iceberg", ex);
+                // row deltas of upserts, the deleted versions come back in the added rows
+                final var batcher = new DatabaseBatcher();
+                IcebergMovieScanner.readAddedRows(table, snapshot, batcher);
+                yield batcher.finish();
+            }
+            default -> throw unsyncableSnapshot(snapshot, "rows deleted");
+        };
+        syncCheckpointRepository.save(ICEBERG_SYNC_CHECKPOINT, snapshot.snapshotId());
+        log.debug("Applied Iceberg snapshot {} ({}) with {} movies", snapshot.snapshotId(), snapshot.operation(), count);
+        return count;
+    }
+
+    private static IllegalStateException unsyncableSnapshot(Snapshot snapshot, String reason) {
+        return new IllegalStateException("Cannot sync Iceberg snapshot " + snapshot.snapshotId() + " ("
+            + snapshot.operation() + ", " + reason + ") to PG, delete the checkpoint to resync");
+    }
+
+    private long upsertToDatabase(CloseableIterable<Record> rows) {
+        final var batcher = new DatabaseBatcher();
+        try (rows) {
+            for (var movieRecord : rows) {
+                batcher.accept(IcebergRecords.toMovie(movieRecord));
             }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Error reading Iceberg rows", ex);
         }
+        return batcher.finish();
+    }
 
-        // list tables from the namespace
-        // List<TableIdentifier> tables = catalog.listTables(namespace);
-        // CloseableIterable<Record> result = IcebergGenerics.read(table).where(Expressions.equal("level", "error"))
+    /**
+     * Upserts the movies it is given into PG, {@link #DATABASE_BATCH_SIZE} at a time.
+     */
+    private final class DatabaseBatcher implements Consumer<MovieEntity> {
+
+        private final List<MovieEntity> batch = new ArrayList<>(DATABASE_BATCH_SIZE);
+
+        private long count;
+
+        @Override
+        public void accept(MovieEntity movie) {
+            batch.add(movie);
+            if (batch.size() == DATABASE_BATCH_SIZE) {
+                count += movieRepository.upsertAll(batch);
+                batch.clear();
+            }
+        }
+
+        long finish() {
+            if (!batch.isEmpty()) {
+                count += movieRepository.upsertAll(batch);
+                batch.clear();
+            }
+            return count;
+        }
     }
 
+    /**
+     * Replaces the changed movies in Iceberg by id, adding the ones not there
+     * yet, in a single row delta commit. Readers apply the equality deletes,
+     * so the old versions are gone right away. The export watermark is kept,
+     * and {@link #syncNewMoviesFromIceberg()} upserts the new versions into PG.
+     */
+    public long upsertMoviesToIceberg(List<MovieEntity> movies) {
+        final long start = System.nanoTime();
+        final var table = moviesCatalog.loadOrCreateTable(ICEBERG_TABLE_ID, ICEBERG_SCHEMA,
+            icebergMovieWriter.partitionSpec(ICEBERG_SCHEMA));
+        final long count = icebergMovieWriter.upsert(table, movies);
+        if (count > 0) {
+            moviesCatalog.refresh(ICEBERG_TABLE_ID);
+        }
+        logThroughput("iceberg-upsert", "Upserted", count, "movies to Iceberg", start);
+        return count;
+    }
+
+    /**
+     * Reads the current snapshot, with the delete files applied.
+     */
     public List<MovieEntity> readMoviesFromIceberg() {
-        try (JdbcCatalog catalog = new JdbcCatalog()) {
-            final var props = new HashMap<String, String>();
-
-            props.put(CatalogProperties.CATALOG_IMPL, JdbcCatalog.class.getName());
-            props.put(CatalogProperties.URI, getJdbcCatalogUrl());
-            props.put(JdbcCatalog.PROPERTY_PREFIX + "user", getJdbcCatalogUsername());
-            props.put(JdbcCatalog.PROPERTY_PREFIX + "password", getJdbcCatalogPassword());
-    
-            props.put(CatalogProperties.WAREHOUSE_LOCATION, "s3://" + WAREHOUSE_BUCKET);
-            props.put(CatalogProperties.FILE_IO_IMPL, "org.apache.iceberg.aws.s3.S3FileIO");
-            props.put(S3FileIOProperties.ENDPOINT, s3EndpointOverride);
-            props.put(S3FileIOProperties.PATH_STYLE_ACCESS, "true");
-            props.put(S3FileIOProperties.ACCESS_KEY_ID, "test");
-            props.put(S3FileIOProperties.SECRET_ACCESS_KEY, "test");
-            System.setProperty("aws.region", "us-east-1");
-
-            catalog.setConf(new Configuration());
-            catalog.initialize("MoviesCatalog", props);
-    
-            final var namespace = Namespace.of("public");
-            final var tableIdentifier = TableIdentifier.of(namespace, ICEBERG_TABLE);
-            final var table = catalog.loadTable(tableIdentifier);
+        try {
+            final var table = moviesCatalog.loadTable(ICEBERG_TABLE_ID);
 
             final var movies = new ArrayList<MovieEntity>();
             final var results = IcebergGenerics.read(table).build();
             for (var movieRecord : results) {
-                final var movie = new MovieEntity();
-                movie.setId(movieRecord.get(0, Long.class));
-                movie.setName(movieRecord.get(1, String.class));
-                movie.setRating(movieRecord.get(2, Float.class));
-                movie.setReleaseDate(movieRecord.get(3, LocalDate.class));
-                movies.add(movie);
+                movies.add(IcebergRecords.toMovie(movieRecord));
             }
             results.close();
             return movies;
@@ -417,4 +798,97 @@ public class MovieService {
         }         
     }
 
+    /**
+     * Reads only the movies matching the filter, e.g. a rating range or a release
+     * date window, with only the given columns set (all of them when none is given).
+     */
+    public IcebergScanResult queryMoviesFromIceberg(Expression filter, String... columns) {
+        final var table = moviesCatalog.loadTable(ICEBERG_TABLE_ID);
+        return icebergMovieScanner.scan(table, filter, List.of(columns));
+    }
+
+    /**
+     * Hands the movies table to {@code batches} as Arrow record batches of
+     * {@link MovieArrow#DEFAULT_BATCH_SIZE} rows, streamed through a server side
+     * cursor. The same off-heap batch is refilled after each call.
+     */
+    @Transactional(readOnly = true)
+    public long readMoviesFromDatabaseAsArrow(Consumer<VectorSchemaRoot> batches) {
+        final long start = System.nanoTime();
+        try (var allocator = arrowAllocator.newChildAllocator("pg-to-arrow", 0, Long.MAX_VALUE);
+                var root = MovieArrow.createRoot(allocator);
+                var movies = movieRepository.streamAll()) {
+            final var batcher = new MovieArrowBatcher(root, MovieArrow.DEFAULT_BATCH_SIZE, batches);
+            movies.forEach(batcher);
+            final long count = batcher.finish();
+            logThroughput("pg-to-arrow", "Converted", count, "PG to Arrow", start);
+            return count;
+        }
+    }
+
+    /**
+     * Hands a Parquet file to {@code batches} as Arrow record batches. The
+     * columns are copied from columnar batches, so neither records nor
+     * entities are created per row.
+     */
+    public long readMoviesFromParquetAsArrow(InputFile inputFile, Consumer<VectorSchemaRoot> batches) {
+        final long start = System.nanoTime();
+        final long s3BytesBefore = s3BytesRead(inputFile);
+        final long count;
+        try (var allocator = arrowAllocator.newChildAllocator("parquet-to-arrow", 0, Long.MAX_VALUE);
+                var root = MovieArrow.createRoot(allocator);
+                var reader = MovieBatchReader.open(inputFile, MovieArrow.DEFAULT_BATCH_SIZE)) {
+            final var batcher = new MovieArrowBatcher(root, MovieArrow.DEFAULT_BATCH_SIZE, batches);
+            for (var batch = reader.next(); batch != null; batch = reader.next()) {
+                batcher.add(batch);
+            }
+            count = batcher.finish();
+        }
+        recordBytesRead(inputFile, s3BytesBefore);
+        logThroughput("parquet-to-arrow", "Converted", count, inputFile + " to Arrow", start);
+        return count;
+    }
+
+    /**
+     * Hands the current snapshot of the Iceberg table, with the delete files
+     * applied, to {@code batches} as Arrow record batches.
+     */
+    public long readMoviesFromIcebergAsArrow(Consumer<VectorSchemaRoot> batches) {
+        final long start = System.nanoTime();
+        final var table = moviesCatalog.loadTable(ICEBERG_TABLE_ID);
+        try (var allocator = arrowAllocator.newChildAllocator("iceberg-to-arrow", 0, Long.MAX_VALUE);
+                var root = MovieArrow.createRoot(allocator);
+                var records = IcebergGenerics.read(table).build()) {
+            final var batcher = new MovieArrowBatcher(root, MovieArrow.DEFAULT_BATCH_SIZE, batches);
+            for (var movieRecord : records) {
+                batcher.accept(IcebergRecords.toMovie(movieRecord));
+            }
+            final long count = batcher.finish();
+            logThroughput("iceberg-to-arrow", "Converted", count, "Iceberg to Arrow", start);
+            return count;
+        } catch (IOException ex) {
+            throw new RuntimeException("Error reading from Iceberg", ex);
+        }
+    }
+
+    /**
+     * Compacts the Iceberg table and trims its history, on the
+     * {@code iceberg.maintenance.cron} schedule when one is set. The snapshot
+     * holding the export watermark and the last one synced to PG are never
+     * expired, so both incremental jobs can resume.
+     */
+    @Scheduled(cron = "${iceberg.maintenance.cron:-}")
+    public Optional<IcebergMaintenanceReport> maintainIcebergTable() {
+        if (!moviesCatalog.tableExists(ICEBERG_TABLE_ID)) {
+            return Optional.empty();
+        }
+        moviesCatalog.refresh(ICEBERG_TABLE_ID);
+        final var table = moviesCatalog.loadTable(ICEBERG_TABLE_ID);
+        final var protectedSnapshots = new ArrayList<Long>();
+        IcebergSnapshots.latestWithSummary(table, EXPORT_WATERMARK_PROPERTY)
+            .ifPresent(snapshot -> protectedSnapshots.add(snapshot.snapshotId()));
+        syncCheckpointRepository.find(ICEBERG_SYNC_CHECKPOINT).ifPresent(protectedSnapshots::add);
+        return Optional.of(icebergTableMaintenance.maintain(table, protectedSnapshots));
+    }
+
 }
@@ -0,0 +1,41 @@
+package com.github.raonigabriel.poc_parquet.web;
+
+import java.util.Optional;
+
+/**
+ * File formats movies can be exported in, picked by the extension of the
+ * requested file name.
+ */
+public enum ExportFormat {
+
+    PARQUET("parquet", "application/vnd.apache.parquet"),
+    CSV("csv", "text/csv;charset=UTF-8"),
+    NDJSON("ndjson", "application/x-ndjson"),
+    ARROW("arrows", "application/vnd.apache.arrow.stream");
+
+    private final String extension;
+
+    private final String contentType;
+
+    ExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public static Optional<ExportFormat> fromExtension(String extension) {
+        for (var format : values()) {
+            if (format.extension.equalsIgnoreCase(extension)) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.raonigabriel.poc_parquet.web;
+
+import static com.github.raonigabriel.poc_parquet.service.MovieService.ICEBERG_TABLE_ID;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.github.raonigabriel.poc_parquet.iceberg.MoviesCatalog;
+import com.github.raonigabriel.poc_parquet.parquet.ParquetWriteOptions;
+import com.github.raonigabriel.poc_parquet.parquet.StreamOutputFile;
+import com.github.raonigabriel.poc_parquet.pipeline.MovieConnectors;
+import com.github.raonigabriel.poc_parquet.pipeline.MovieSink;
+import com.github.raonigabriel.poc_parquet.pipeline.MovieSource;
+import com.github.raonigabriel.poc_parquet.pipeline.Pipeline;
+import com.github.raonigabriel.poc_parquet.pipeline.PipelineEngine;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exports the movies table, or a snapshot of the Iceberg table, as Parquet,
+ * CSV, NDJSON or an Arrow IPC stream written straight into the response body, e.g.
+ * {@code GET /exports/movies.parquet} or
+ * {@code GET /exports/iceberg/movies.csv?snapshot-id=123}.
+ * <p>
+ * Nothing is staged on disk. The response has no length, so it is sent with
+ * chunked transfer encoding as the response buffer of
+ * {@code movies.export.buffer-size} fills up. Each export runs as a
+ * {@link Pipeline}, so memory per request is bounded by its queues, plus one
+ * row group of {@code movies.export.parquet.row-group-size} for Parquet. With
+ * {@code spring.threads.virtual.enabled}, requests and pipeline stages all run
+ * on virtual threads, and a slow client only parks its own.
+ * <p>
+ * Virtual threads do not make the rest cheap: an export of the movies table
+ * holds a pooled JDBC connection for as long as the client takes to download
+ * it, and a Parquet export buffers a row group. The movies table exports take
+ * what is left of {@code spring.datasource.hikari.maximum-pool-size} once
+ * {@code movies.export.database.reserved-connections} are kept for the rest of
+ * the application, so slow downloads cannot starve it of connections. Iceberg
+ * exports hold no connection and have their own
+ * {@code movies.export.iceberg.max-concurrent} limit. Exports over their limit
+ * are answered with 503 at once, and Parquet exports buffer at most one row
+ * group of {@code row-group-size} per running export.
+ * <p>
+ * Once the first bytes are sent, a failure can no longer change the status;
+ * the connection is then closed before the last chunk, which clients see as a
+ * truncated body.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/exports")
+public class MovieExportController {
+
+    private final PipelineEngine pipelines;
+
+    private final MovieConnectors connectors;
+
+    private final MoviesCatalog moviesCatalog;
+
+    private final ParquetWriteOptions parquetOptions;
+
+    private final int bufferSize;
+
+    private final Semaphore databasePermits;
+
+    private final Semaphore icebergPermits;
+
+    public MovieExportController(PipelineEngine pipelines, MovieConnectors connectors, MoviesCatalog moviesCatalog,
+            @Value("${movies.export.parquet.row-group-size:16MB}") DataSize rowGroupSize,
+            @Value("${movies.export.buffer-size:64KB}") DataSize bufferSize,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+            @Value("${movies.export.database.reserved-connections:6}") int reservedConnections,
+            @Value("${movies.export.iceberg.max-concurrent:16}") int icebergMaxConcurrent) {
+        if (poolSize - reservedConnections < 1) {
+            throw new IllegalArgumentException("movies.export.database.reserved-connections must leave a connection of "
+                + "the " + poolSize + " pooled ones for exports, got " + reservedConnections);
+        }
+        if (icebergMaxConcurrent < 1) {
+            throw new IllegalArgumentException("movies.export.iceberg.max-concurrent must be positive, got "
+                + icebergMaxConcurrent);
+        }
+        this.pipelines = pipelines;
+        this.connectors = connectors;
+        this.moviesCatalog = moviesCatalog;
+        this.parquetOptions = ParquetWriteOptions.DEFAULTS.withRowGroupSize(rowGroupSize.toBytes());
+        this.bufferSize = (int) bufferSize.toBytes();
+        this.databasePermits = new Semaphore(poolSize - reservedConnections);
+        this.icebergPermits = new Semaphore(icebergMaxConcurrent);
+    }
+
+    /**
+     * The movies table, read through a server side cursor in a read-only transaction.
+     */
+    @GetMapping("/movies.{extension}")
+    public void exportMovies(@PathVariable String extension, HttpServletResponse response) throws IOException {
+        final var format = format(extension);
+        export("pg-to-http-" + format.extension(), connectors.databaseSource(), format, "movies", databasePermits,
+            response);
+    }
+
+    /**
+     * The given snapshot of the Iceberg table, the current one by default.
+     * The snapshot is pinned before reading, so commits made during the
+     * export do not show up in it.
+     */
+    @GetMapping("/iceberg/movies.{extension}")
+    public void exportIcebergMovies(@PathVariable String extension,
+            @RequestParam(name = "snapshot-id", required = false) Long snapshotId, HttpServletResponse response)
+            throws IOException {
+        final var format = format(extension);
+        if (!moviesCatalog.tableExists(ICEBERG_TABLE_ID)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No Iceberg table " + ICEBERG_TABLE_ID);
+        }
+        final var table = moviesCatalog.loadTable(ICEBERG_TABLE_ID);
+        final var snapshot = snapshotId == null ? table.currentSnapshot() : table.snapshot(snapshotId);
+        if (snapshot == null && snapshotId != null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No snapshot " + snapshotId + " in "
+                + ICEBERG_TABLE_ID);
+        }
+
+        final var name = "iceberg-to-http-" + format.extension();
+        if (snapshot == null) {
+            // nothing committed yet, exports an empty file
+            export(name, connectors.icebergSource(ICEBERG_TABLE_ID), format, "movies", icebergPermits, response);
+        } else {
+            export(name, connectors.icebergSource(ICEBERG_TABLE_ID, snapshot.snapshotId()), format,
+                "movies-" + snapshot.snapshotId(), icebergPermits, response);
+        }
+    }
+
+    /**
+     * Runs the export when one of {@code permits} is free, answering 503 otherwise.
+     */
+    private void export(String name, MovieSource source, ExportFormat format, String fileName, Semaphore permits,
+            HttpServletResponse response) throws IOException {
+        if (!permits.tryAcquire()) {
+            log.debug("Rejected {}, too many exports running", name);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many exports running");
+        }
+        try {
+            write(name, source, format, fileName, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void write(String name, MovieSource source, ExportFormat format, String fileName,
+            HttpServletResponse response) throws IOException {
+        response.setBufferSize(bufferSize);
+        response.setContentType(format.contentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+            .filename(fileName + "." + format.extension())
+            .build()
+            .toString());
+        final var result = pipelines.run(Pipeline.of(name, source, sink(format, response.getOutputStream(), name)));
+        log.debug("Exported {} movies as {}", result.written(), format);
+    }
+
+    private MovieSink sink(ExportFormat format, OutputStream out, String name) {
+        return switch (format) {
+            case PARQUET -> connectors.parquetSink(new StreamOutputFile(out, name), parquetOptions);
+            case CSV -> connectors.csvSink(() -> new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            case NDJSON -> connectors.ndjsonSink(() -> out);
+            case ARROW -> connectors.arrowStreamSink(() -> out);
+        };
+    }
+
+    private static ExportFormat format(String extension) {
+        return ExportFormat.fromExtension(extension)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown export format "
+                + extension));
+    }
+}
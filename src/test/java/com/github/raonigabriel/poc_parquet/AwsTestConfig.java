@@ -8,6 +8,11 @@ import org.testcontainers.containers.localstack.LocalStackContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.utility.DockerImageName;
 
+import com.github.raonigabriel.poc_parquet.s3.CachingS3Client;
+import com.github.raonigabriel.poc_parquet.s3.S3MetricPublisher;
+import com.github.raonigabriel.poc_parquet.s3.S3ObjectCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.auth.credentials.AwsCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
@@ -31,7 +36,7 @@ public class AwsTestConfig {
 
 	@Bean
     @Primary
-	S3Client s3Client() {
+	S3Client s3Client(MeterRegistry meterRegistry, S3ObjectCache objectCache) {
         LOCALSTACK.start();
 		log.info("Creating S3 client");
 
@@ -48,20 +53,17 @@ public class AwsTestConfig {
 			};
 
 		try {
-			return S3Client.builder()
+			final var s3Client = S3Client.builder()
 				.credentialsProvider(StaticCredentialsProvider.create(credentials))
 				.endpointOverride(new URI(LOCALSTACK.getEndpointOverride(S3).toString())) 
 				.region(Region.US_EAST_1)
 				.forcePathStyle(true)
 			    .httpClientBuilder(ApacheHttpClient.builder())
+				.overrideConfiguration(c -> c.addMetricPublisher(new S3MetricPublisher(meterRegistry)))
 			    .build();
+			return objectCache.isEnabled() ? new CachingS3Client(s3Client, objectCache) : s3Client;
 		} catch (URISyntaxException ex) {
 			throw new BeanInitializationException("Failed to create S3 client", ex);
 		}
 	}
-
-	@Bean
-	public String s3EndpointOverride() {
-		return LOCALSTACK.getEndpointOverride(S3).toString();
-	}
 }
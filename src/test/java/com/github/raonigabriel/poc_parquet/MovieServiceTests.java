@@ -1,21 +1,92 @@
 package com.github.raonigabriel.poc_parquet;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.catalog.TableIdentifier;
+import org.apache.iceberg.data.IcebergGenerics;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.parquet.hadoop.util.HadoopOutputFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
 
+import com.github.raonigabriel.poc_parquet.arrow.MovieArrow;
+import com.github.raonigabriel.poc_parquet.arrow.MovieArrowWriter;
+import com.github.raonigabriel.poc_parquet.columnar.YearlyRating;
+import com.github.raonigabriel.poc_parquet.iceberg.IcebergMovieWriter;
+import com.github.raonigabriel.poc_parquet.iceberg.MoviesCatalog;
+import com.github.raonigabriel.poc_parquet.iceberg.PartitionSpecs;
+import com.github.raonigabriel.poc_parquet.metrics.MovieMetrics;
+import com.github.raonigabriel.poc_parquet.model.MovieEntity;
+import com.github.raonigabriel.poc_parquet.parquet.AvroMovieParquet;
+import com.github.raonigabriel.poc_parquet.parquet.MovieParquetLookup;
+import com.github.raonigabriel.poc_parquet.parquet.ParquetWriteOptions;
+import com.github.raonigabriel.poc_parquet.pipeline.MovieConnectors;
+import com.github.raonigabriel.poc_parquet.pipeline.Pipeline;
+import com.github.raonigabriel.poc_parquet.pipeline.PipelineEngine;
+import com.github.raonigabriel.poc_parquet.pipeline.PipelineResult;
+import com.github.raonigabriel.poc_parquet.repository.SyncCheckpointRepository;
+import com.github.raonigabriel.poc_parquet.s3.S3Buckets;
+import com.github.raonigabriel.poc_parquet.s3.S3InputFile;
+import com.github.raonigabriel.poc_parquet.s3.S3MultipartOutputStream;
+import com.github.raonigabriel.poc_parquet.s3.S3ObjectCache;
 import com.github.raonigabriel.poc_parquet.service.MovieService;
+import com.github.raonigabriel.poc_parquet.web.MovieExportController;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.SneakyThrows;
+import software.amazon.awssdk.services.s3.S3Client;
 
-@SpringBootTest
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
 @Import(AwsTestConfig.class)
 class MovieServiceTests {
@@ -25,10 +96,53 @@ class MovieServiceTests {
 	@Autowired
 	private MovieService service;
 
+	@Autowired
+	private MoviesCatalog catalog;
+
+	@Autowired
+	private PipelineEngine pipelines;
+
+	@Autowired
+	private MovieConnectors connectors;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private S3Buckets buckets;
+
+	@Autowired
+	private MovieExportController exports;
+
+	@Autowired
+	private MovieMetrics movieMetrics;
+
+	@Autowired
+	private S3Client s3Client;
+
+	@Autowired
+	private BufferAllocator arrowAllocator;
+
+	@Autowired
+	private SyncCheckpointRepository syncCheckpoints;
+
+	@LocalServerPort
+	private int port;
+
+	@TempDir
+	static java.nio.file.Path s3CacheDirectory;
+
+	@DynamicPropertySource
+	static void s3CacheProperties(DynamicPropertyRegistry registry) {
+		// a fresh cache per run, so entries of previous runs do not turn misses into hits
+		registry.add("aws.s3.cache.directory", () -> s3CacheDirectory.toString());
+	}
+
 	@BeforeEach
 	void setUp(){
 		service.ensureCleanBucket(MovieService.MOVIES_BUCKET);
 		service.ensureCleanBucket(MovieService.WAREHOUSE_BUCKET);
+		service.ensureCleanIcebergTable();
 		service.uploadMoviesCsv();
 		service.ensureDefaultDatabase();
 	}
@@ -41,6 +155,295 @@ class MovieServiceTests {
 		assertThat(exportedCount).isEqualTo(48);
 	}
 
+	@Test
+	void streamPgWriteParquet() {
+		final var exportedCount = service.exportMoviesFromDatabaseToParquet(TMP_PARQUET_FILE);
+		assertThat(exportedCount).isEqualTo(48);
+		assertThat(service.readMoviesFromParquet(TMP_PARQUET_FILE)).hasSize(48);
+	}
+
+	@Test
+	@SneakyThrows
+	void readAvroWrittenParquet() {
+		final var movies = service.readMoviesFromDatabase();
+		final var outputFile = HadoopOutputFile.fromPath(new Path(TMP_PARQUET_FILE), new Configuration());
+		AvroMovieParquet.write(outputFile, movies.stream(), ParquetWriteOptions.DEFAULTS);
+		final var read = service.readMoviesFromParquet(TMP_PARQUET_FILE);
+		assertThat(read).hasSize(48);
+		assertThat(read.get(0).getReleaseDate()).isEqualTo(movies.get(0).getReleaseDate());
+	}
+
+	@Test
+	void aggregateParquetInBatches() {
+		service.exportMoviesFromDatabaseToParquet(TMP_PARQUET_FILE);
+		final var inputFile = service.newLocalInputFile(TMP_PARQUET_FILE);
+		final var yearlyRatings = service.ratingsByReleaseYear(inputFile, 0f);
+		assertThat(yearlyRatings.stream().mapToLong(YearlyRating::count).sum()).isEqualTo(48);
+		final var topRated = service.topRatedMovies(inputFile, 3, LocalDate.MIN, LocalDate.MAX);
+		assertThat(topRated).hasSize(3);
+		assertThat(topRated.get(0).getRating()).isGreaterThanOrEqualTo(topRated.get(2).getRating());
+	}
+
+	@Test
+	void lookupParquetWithPredicates() {
+		service.exportMoviesFromDatabaseToParquet(TMP_PARQUET_FILE);
+		final var inputFile = service.newLocalInputFile(TMP_PARQUET_FILE);
+		final var movies = service.readMoviesFromParquet(TMP_PARQUET_FILE);
+		final var movie = movies.get(movies.size() / 2);
+
+		final var byId = service.findMoviesInParquet(inputFile, MovieParquetLookup.idEquals(movie.getId()));
+		assertThat(byId.movies()).singleElement()
+			.satisfies(found -> assertThat(found.getName()).isEqualTo(movie.getName()));
+		assertThat(byId.metrics().rowsReturned()).isEqualTo(1);
+		final var byName = service.findMoviesInParquet(inputFile, MovieParquetLookup.nameEquals(movie.getName()));
+		assertThat(byName.movies()).extracting(MovieEntity::getId).contains(movie.getId());
+		final var byRating = service.findMoviesInParquet(inputFile,
+			MovieParquetLookup.ratingBetween(movie.getRating(), movie.getRating()));
+		assertThat(byRating.movies()).isNotEmpty()
+			.allSatisfy(found -> assertThat(found.getRating()).isEqualTo(movie.getRating()));
+
+		// out of the id range, then within the name range but absent from the dictionary
+		for (var predicate : List.of(MovieParquetLookup.idEquals(Long.MAX_VALUE),
+				MovieParquetLookup.nameEquals(movie.getName() + " (remake)"))) {
+			final var missing = service.findMoviesInParquet(inputFile, predicate);
+			assertThat(missing.movies()).isEmpty();
+			assertThat(missing.metrics().skippedRowGroups()).isEqualTo(missing.metrics().rowGroups());
+			assertThat(missing.metrics().rowsScanned()).isZero();
+		}
+	}
+
+	@Test
+	void streamPgWriteS3Parquet() {
+		final var exportedCount = service.exportMoviesFromDatabaseToParquet(service.newS3OutputFile("movies.parquet"));
+		assertThat(exportedCount).isEqualTo(48);
+
+		// the object is a complete Parquet file holding every PG row
+		final var bytes = s3Client.getObjectAsBytes(b -> b.bucket(MovieService.MOVIES_BUCKET).key("movies.parquet"))
+			.asByteArray();
+		assertThat(new String(bytes, 0, 4, StandardCharsets.US_ASCII)).isEqualTo("PAR1");
+		assertThat(new String(bytes, bytes.length - 4, 4, StandardCharsets.US_ASCII)).isEqualTo("PAR1");
+		try (var movies = service.streamMoviesFromParquet(service.newS3InputFile("movies.parquet"))) {
+			assertThat(movies.toList()).usingRecursiveFieldByFieldElementComparator()
+				.containsExactlyInAnyOrderElementsOf(service.readMoviesFromDatabase());
+		}
+	}
+
+	@Test
+	@SneakyThrows
+	void uploadS3Multipart() {
+		// two full parts of the smallest size S3 accepts, then a short last one
+		final int partSize = S3MultipartOutputStream.MIN_PART_SIZE;
+		final var data = new byte[partSize * 2 + 1234];
+		new Random(42).nextBytes(data);
+		try (var out = new S3MultipartOutputStream(s3Client, MovieService.MOVIES_BUCKET, "multipart.bin",
+				"application/octet-stream", partSize, 1)) {
+			out.write(data[0]);
+			out.write(data, 1, partSize);
+			out.write(data, partSize + 1, data.length - partSize - 1);
+			assertThat(out.getPos()).isEqualTo(data.length);
+		}
+
+		final var object = s3Client.getObjectAsBytes(b -> b.bucket(MovieService.MOVIES_BUCKET).key("multipart.bin"));
+		// multipart ETags end with the part count
+		assertThat(object.response().eTag().replace("\"", "")).endsWith("-3");
+		assertThat(object.asByteArray()).isEqualTo(data);
+	}
+
+	@Test
+	@SneakyThrows
+	void abortFailedS3Writes() {
+		streamPgWriteS3Parquet();
+		// the source fails halfway, the object written before stays in place
+		assertThatThrownBy(() -> service.writeMoviesToParquet(service.newS3OutputFile("movies.parquet"),
+				failingMovies(20, 10)))
+			.hasRootCauseMessage("Source failed");
+		try (var movies = service.streamMoviesFromParquet(service.newS3InputFile("movies.parquet"))) {
+			assertThat(movies.count()).isEqualTo(48);
+		}
+
+		uploadText("upload.txt", "complete");
+		final var failing = new InputStream() {
+			private int read;
+
+			@Override
+			public int read() throws IOException {
+				if (read++ == 100) {
+					throw new IOException("Source failed");
+				}
+				return 'x';
+			}
+		};
+		assertThatThrownBy(() -> service.uploadFile("upload.txt", failing, "text/plain"))
+			.hasMessage("Source failed");
+		assertThat(downloadText("upload.txt")).isEqualTo("complete");
+	}
+
+	@Test
+	void keepLocalParquetOnFailedWrite() {
+		service.exportMoviesFromDatabaseToParquet(TMP_PARQUET_FILE);
+		assertThatThrownBy(() -> service.writeMoviesToParquet(TMP_PARQUET_FILE, failingMovies(20, 10)))
+			.hasRootCauseMessage("Source failed");
+		// the partial file is deleted, the previous one is left as it was
+		assertThat(service.readMoviesFromParquet(TMP_PARQUET_FILE)).hasSize(48);
+	}
+
+	@Test
+	void readS3ParquetProjection() {
+		// ids and names make up most of the file, well past the footer prefetch
+		service.writeMoviesToParquet(service.newS3OutputFile("projection.parquet"), generatedMovies(100_000));
+		final var full = service.newS3InputFile("projection.parquet");
+		assertThat(full.getLength()).isGreaterThan(4 * 64 * 1024);
+		try (var movies = service.streamMoviesFromParquet(full)) {
+			assertThat(movies.count()).isEqualTo(100_000);
+		}
+
+		final var projected = service.newS3InputFile("projection.parquet");
+		try (var movies = service.streamMoviesFromParquet(projected, MovieService.RATING_FIELD,
+				MovieService.RELEASE_DATE_FIELD)) {
+			assertThat(movies.toList()).hasSize(100_000).allSatisfy(movie -> {
+				assertThat(movie.getRating()).isNotNull();
+				assertThat(movie.getReleaseDate()).isNotNull();
+				assertThat(movie.getId()).isNull();
+				assertThat(movie.getName()).isNull();
+			});
+		}
+		// the id and name column chunks are never fetched
+		assertThat(projected.getBytesRead()).isLessThan(full.getBytesRead() / 2);
+	}
+
+	@Test
+	void recordMetrics() {
+		final var rowsBefore = counterValue(MovieMetrics.TRANSFER_ROWS, "path", "pg-to-parquet");
+		final var bytesReadBefore = counterValue(MovieMetrics.PARQUET_BYTES_READ, "target", "s3");
+		streamPgWriteS3Parquet();
+		readS3ParquetColumns(service.newS3InputFile("movies.parquet"));
+		assertThat(counterValue(MovieMetrics.TRANSFER_ROWS, "path", "pg-to-parquet")).isEqualTo(rowsBefore + 48);
+		assertThat(counterValue(MovieMetrics.PARQUET_BYTES_WRITTEN, "target", "s3")).isPositive();
+		assertThat(counterValue(MovieMetrics.PARQUET_ROW_GROUPS, "target", "s3")).isPositive();
+		assertThat(counterValue(MovieMetrics.PARQUET_BYTES_READ, "target", "s3")).isGreaterThan(bytesReadBefore);
+		assertThat(meterRegistry.get(MovieMetrics.JDBC_FETCH).tag("query", "streamAll").timer().count()).isPositive();
+		assertThat(meterRegistry.get(MovieMetrics.S3_REQUESTS).tags("operation", "PutObject", "outcome", "success")
+			.timer().count()).isPositive();
+	}
+
+	@Test
+	@SneakyThrows
+	void deleteBucketPrefix() {
+		for (int i = 0; i < 1005; i++) {
+			service.uploadFile("table/data/" + i + ".parquet", new ByteArrayInputStream(new byte[] { 1 }), "text/plain");
+		}
+		service.uploadFile("table_old/data/0.parquet", new ByteArrayInputStream(new byte[] { 1 }), "text/plain");
+
+		final var result = buckets.deleteLocation("s3://" + MovieService.MOVIES_BUCKET + "/table");
+		assertThat(result.deleted()).isEqualTo(1005);
+		assertThat(result.batches()).isEqualTo(2);
+		assertThat(buckets.deletePrefix(MovieService.MOVIES_BUCKET, "table_old/").deleted()).isEqualTo(1);
+		assertThat(buckets.exists(MovieService.MOVIES_BUCKET)).isTrue();
+		assertThat(buckets.exists("missing-bucket")).isFalse();
+	}
+
+	@Test
+	void cacheS3Objects() {
+		final var key = "cache/object.txt";
+		final var missesBefore = counterValue(MovieMetrics.S3_CACHE_REQUESTS, "result", MovieMetrics.CACHE_MISS);
+		final var hitsBefore = counterValue(MovieMetrics.S3_CACHE_REQUESTS, "result", MovieMetrics.CACHE_HIT);
+		final var first = "first " + System.nanoTime();
+		uploadText(key, first);
+		assertThat(downloadText(key)).isEqualTo(first);
+		assertThat(downloadText(key)).isEqualTo(first);
+		assertThat(counterValue(MovieMetrics.S3_CACHE_REQUESTS, "result", MovieMetrics.CACHE_MISS))
+			.isEqualTo(missesBefore + 1);
+		assertThat(counterValue(MovieMetrics.S3_CACHE_REQUESTS, "result", MovieMetrics.CACHE_HIT))
+			.isEqualTo(hitsBefore + 1);
+
+		// a new ETag is a new entry, the conditional GET brings the new content
+		final var second = "second " + System.nanoTime();
+		uploadText(key, second);
+		assertThat(downloadText(key)).isEqualTo(second);
+		assertThat(counterValue(MovieMetrics.S3_CACHE_REQUESTS, "result", MovieMetrics.CACHE_MISS))
+			.isEqualTo(missesBefore + 2);
+		assertThat(downloadText(key)).isEqualTo(second);
+
+		// ranged reads pass through until the whole object is cached
+		final var parquetKey = "cache/movies.parquet";
+		assertThat(service.exportMoviesFromDatabaseToParquet(service.newS3OutputFile(parquetKey))).isEqualTo(48);
+		final var misses = counterValue(MovieMetrics.S3_CACHE_REQUESTS, "result", MovieMetrics.CACHE_MISS);
+		final var bypasses = counterValue(MovieMetrics.S3_CACHE_REQUESTS, "result", MovieMetrics.CACHE_BYPASS);
+		readS3ParquetColumns(service.newS3InputFile(parquetKey));
+		assertThat(counterValue(MovieMetrics.S3_CACHE_REQUESTS, "result", MovieMetrics.CACHE_MISS)).isEqualTo(misses);
+		assertThat(counterValue(MovieMetrics.S3_CACHE_REQUESTS, "result", MovieMetrics.CACHE_BYPASS))
+			.isGreaterThan(bypasses);
+
+		s3Client.getObjectAsBytes(b -> b.bucket(MovieService.MOVIES_BUCKET).key(parquetKey));
+		final var hits = counterValue(MovieMetrics.S3_CACHE_REQUESTS, "result", MovieMetrics.CACHE_HIT);
+		final var bypassesAfter = counterValue(MovieMetrics.S3_CACHE_REQUESTS, "result", MovieMetrics.CACHE_BYPASS);
+		readS3ParquetColumns(service.newS3InputFile(parquetKey));
+		assertThat(counterValue(MovieMetrics.S3_CACHE_REQUESTS, "result", MovieMetrics.CACHE_HIT)).isGreaterThan(hits);
+		assertThat(counterValue(MovieMetrics.S3_CACHE_REQUESTS, "result", MovieMetrics.CACHE_BYPASS))
+			.isEqualTo(bypassesAfter);
+	}
+
+	@Test
+	@SneakyThrows
+	void evictS3CacheLeastRecentlyUsed(@TempDir java.nio.file.Path directory) {
+		final var cache = new S3ObjectCache(movieMetrics, directory.toString(), DataSize.ofBytes(100),
+			DataSize.ofBytes(100));
+		final var first = cache.get("bucket", "first", "\"1\"", 40, file -> Files.write(file, new byte[40]));
+		final var second = cache.get("bucket", "second", "\"1\"", 40, file -> Files.write(file, new byte[40]));
+		// touching the first one makes the second the least recently used
+		assertThat(cache.find("bucket", "first", "\"1\"")).isEqualTo(first);
+		cache.get("bucket", "third", "\"1\"", 40, file -> Files.write(file, new byte[40]));
+
+		assertThat(cache.find("bucket", "second", "\"1\"")).isNull();
+		assertThat(cache.latestETag("bucket", "second")).isNull();
+		assertThat(Files.exists(second)).isFalse();
+		assertThat(cache.find("bucket", "first", "\"1\"")).isNotNull();
+		assertThat(cache.find("bucket", "first", "\"2\"")).isNull();
+		assertThat(cache.accepts(101)).isFalse();
+
+		final var reopened = new S3ObjectCache(movieMetrics, directory.toString(), DataSize.ofBytes(100),
+			DataSize.ofBytes(100));
+		assertThat(reopened.find("bucket", "first", "\"1\"")).isEqualTo(first);
+		assertThat(reopened.find("bucket", "third", "\"1\"")).isNotNull();
+	}
+
+	@Test
+	@SneakyThrows
+	void shareS3CacheDownloads(@TempDir java.nio.file.Path directory) {
+		final var cache = new S3ObjectCache(movieMetrics, directory.toString(), DataSize.ofMegabytes(1),
+			DataSize.ofMegabytes(1));
+		final var sharedBefore = counterValue(MovieMetrics.S3_CACHE_REQUESTS, "result", MovieMetrics.CACHE_SHARED);
+		final var downloads = new AtomicInteger();
+		final var started = new CompletableFuture<Void>();
+		final var release = new CompletableFuture<Void>();
+		final S3ObjectCache.Downloader download = file -> {
+			downloads.incrementAndGet();
+			started.complete(null);
+			release.join();
+			Files.writeString(file, "content");
+		};
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			final var results = new ArrayList<Future<java.nio.file.Path>>();
+			results.add(executor.submit(() -> cache.get("bucket", "key", "\"1\"", 7, download)));
+			started.get(10, TimeUnit.SECONDS);
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> cache.get("bucket", "key", "\"1\"", 7, download)));
+			}
+			final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (counterValue(MovieMetrics.S3_CACHE_REQUESTS, "result", MovieMetrics.CACHE_SHARED) < sharedBefore + 8
+					&& System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+			release.complete(null);
+			for (var result : results) {
+				assertThat(Files.readString(result.get(10, TimeUnit.SECONDS))).isEqualTo("content");
+			}
+		}
+		assertThat(downloads).hasValue(1);
+		assertThat(counterValue(MovieMetrics.S3_CACHE_REQUESTS, "result", MovieMetrics.CACHE_SHARED))
+			.isEqualTo(sharedBefore + 8);
+	}
+
 	@Test
 	void readCsvWriteParquet() {
 		final var csvReader = service.downloadMoviesCsv();
@@ -50,6 +453,47 @@ class MovieServiceTests {
 		assertThat(exportedCount).isEqualTo(50);
 	}
 
+	@Test
+	void ingestCsvInParallel() {
+		final var ordered = service.readMoviesFromCsv(service.downloadMoviesCsv());
+		try (var movies = service.streamMoviesFromCsv(service.downloadMoviesCsv())) {
+			assertThat(movies.map(MovieEntity::getName).toList())
+				.containsExactlyElementsOf(ordered.stream().map(MovieEntity::getName).toList());
+		}
+		final var batches = new ArrayList<List<MovieEntity>>();
+		final var count = service.ingestMoviesFromCsv(service.downloadMoviesCsv(), false, batches::add);
+		assertThat(count).isEqualTo(50);
+		assertThat(batches.stream().mapToInt(List::size).sum()).isEqualTo(50);
+	}
+
+	@Test
+	void ingestCsvWithEscapesAndLineBreaks() {
+		final var csv = """
+			ID,NAME,RATING,RELEASE_DATE
+			1,"He said \\"hi\\"",7.5,2001-01-01
+			2,"Two lines, \\"quoted\\"
+			and ""doubled"" quotes",6.0,2002-02-02
+			3,"Ends with a backslash \\\\",5.5,2003-03-03
+			4,"An escaped \\" keeps it open
+
+			over a blank line",4.0,2004-04-04
+			5,Plain,3.5,2005-05-05
+			""";
+		final var expected = service.readMoviesFromCsv(new StringReader(csv)).stream()
+			.map(MovieEntity::getName).toList();
+		assertThat(expected).containsExactly("He said \"hi\"", "Two lines, \"quoted\"\nand \"doubled\" quotes",
+			"Ends with a backslash \\", "An escaped \" keeps it open\n\nover a blank line", "Plain");
+
+		try (var movies = service.streamMoviesFromCsv(new StringReader(csv))) {
+			assertThat(movies.map(MovieEntity::getName).toList()).containsExactlyElementsOf(expected);
+		}
+		final var names = new ArrayList<String>();
+		final var count = service.ingestMoviesFromCsv(new StringReader(csv), false,
+			batch -> batch.forEach(movie -> names.add(movie.getName())));
+		assertThat(count).isEqualTo(5);
+		assertThat(names).containsExactlyInAnyOrderElementsOf(expected);
+	}
+
 	@Test
 	void readParquetSavePg() {
 		readCsvWriteParquet();
@@ -58,6 +502,25 @@ class MovieServiceTests {
 		assertThat(exportedCount).isEqualTo(50);
 	}
 
+	@Test
+	void streamParquetSavePg() {
+		readCsvWriteParquet();
+		try (var movies = service.streamMoviesFromParquet(TMP_PARQUET_FILE)) {
+			final var exportedCount = service.writeMoviesToDatabase(movies);
+			assertThat(exportedCount).isEqualTo(50);
+		}
+	}
+
+	@Test
+	void streamParquetCopyPg() {
+		readCsvWriteParquet();
+		try (var movies = service.streamMoviesFromParquet(TMP_PARQUET_FILE)) {
+			final var exportedCount = service.bulkLoadMoviesToDatabase(movies);
+			assertThat(exportedCount).isEqualTo(50);
+		}
+		assertThat(service.readMoviesFromDatabase()).hasSize(98);
+	}
+
 	@Test
 	@SneakyThrows
 	void readPgSaveCsv(){
@@ -68,6 +531,202 @@ class MovieServiceTests {
 		assertThat(exportedCount).isEqualTo(48);
 	}
 
+	@Test
+	void extractPgInShards() {
+		final var exportedCount = service.exportMoviesFromDatabaseToParquet(4,
+			shard -> service.newLocalOutputFile("/tmp/movies-" + shard + ".parquet"));
+		assertThat(exportedCount).isEqualTo(48);
+		final var ids = new ArrayList<Long>();
+		for (int shard = 0; shard < 4; shard++) {
+			service.readMoviesFromParquet("/tmp/movies-" + shard + ".parquet").forEach(movie -> ids.add(movie.getId()));
+		}
+		assertThat(ids).hasSize(48).isSorted().doesNotHaveDuplicates();
+
+		assertThat(service.exportNewMoviesToIceberg(3)).isEqualTo(48);
+		assertThat(service.readMoviesFromIceberg()).hasSize(48);
+		assertThat(service.exportNewMoviesToIceberg(3)).isZero();
+	}
+
+	@Test
+	@SneakyThrows
+	void runPipelinesConcurrently() {
+		final var results = pipelines.runAll(List.of(
+			Pipeline.of("pg-to-parquet", connectors.databaseSource(),
+				connectors.parquetSink(service.newLocalOutputFile(TMP_PARQUET_FILE), ParquetWriteOptions.DEFAULTS)),
+			Pipeline.of("csv-to-csv", connectors.csvSource(service::downloadMoviesCsv),
+					connectors.csvSink(Paths.get("/tmp/movies.csv")))
+				.map(movie -> {
+					movie.setName(movie.getName().toUpperCase());
+					return movie;
+				})));
+		assertThat(results).extracting(PipelineResult::written).containsExactly(48L, 50L);
+		assertThat(results).extracting(PipelineResult::read).containsExactly(48L, 50L);
+		assertThat(service.readMoviesFromParquet(TMP_PARQUET_FILE)).hasSize(48);
+
+		final var failing = Pipeline.of("failing", connectors.databaseSource(), movies -> {
+			throw new IllegalStateException("Sink failed");
+		});
+		assertThatThrownBy(() -> pipelines.run(failing)).hasRootCauseMessage("Sink failed");
+
+		// a failing source leaves the files written above as they were
+		assertThatThrownBy(() -> pipelines.runAll(List.of(
+			Pipeline.of("failing-parquet", consumer -> failingMovies(20, 10).forEach(consumer),
+				connectors.parquetSink(service.newLocalOutputFile(TMP_PARQUET_FILE), ParquetWriteOptions.DEFAULTS)),
+			Pipeline.of("failing-csv", consumer -> failingMovies(20, 10).forEach(consumer),
+				connectors.csvSink(Paths.get("/tmp/movies.csv"))))))
+			.hasRootCauseMessage("Source failed");
+		assertThat(service.readMoviesFromParquet(TMP_PARQUET_FILE)).hasSize(48);
+		assertThat(service.readMoviesFromCsv(Files.newBufferedReader(Paths.get("/tmp/movies.csv")))).hasSize(50);
+	}
+
+	@Test
+	@SneakyThrows
+	void exportMoviesOverHttp() {
+		final var ndjson = httpGet("/exports/movies.ndjson");
+		assertThat(ndjson.statusCode()).isEqualTo(200);
+		assertThat(ndjson.headers().firstValue("Content-Type")).hasValue("application/x-ndjson");
+		assertThat(new String(ndjson.body(), StandardCharsets.UTF_8).lines()).hasSize(48)
+			.allMatch(line -> line.startsWith("{\"id\":"));
+
+		final var csv = httpGet("/exports/movies.csv");
+		assertThat(csv.statusCode()).isEqualTo(200);
+		assertThat(csv.headers().firstValue("Content-Type")).hasValue("text/csv;charset=UTF-8");
+		assertThat(csv.headers().firstValue("Content-Disposition")).hasValueSatisfying(
+			disposition -> assertThat(disposition).contains("movies.csv"));
+		assertThat(new String(csv.body(), StandardCharsets.UTF_8).lines()).hasSize(49);
+
+		final var parquet = httpGet("/exports/movies.parquet");
+		assertThat(parquet.headers().firstValue("Content-Type")).hasValue("application/vnd.apache.parquet");
+		Files.write(Paths.get(TMP_PARQUET_FILE), parquet.body());
+		assertThat(service.readMoviesFromParquet(TMP_PARQUET_FILE)).hasSize(48);
+
+		service.exportNewMoviesToIceberg();
+		final var iceberg = httpGet("/exports/iceberg/movies.ndjson");
+		assertThat(iceberg.headers().firstValue("Content-Disposition")).hasValueSatisfying(
+			disposition -> assertThat(disposition).contains("movies-"));
+		assertThat(new String(iceberg.body(), StandardCharsets.UTF_8).lines()).hasSize(48);
+
+		assertThat(httpGet("/exports/movies.xml").statusCode()).isEqualTo(404);
+		assertThat(httpGet("/exports/iceberg/movies.csv?snapshot-id=-1").statusCode()).isEqualTo(404);
+	}
+
+	@Test
+	void streamLargeExportsChunked() {
+		// larger than movies.export.buffer-size, so the body is sent as it is written
+		final var count = service.bulkLoadMoviesToDatabase(IntStream.range(0, 5000)
+			.mapToObj(i -> newMovie("Chunked " + i, 5.0f, LocalDate.of(2000, 1, 1))));
+		assertThat(count).isEqualTo(5000);
+		final var response = httpGet("/exports/movies.ndjson");
+		assertThat(response.statusCode()).isEqualTo(200);
+		assertThat(response.headers().firstValue("Transfer-Encoding")).hasValue("chunked");
+		assertThat(response.headers().firstValue("Content-Length")).isEmpty();
+		assertThat(new String(response.body(), StandardCharsets.UTF_8).lines()).hasSize(5048);
+	}
+
+	@Test
+	void rejectExportsOverTheLimit() {
+		service.exportNewMoviesToIceberg();
+		// the movies table exports share the pool left after the reserved connections
+		final var permits = (Semaphore) ReflectionTestUtils.getField(exports, "databasePermits");
+		assertThat(permits.availablePermits()).isEqualTo(4);
+		final int available = permits.drainPermits();
+		try {
+			assertThat(httpGet("/exports/movies.csv").statusCode()).isEqualTo(503);
+			// Iceberg exports hold no connection, they are not limited by it
+			assertThat(httpGet("/exports/iceberg/movies.csv").statusCode()).isEqualTo(200);
+		} finally {
+			permits.release(available);
+		}
+		assertThat(httpGet("/exports/movies.csv").statusCode()).isEqualTo(200);
+	}
+
+	@Test
+	@SneakyThrows
+	void handOffMoviesAsArrow() {
+		final var batchSizes = new ArrayList<Integer>();
+		assertThat(service.readMoviesFromDatabaseAsArrow(batch -> batchSizes.add(batch.getRowCount()))).isEqualTo(48);
+		assertThat(batchSizes).containsExactly(48);
+
+		service.exportMoviesFromDatabaseToParquet(TMP_PARQUET_FILE);
+		final var names = new ArrayList<String>();
+		assertThat(service.readMoviesFromParquetAsArrow(service.newLocalInputFile(TMP_PARQUET_FILE),
+			batch -> MovieArrow.forEach(batch, movie -> names.add(movie.getName())))).isEqualTo(48);
+		assertThat(names).hasSize(48).doesNotContainNull();
+
+		service.exportNewMoviesToIceberg();
+		assertThat(service.readMoviesFromIcebergAsArrow(batch -> {})).isEqualTo(48);
+
+		final var arrowFile = Paths.get("/tmp/movies.arrow");
+		final var written = pipelines.run(Pipeline.of("pg-to-arrow", connectors.databaseSource(),
+			connectors.arrowFileSink(arrowFile)));
+		assertThat(written.written()).isEqualTo(48);
+		assertThatThrownBy(() -> pipelines.run(Pipeline.of("failing-arrow",
+			consumer -> failingMovies(20, 10).forEach(consumer), connectors.arrowFileSink(arrowFile))))
+			.hasRootCauseMessage("Source failed");
+		final var csv = new StringWriter();
+		final var mapped = pipelines.run(Pipeline.of("arrow-to-csv", connectors.arrowFileSource(arrowFile),
+			connectors.csvSink(() -> csv)));
+		assertThat(mapped.written()).isEqualTo(48);
+		final var expected = new StringWriter();
+		service.writeMoviesToCsv(expected, service.readMoviesFromDatabase().stream()
+			.sorted(Comparator.comparing(MovieEntity::getId)));
+		assertThat(csv.toString().lines()).hasSize(49);
+		assertThat(csv.toString()).isEqualTo(expected.toString());
+
+		// the mapping is read-only, a copy of the batch can be written to while the file stays as it is
+		final var arrowBytes = Files.readAllBytes(arrowFile);
+		try (var reader = MovieArrow.mapFile(arrowFile, arrowAllocator)) {
+			assertThat(reader.loadNextBatch()).isTrue();
+			final var original = (Float4Vector) reader.getVectorSchemaRoot().getVector(MovieService.RATING_FIELD);
+			final float rating = original.get(0);
+			try (var copy = reader.getVectorSchemaRoot().slice(0)) {
+				final var ratings = (Float4Vector) copy.getVector(MovieService.RATING_FIELD);
+				ratings.set(0, 0.5f);
+				assertThat(ratings.get(0)).isEqualTo(0.5f);
+			}
+			assertThat(original.get(0)).isEqualTo(rating);
+		}
+		assertThat(Files.readAllBytes(arrowFile)).isEqualTo(arrowBytes);
+
+		// a failed write is closed without its footer, so it cannot be read as a complete file
+		final var partial = Paths.get("/tmp/movies-partial.arrow");
+		try (var writer = MovieArrowWriter.file(partial, arrowAllocator)) {
+			assertThatThrownBy(() -> writer.write(failingMovies(5000, 4500))).hasMessage("Source failed");
+		}
+		assertThatThrownBy(() -> MovieArrow.mapFile(partial, arrowAllocator))
+			.hasMessageContaining("Error opening Arrow file");
+
+		// missing values are written as nulls
+		final var incomplete = new MovieEntity();
+		incomplete.setName("No rating nor release date");
+		final var arrowStream = new ByteArrayOutputStream();
+		try (var writer = MovieArrowWriter.stream(arrowStream, arrowAllocator)) {
+			writer.write(Stream.of(incomplete));
+		}
+		final var readBack = new ArrayList<MovieEntity>();
+		MovieArrow.read(MovieArrow.openStream(new ByteArrayInputStream(arrowStream.toByteArray()), arrowAllocator),
+			readBack::add);
+		assertThat(readBack).singleElement().satisfies(movie -> {
+			assertThat(movie.getName()).isEqualTo("No rating nor release date");
+			assertThat(movie.getId()).isNull();
+			assertThat(movie.getRating()).isNull();
+			assertThat(movie.getReleaseDate()).isNull();
+		});
+
+		final var response = new MockHttpServletResponse();
+		exports.exportMovies("arrows", response);
+		assertThat(response.getContentType()).isEqualTo("application/vnd.apache.arrow.stream");
+		final var movies = new ArrayList<MovieEntity>();
+		pipelines.run(Pipeline.of("http-arrow-to-list",
+			connectors.arrowStreamSource(() -> new ByteArrayInputStream(response.getContentAsByteArray())),
+			stream -> {
+				stream.forEach(movies::add);
+				return movies.size();
+			}));
+		assertThat(movies).hasSize(48)
+			.allMatch(movie -> movie.getId() != null && movie.getName() != null && movie.getReleaseDate() != null);
+	}
+
 	@Test
 	void readPgWriteIcebergReadIceberg() {
 		var movies = service.readMoviesFromDatabase();
@@ -84,4 +743,359 @@ class MovieServiceTests {
 			assertThat(movie.getReleaseDate()).isNotNull();
 		}
 	}
+
+	@Test
+	void shareIcebergCatalog() {
+		assertThat(service.writeMoviesToIceberg(service.readMoviesFromDatabase())).isEqualTo(48);
+
+		// the table created is cached, later reads neither query the catalog nor download its metadata
+		final var table = catalog.loadTable(MovieService.ICEBERG_TABLE_ID);
+		var stats = catalog.cacheStats();
+		final var hits = tableCacheGets("hit");
+		final var misses = tableCacheGets("miss");
+		assertThat(service.readMoviesFromIceberg()).hasSize(48);
+		assertThat(catalog.loadTable(MovieService.ICEBERG_TABLE_ID)).isSameAs(table);
+		assertThat(catalog.cacheStats().minus(stats).hitCount()).isEqualTo(2);
+		assertThat(catalog.cacheStats().minus(stats).missCount()).isZero();
+		assertThat(tableCacheGets("hit")).isEqualTo(hits + 2);
+		assertThat(tableCacheGets("miss")).isEqualTo(misses);
+
+		// our own commits refresh the cached table
+		final var changed = service.readMoviesFromDatabase().subList(0, 1);
+		changed.get(0).setRating(1.0f);
+		assertThat(service.upsertMoviesToIceberg(changed)).isEqualTo(1);
+		assertThat(table.currentSnapshot().snapshotId())
+			.isEqualTo(catalog.catalog().loadTable(MovieService.ICEBERG_TABLE_ID).currentSnapshot().snapshotId());
+		assertThat(service.readMoviesFromIceberg())
+			.filteredOn(movie -> movie.getId().equals(changed.get(0).getId()))
+			.singleElement()
+			.satisfies(movie -> assertThat(movie.getRating()).isEqualTo(1.0f));
+
+		// once invalidated, the next load goes to the catalog again
+		catalog.invalidate(MovieService.ICEBERG_TABLE_ID);
+		stats = catalog.cacheStats();
+		final var reloaded = catalog.loadTable(MovieService.ICEBERG_TABLE_ID);
+		assertThat(reloaded).isNotSameAs(table);
+		assertThat(reloaded.currentSnapshot().snapshotId()).isEqualTo(table.currentSnapshot().snapshotId());
+		assertThat(catalog.cacheStats().minus(stats).missCount()).isEqualTo(1);
+		assertThat(tableCacheGets("miss")).isEqualTo(misses + 1);
+	}
+
+	@Test
+	void queryIcebergWithPushdown() {
+		// partitioned by release year, with rating bounds in each data file
+		assertThat(service.writeMoviesToIceberg(service.readMoviesFromDatabase())).isEqualTo(48);
+		final var all = service.queryMoviesFromIceberg(Expressions.alwaysTrue());
+		assertThat(all.movies()).hasSize(48);
+		assertThat(all.metrics().skippedDataFiles()).isZero();
+		assertThat(all.movies()).anySatisfy(movie -> assertThat(movie.getReleaseDate().getYear()).isGreaterThanOrEqualTo(2000));
+
+		final var expected = all.movies().stream()
+			.filter(movie -> movie.getRating() >= 8.5f && movie.getReleaseDate().getYear() < 2000)
+			.map(MovieEntity::getId)
+			.toList();
+		final var result = service.queryMoviesFromIceberg(Expressions.and(
+				Expressions.greaterThanOrEqual(MovieService.RATING_FIELD, 8.5f),
+				Expressions.lessThan(MovieService.RELEASE_DATE_FIELD, "2000-01-01")),
+			MovieService.ID_FIELD, MovieService.RATING_FIELD);
+		assertThat(result.movies()).extracting(MovieEntity::getId).containsExactlyInAnyOrderElementsOf(expected);
+		assertThat(result.movies()).allSatisfy(movie -> {
+			assertThat(movie.getRating()).isGreaterThanOrEqualTo(8.5f);
+			assertThat(movie.getName()).isNull();
+		});
+
+		// files of later years or lower ratings are pruned at planning, never opened
+		final var metrics = result.metrics();
+		assertThat(metrics.rowsReturned()).isEqualTo(expected.size());
+		assertThat(metrics.skippedDataFiles()).isPositive();
+		assertThat(metrics.resultDataFiles() + metrics.skippedDataFiles()).isEqualTo(all.metrics().resultDataFiles());
+		assertThat(metrics.splits()).isPositive();
+		assertThat(metrics.bytesScanned()).isPositive().isLessThan(all.metrics().bytesScanned());
+	}
+
+	@Test
+	@SneakyThrows
+	void writeIcebergPartitions() {
+		final var movies = service.readMoviesFromDatabase();
+		final var table = createIcebergTable("movies_partitioned", "year(releaseDate)");
+		try {
+			final var writer = new IcebergMovieWriter("year(releaseDate)", 134217728, 1);
+			assertThat(writer.append(table, movies.stream())).isEqualTo(48);
+
+			// one file per year with a single writer, holding the movies of that year
+			final var expected = movies.stream().collect(Collectors.groupingBy(
+				movie -> movie.getReleaseDate().getYear() - 1970, Collectors.counting()));
+			final var files = planFiles(table);
+			assertThat(files).hasSize(expected.size());
+			for (var file : files) {
+				final var year = file.partition().get(0, Integer.class);
+				assertThat(file.recordCount()).isEqualTo(expected.get(year));
+			}
+		} finally {
+			catalog.dropTable(tableId("movies_partitioned"), true);
+		}
+	}
+
+	@Test
+	@SneakyThrows
+	void rollIcebergDataFiles() {
+		final var table = createIcebergTable("movies_rolled", "");
+		try {
+			// sizes are checked every 1000 rows, a tiny target rolls at each check
+			final var writer = new IcebergMovieWriter("", 1, 1);
+			assertThat(writer.append(table, generatedMovies(5000))).isEqualTo(5000);
+			final var files = planFiles(table);
+			assertThat(files).hasSize(5).allSatisfy(file -> assertThat(file.recordCount()).isEqualTo(1000));
+		} finally {
+			catalog.dropTable(tableId("movies_rolled"), true);
+		}
+	}
+
+	@Test
+	@SneakyThrows
+	void writeIcebergInParallel() {
+		final var table = createIcebergTable("movies_parallel", "bucket(id, 4)");
+		try {
+			final var writer = new IcebergMovieWriter("bucket(id, 4)", 134217728, 4);
+			final var dataFiles = writer.write(table, generatedMovies(20 * 1024));
+			// each writer thread writes its own file per partition, all committed at once
+			assertThat(dataFiles).hasSizeBetween(4, 16);
+			assertThat(dataFiles.stream().map(file -> file.partition().get(0, Integer.class)).distinct())
+				.containsExactlyInAnyOrder(0, 1, 2, 3);
+			assertThat(dataFiles.stream().map(DataFile::location).distinct()).hasSameSizeAs(dataFiles);
+			assertThat(table.snapshots()).isEmpty();
+			assertThat(writer.commit(table, dataFiles, Map.of())).isEqualTo(20 * 1024);
+
+			table.refresh();
+			assertThat(table.snapshots()).hasSize(1);
+			assertThat(planFiles(table)).hasSameSizeAs(dataFiles);
+			final var ids = new HashSet<Long>();
+			try (var records = IcebergGenerics.read(table).select(MovieService.ID_FIELD).build()) {
+				records.forEach(record -> ids.add((Long) record.getField(MovieService.ID_FIELD)));
+			}
+			assertThat(ids).hasSize(20 * 1024);
+		} finally {
+			catalog.dropTable(tableId("movies_parallel"), true);
+		}
+	}
+
+	@Test
+	void exportNewMoviesToIceberg() {
+		assertThat(service.exportNewMoviesToIceberg()).isEqualTo(48);
+		assertThat(service.exportNewMoviesToIceberg()).isZero();
+
+		final var newMovies = new ArrayList<MovieEntity>();
+		for (int i = 0; i < 2; i++) {
+			final var movie = new MovieEntity();
+			movie.setName("New movie " + i);
+			movie.setRating(7.5f);
+			movie.setReleaseDate(LocalDate.of(2024, 1, 1 + i));
+			newMovies.add(movie);
+		}
+		service.writeMoviesToDatabase(newMovies);
+
+		assertThat(service.exportNewMoviesToIceberg()).isEqualTo(2);
+		assertThat(service.readMoviesFromIceberg()).hasSize(50);
+	}
+
+	@Test
+	void syncNewMoviesFromIceberg() {
+		// rows only in Iceberg, PG has none of these ids, one of them then upserted
+		final var seeded = new ArrayList<>(generatedMovies(20).toList());
+		assertThat(service.writeMoviesToIceberg(seeded)).isEqualTo(20);
+		final var changed = newMovie(seeded.get(0).getName(), 9.9f, seeded.get(0).getReleaseDate());
+		changed.setId(seeded.get(0).getId());
+		assertThat(service.upsertMoviesToIceberg(List.of(changed))).isEqualTo(1);
+		seeded.set(0, changed);
+		assertThat(service.readMoviesFromDatabase()).hasSize(48);
+		assertThat(syncCheckpoints.find(MovieService.ICEBERG_SYNC_CHECKPOINT)).isEmpty();
+
+		// the first sync loads the current snapshot, not the history
+		assertThat(service.syncNewMoviesFromIceberg()).isEqualTo(20);
+		final var movies = service.readMoviesFromDatabase();
+		assertThat(movies).hasSize(68);
+		for (var movie : seeded) {
+			assertThat(movies).filteredOn(read -> read.getId().equals(movie.getId()))
+				.singleElement()
+				.satisfies(read -> {
+					assertThat(read.getName()).isEqualTo(movie.getName());
+					assertThat(read.getRating()).isEqualTo(movie.getRating());
+					assertThat(read.getReleaseDate()).isEqualTo(movie.getReleaseDate());
+				});
+		}
+		assertThat(syncCheckpoints.find(MovieService.ICEBERG_SYNC_CHECKPOINT))
+			.hasValue(catalog.loadTable(MovieService.ICEBERG_TABLE_ID).currentSnapshot().snapshotId());
+		assertThat(service.syncNewMoviesFromIceberg()).isZero();
+	}
+
+	@Test
+	void resumeIcebergSync() {
+		final var movies = generatedMovies(15).toList();
+		service.writeMoviesToIceberg(movies.subList(0, 10));
+		assertThat(service.syncNewMoviesFromIceberg()).isEqualTo(10);
+		final long firstCheckpoint = syncCheckpoints.find(MovieService.ICEBERG_SYNC_CHECKPOINT).orElseThrow();
+
+		// a row delta, then a new append
+		final var changed = newMovie(movies.get(0).getName(), 9.9f, movies.get(0).getReleaseDate());
+		changed.setId(movies.get(0).getId());
+		assertThat(service.upsertMoviesToIceberg(List.of(changed))).isEqualTo(1);
+		final var table = catalog.loadTable(MovieService.ICEBERG_TABLE_ID);
+		new IcebergMovieWriter("", 134217728, 1).append(table, movies.subList(10, 15).stream());
+		table.refresh();
+
+		// only what was committed since the checkpoint is applied
+		assertThat(service.syncNewMoviesFromIceberg()).isEqualTo(6);
+		final long secondCheckpoint = syncCheckpoints.find(MovieService.ICEBERG_SYNC_CHECKPOINT).orElseThrow();
+		assertThat(secondCheckpoint).isNotEqualTo(firstCheckpoint)
+			.isEqualTo(table.currentSnapshot().snapshotId());
+		assertThat(table.snapshot(secondCheckpoint).parentId()).isNotEqualTo(firstCheckpoint);
+
+		final var synced = service.readMoviesFromDatabase();
+		assertThat(synced).hasSize(63);
+		assertThat(synced).extracting(MovieEntity::getId)
+			.containsAll(movies.stream().map(MovieEntity::getId).toList());
+		assertThat(synced).filteredOn(movie -> movie.getId().equals(changed.getId()))
+			.singleElement()
+			.satisfies(movie -> assertThat(movie.getRating()).isEqualTo(9.9f));
+		assertThat(service.syncNewMoviesFromIceberg()).isZero();
+
+		// deletes cannot be applied to PG, the sync stops on them
+		table.newDelete().deleteFile(planFiles(table).get(0)).commit();
+		assertThatThrownBy(service::syncNewMoviesFromIceberg).isInstanceOf(IllegalStateException.class)
+			.hasMessageContaining("delete the checkpoint to resync");
+		assertThat(syncCheckpoints.find(MovieService.ICEBERG_SYNC_CHECKPOINT)).hasValue(secondCheckpoint);
+	}
+
+	@Test
+	void upsertMoviesToIceberg() {
+		service.exportNewMoviesToIceberg();
+		final var changed = service.readMoviesFromDatabase().subList(0, 3);
+		changed.forEach(movie -> {
+			movie.setRating(9.9f);
+			movie.setReleaseDate(movie.getReleaseDate().plusYears(1));
+		});
+		final var added = new MovieEntity();
+		added.setId(1000L);
+		added.setName("Upserted movie");
+		added.setRating(5.0f);
+		added.setReleaseDate(LocalDate.of(2025, 1, 1));
+		final var upserts = new ArrayList<>(changed);
+		upserts.add(added);
+
+		assertThat(service.upsertMoviesToIceberg(upserts)).isEqualTo(4);
+
+		final var movies = service.readMoviesFromIceberg();
+		assertThat(movies).hasSize(49);
+		for (var movie : upserts) {
+			assertThat(movies).filteredOn(read -> read.getId().equals(movie.getId()))
+				.singleElement()
+				.satisfies(read -> {
+					assertThat(read.getRating()).isEqualTo(movie.getRating());
+					assertThat(read.getReleaseDate()).isEqualTo(movie.getReleaseDate());
+				});
+		}
+
+		final var result = service.queryMoviesFromIceberg(
+			Expressions.greaterThanOrEqual(MovieService.RATING_FIELD, 9.9f), MovieService.NAME_FIELD);
+		assertThat(result.movies()).hasSize(3).allSatisfy(movie -> assertThat(movie.getId()).isNull());
+	}
+
+	@Test
+	void maintainIcebergTable() {
+		service.exportNewMoviesToIceberg();
+		final var changed = service.readMoviesFromDatabase().subList(0, 2);
+		changed.forEach(movie -> movie.setRating(1.0f));
+		service.upsertMoviesToIceberg(changed);
+
+		final var report = service.maintainIcebergTable().orElseThrow();
+		assertThat(report.before().deleteFiles()).isPositive();
+		assertThat(report.rewrittenDataFiles()).isPositive();
+		assertThat(report.after().deleteFiles()).isZero();
+		assertThat(report.after().dataFiles()).isLessThanOrEqualTo(report.before().dataFiles());
+
+		final var movies = service.readMoviesFromIceberg();
+		assertThat(movies).hasSize(48);
+		assertThat(movies).filteredOn(movie -> movie.getRating() == 1.0f).hasSize(2);
+		assertThat(service.exportNewMoviesToIceberg()).isZero();
+	}
+
+	private double counterValue(String name, String tag, String value) {
+		final var counter = meterRegistry.find(name).tag(tag, value).counter();
+		return counter == null ? 0 : counter.count();
+	}
+
+	private double tableCacheGets(String result) {
+		return meterRegistry.get("cache.gets").tags("cache", MoviesCatalog.TABLE_CACHE_NAME, "result", result)
+			.functionCounter().count();
+	}
+
+	@SneakyThrows
+	private void uploadText(String key, String text) {
+		service.uploadFile(key, new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), "text/plain");
+	}
+
+	private String downloadText(String key) {
+		return s3Client.getObjectAsBytes(b -> b.bucket(MovieService.MOVIES_BUCKET).key(key)).asUtf8String();
+	}
+
+	private void readS3ParquetColumns(S3InputFile inputFile) {
+		try (var movies = service.streamMoviesFromParquet(inputFile, MovieService.ID_FIELD, MovieService.RATING_FIELD)) {
+			assertThat(movies.toList()).hasSize(48);
+		}
+	}
+
+	@SneakyThrows
+	private HttpResponse<byte[]> httpGet(String path) {
+		try (var client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+			return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+				HttpResponse.BodyHandlers.ofByteArray());
+		}
+	}
+
+	private static MovieEntity newMovie(String name, float rating, LocalDate releaseDate) {
+		final var movie = new MovieEntity();
+		movie.setName(name);
+		movie.setRating(rating);
+		movie.setReleaseDate(releaseDate);
+		return movie;
+	}
+
+	/**
+	 * The generated movies, failing when the given one is pulled.
+	 */
+	private static Stream<MovieEntity> failingMovies(int count, int failAt) {
+		return generatedMovies(count).peek(movie -> {
+			if (movie.getId() == 100_000L + failAt) {
+				throw new IllegalStateException("Source failed");
+			}
+		});
+	}
+
+	private static TableIdentifier tableId(String name) {
+		return TableIdentifier.of(MoviesCatalog.NAMESPACE, name);
+	}
+
+	private Table createIcebergTable(String name, String partitionSpec) {
+		catalog.dropTable(tableId(name), true);
+		return catalog.createTable(tableId(name), MovieService.ICEBERG_SCHEMA,
+			PartitionSpecs.parse(MovieService.ICEBERG_SCHEMA, partitionSpec));
+	}
+
+	@SneakyThrows
+	private static List<DataFile> planFiles(Table table) {
+		table.refresh();
+		final var files = new ArrayList<DataFile>();
+		try (var tasks = table.newScan().planFiles()) {
+			tasks.forEach(task -> files.add(task.file()));
+		}
+		return files;
+	}
+
+	private static Stream<MovieEntity> generatedMovies(int count) {
+		return IntStream.range(0, count).mapToObj(i -> {
+			final var movie = newMovie("Generated movie " + i, (i % 100) / 10.0f, LocalDate.of(1950 + i % 70, 1, 1));
+			movie.setId(100_000L + i);
+			return movie;
+		});
+	}
 }
@@ -0,0 +1,200 @@
+package com.github.raonigabriel.poc_parquet.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.apache.parquet.bytes.HeapByteBufferAllocator;
+import org.apache.parquet.io.ParquetFileRange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * The local file classes are package-private, so they are tested here rather
+ * than through the service.
+ */
+class LocalFileTests {
+
+	// 4 KB regions, so small files span several of them
+	private static final int REGION_SHIFT = 12;
+
+	private static final int REGION_SIZE = 1 << REGION_SHIFT;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void writeAndReadBack() throws IOException {
+		final var data = randomBytes(ChannelOutputStream.BUFFER_SIZE * 3 + 123);
+		final var file = directory.resolve("data.bin");
+		final var outputFile = new NioOutputFile(file);
+		assertThat(outputFile.getPath()).isEqualTo(file.toString());
+		try (var out = outputFile.create(0)) {
+			// single bytes and small writes are buffered, a large one goes straight to the channel
+			out.write(data[0]);
+			out.write(data, 1, 99);
+			assertThat(out.getPos()).isEqualTo(100);
+			out.write(data, 100, ChannelOutputStream.BUFFER_SIZE + 1);
+			out.write(data, 100 + ChannelOutputStream.BUFFER_SIZE + 1, data.length - 100 - ChannelOutputStream.BUFFER_SIZE - 1);
+			assertThat(out.getPos()).isEqualTo(data.length);
+		}
+		assertThat(Files.readAllBytes(file)).isEqualTo(data);
+		assertThatThrownBy(() -> outputFile.create(0)).isInstanceOf(FileAlreadyExistsException.class);
+
+		final var inputFile = new NioInputFile(file);
+		assertThat(inputFile.getLength()).isEqualTo(data.length);
+		try (var in = inputFile.newStream()) {
+			final var read = new byte[data.length];
+			in.readFully(read);
+			assertThat(read).isEqualTo(data);
+			assertThat(in.getPos()).isEqualTo(data.length);
+		}
+
+		try (var out = outputFile.createOrOverwrite(0)) {
+			out.write(data, 0, 10);
+		}
+		assertThat(Files.readAllBytes(file)).isEqualTo(Arrays.copyOf(data, 10));
+	}
+
+	@Test
+	void replaceOnlyOnceClosed() throws IOException {
+		final var file = write(randomBytes(100));
+		final var outputFile = new NioOutputFile(file);
+		try (var out = outputFile.createOrOverwrite(0)) {
+			out.write(randomBytes(ChannelOutputStream.BUFFER_SIZE + 1));
+			assertThat(Files.size(file)).isEqualTo(100);
+		}
+		assertThat(Files.size(file)).isEqualTo(ChannelOutputStream.BUFFER_SIZE + 1);
+
+		// an aborted write leaves the file as it was, and no temporary file next to it
+		final var out = outputFile.createOrOverwrite(0);
+		out.write(randomBytes(10));
+		outputFile.abort();
+		out.close();
+		assertThat(Files.size(file)).isEqualTo(ChannelOutputStream.BUFFER_SIZE + 1);
+		try (var files = Files.list(directory)) {
+			assertThat(files).containsExactly(file);
+		}
+	}
+
+	@Test
+	void seekToTheEndAndPastIt() throws IOException {
+		final var file = write(randomBytes(1000));
+		try (var in = new NioInputFile(file).newStream()) {
+			in.seek(1000);
+			assertThat(in.getPos()).isEqualTo(1000);
+			assertThat(in.read()).isEqualTo(-1);
+			assertThat(in.read(new byte[10], 0, 10)).isEqualTo(-1);
+			assertThat(in.read(ByteBuffer.allocate(10))).isEqualTo(-1);
+			assertThatThrownBy(() -> in.readFully(new byte[1])).isInstanceOf(EOFException.class);
+			assertThatThrownBy(() -> in.seek(1001)).isInstanceOf(EOFException.class);
+			assertThatThrownBy(() -> in.seek(-1)).isInstanceOf(EOFException.class);
+			assertThat(in.getPos()).isEqualTo(1000);
+
+			in.seek(990);
+			assertThatThrownBy(() -> in.readFully(ByteBuffer.allocate(11))).isInstanceOf(EOFException.class);
+			final var tail = new byte[10];
+			in.readFully(tail);
+			assertThat(in.getPos()).isEqualTo(1000);
+		}
+	}
+
+	@Test
+	void readAcrossRegions() throws IOException {
+		final var data = randomBytes(REGION_SIZE * 3 + 500);
+		final var file = write(data);
+		try (var in = new MappedInputStream(file, REGION_SHIFT)) {
+			in.seek(REGION_SIZE - 1);
+			assertThat(in.read()).isEqualTo(data[REGION_SIZE - 1] & 0xFF);
+			assertThat(in.read()).isEqualTo(data[REGION_SIZE] & 0xFF);
+
+			// plain reads stop at the end of a region, full reads go on
+			in.seek(REGION_SIZE - 100);
+			assertThat(in.read(new byte[200], 0, 200)).isEqualTo(100);
+			in.seek(REGION_SIZE - 100);
+			final var bytes = new byte[REGION_SIZE * 2 + 200];
+			in.readFully(bytes);
+			assertThat(bytes).isEqualTo(Arrays.copyOfRange(data, REGION_SIZE - 100, REGION_SIZE * 3 + 100));
+
+			in.seek(REGION_SIZE * 2 - 10);
+			final var direct = ByteBuffer.allocateDirect(REGION_SIZE + 20);
+			in.readFully(direct);
+			direct.flip();
+			assertThat(bytes(direct)).isEqualTo(Arrays.copyOfRange(data, REGION_SIZE * 2 - 10, REGION_SIZE * 3 + 10));
+			assertThat(in.getPos()).isEqualTo(REGION_SIZE * 3 + 10);
+
+			in.seek(0);
+			final var all = new byte[data.length];
+			in.readFully(all);
+			assertThat(all).isEqualTo(data);
+		}
+	}
+
+	@Test
+	void readVectored() throws IOException {
+		final var data = randomBytes(REGION_SIZE * 2 + 300);
+		final var file = write(data);
+		final var allocator = new HeapByteBufferAllocator();
+		try (var in = new MappedInputStream(file, REGION_SHIFT)) {
+			assertThat(in.readVectoredAvailable(allocator)).isTrue();
+			final var ranges = List.of(new ParquetFileRange(0, 10), new ParquetFileRange(REGION_SIZE - 5, 10),
+				new ParquetFileRange(100, REGION_SIZE * 2), new ParquetFileRange(data.length - 1, 1));
+			in.readVectored(ranges, allocator);
+			for (var range : ranges) {
+				assertThat(bytes(range.getDataReadFuture().join())).isEqualTo(Arrays.copyOfRange(data,
+					(int) range.getOffset(), (int) range.getOffset() + range.getLength()));
+			}
+			assertThat(in.getPos()).isZero();
+			assertThatThrownBy(() -> in.readVectored(List.of(new ParquetFileRange(data.length - 1, 2)), allocator))
+				.isInstanceOf(EOFException.class);
+		}
+	}
+
+	@Test
+	void readAfterClose() throws IOException {
+		final var file = write(randomBytes(100));
+		final var in = new NioInputFile(file).newStream();
+		in.close();
+		assertThatThrownBy(in::read).isInstanceOf(IOException.class).hasMessage("Stream closed");
+		assertThatThrownBy(() -> in.readFully(new byte[1])).isInstanceOf(IOException.class)
+			.hasMessage("Stream closed");
+		assertThatThrownBy(() -> in.seek(0)).isInstanceOf(IOException.class).hasMessage("Stream closed");
+	}
+
+	@Test
+	void readEmptyFile() throws IOException {
+		final var file = write(new byte[0]);
+		try (var in = new NioInputFile(file).newStream()) {
+			assertThat(in.read()).isEqualTo(-1);
+			in.readFully(new byte[0]);
+			assertThatThrownBy(() -> in.readFully(new byte[1])).isInstanceOf(EOFException.class);
+		}
+	}
+
+	private Path write(byte[] data) throws IOException {
+		final var file = directory.resolve("data.bin");
+		try (var out = new NioOutputFile(file).createOrOverwrite(0)) {
+			out.write(data);
+		}
+		return file;
+	}
+
+	private static byte[] randomBytes(int length) {
+		final var bytes = new byte[length];
+		new Random(length).nextBytes(bytes);
+		return bytes;
+	}
+
+	private static byte[] bytes(ByteBuffer buffer) {
+		final var bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+}